@@ -17,9 +17,12 @@
  */
 package com.axelor.app;
 
+import com.axelor.auth.AuditProcessor;
 import com.axelor.event.EventModule;
 import com.axelor.inject.Beans;
 import com.axelor.inject.logger.LoggerModule;
+import com.axelor.mail.service.MailQueueProcessor;
+import com.axelor.meta.MetaFilesCleaner;
 import com.axelor.meta.MetaScanner;
 import com.axelor.meta.db.repo.MetaJsonReferenceUpdater;
 import com.axelor.meta.loader.ModuleManager;
@@ -55,6 +58,15 @@ public class AppModule extends AbstractModule {
     // Observe updates to fix m2o names in json values
     bind(MetaJsonReferenceUpdater.class);
 
+    // Process asynchronous audit tracks
+    bind(AuditProcessor.class);
+
+    // Clean up obsolete temporary upload files
+    bind(MetaFilesCleaner.class);
+
+    // Deliver queued emails
+    bind(MailQueueProcessor.class);
+
     // Logger injection support
     install(new LoggerModule());
 
@@ -45,6 +45,7 @@ public interface AvailableAppSettings {
   String VIEW_ADVSEARCH_EXPORT_FULL = "view.adv-search.export.full";
   String VIEW_ADVSEARCH_SHARE = "view.adv-search.share";
   String VIEW_GRID_SELECTION = "view.grid.selection";
+  String VIEW_CACHE_PRELOAD = "view.cache.preload";
 
   String AXELOR_SCRIPT_CACHE_SIZE = "axelor.ScriptCacheSize";
   String AXELOR_SCRIPT_CACHE_EXPIRETIME = "axelor.ScriptCacheExpireTime";
@@ -88,6 +89,11 @@ public interface AvailableAppSettings {
   String QUARTZ_ENABLE = "quartz.enable";
   String QUARTZ_THREAD_COUNT = "quartz.threadCount";
 
+  String AUDIT_ASYNC_ENABLED = "audit.async.enabled";
+  String AUDIT_ASYNC_BATCH_SIZE = "audit.async.batch-size";
+  String AUDIT_ASYNC_MAX_RETRIES = "audit.async.max-retries";
+  String AUDIT_ASYNC_INTERVAL = "audit.async.interval";
+
   String DATE_FORMAT = "date.format";
 
   String FILE_UPLOAD_FILENAME_PATTERN = "file.upload.filename.pattern";
@@ -95,8 +101,16 @@ public interface AvailableAppSettings {
   String FILE_UPLOAD_BLACKLIST_PATTERN = "file.upload.blacklist.pattern";
   String FILE_UPLOAD_WHITELIST_TYPES = "file.upload.whitelist.types";
   String FILE_UPLOAD_BLACKLIST_TYPES = "file.upload.blacklist.types";
+  String FILE_UPLOAD_TEMP_CLEAN_INTERVAL = "file.upload.temp-clean-interval";
 
   String DATA_IMPORT_DEMO_DATA = "data.import.demo-data";
+  String DATA_IMPORT_PREFETCH = "data.import.prefetch";
+  String DATA_IMPORT_PARALLELISM = "data.import.parallelism";
+  String DATA_IMPORT_CHUNK_SIZE = "data.import.chunk-size";
+  String MODULES_INSTALL_PARALLELISM = "modules.install.parallelism";
+
+  String SEQUENCE_BLOCK_SIZE = "sequence.block-size";
+  String SEQUENCE_GAP_FREE = "sequence.gap-free";
 
   String USER_PASSWORD_PATTERN = "user.password.pattern";
   String USER_PASSWORD_PATTERN_TITLE = /*$$(*/ "user.password.pattern.title" /*)*/;
@@ -129,6 +143,11 @@ public interface AvailableAppSettings {
   String MAIL_SMTP_CONNECTION_TIMEOUT = "mail.smtp.connectionTimeout";
   String MAIL_SMTP_FROM = "mail.smtp.from";
 
+  String MAIL_QUEUE_WORKERS = "mail.queue.workers";
+  String MAIL_QUEUE_BATCH_SIZE = "mail.queue.batch-size";
+  String MAIL_QUEUE_MAX_RETRIES = "mail.queue.max-retries";
+  String MAIL_QUEUE_INTERVAL = "mail.queue.interval";
+
   String MAIL_IMAP_HOST = "mail.imap.host";
   String MAIL_IMAP_PORT = "mail.imap.port";
   String MAIL_IMAP_USER = "mail.imap.user";
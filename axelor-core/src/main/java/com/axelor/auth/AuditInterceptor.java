@@ -19,6 +19,8 @@ package com.axelor.auth;
 
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.auth.db.Group;
+import com.axelor.auth.db.Permission;
+import com.axelor.auth.db.Role;
 import com.axelor.auth.db.User;
 import com.axelor.db.EntityHelper;
 import com.axelor.db.JPA;
@@ -26,12 +28,22 @@ import com.axelor.db.JpaSequence;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
+import com.axelor.meta.MetaStore;
+import com.axelor.meta.db.MetaJsonField;
+import com.axelor.meta.db.MetaJsonModel;
+import com.axelor.meta.db.MetaSelect;
+import com.axelor.meta.db.MetaSelectItem;
 import com.axelor.meta.db.MetaSequence;
+import com.axelor.meta.db.MetaView;
+import com.axelor.meta.loader.XMLViews;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 import javax.persistence.PersistenceException;
 import org.hibernate.EmptyInterceptor;
 import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
 import org.hibernate.type.Type;
 
 @SuppressWarnings("serial")
@@ -39,6 +51,11 @@ public class AuditInterceptor extends EmptyInterceptor {
 
   private final ThreadLocal<User> currentUser = new ThreadLocal<User>();
   private final ThreadLocal<AuditTracker> tracker = new ThreadLocal<>();
+  private final ThreadLocal<Set<Object>> permissionChanges = new ThreadLocal<>();
+  private final ThreadLocal<Set<String>> selectionChanges = new ThreadLocal<>();
+  private final ThreadLocal<Boolean> viewChanges = new ThreadLocal<>();
+  private final ThreadLocal<Boolean> jsonFieldChanges = new ThreadLocal<>();
+  private final ThreadLocal<Set<String>> sequenceChanges = new ThreadLocal<>();
 
   private static final String UPDATED_BY = "updatedBy";
   private static final String UPDATED_ON = "updatedOn";
@@ -57,9 +74,14 @@ public class AuditInterceptor extends EmptyInterceptor {
 
   @Override
   public void afterTransactionCompletion(Transaction tx) {
-    tracker.get().clear();
+    tracker.get().clear(tx != null && tx.getStatus() == TransactionStatus.COMMITTED);
     tracker.remove();
     currentUser.remove();
+    invalidatePermissions();
+    invalidateSelections();
+    invalidateViews();
+    invalidateJsonFields();
+    invalidateSequences();
   }
 
   @Override
@@ -87,6 +109,131 @@ public class AuditInterceptor extends EmptyInterceptor {
     return user;
   }
 
+  private void cacheChanged(Object entity) {
+    permissionChanged(entity);
+    selectionChanged(entity);
+    viewChanged(entity);
+    jsonFieldChanged(entity);
+    sequenceChanged(entity);
+  }
+
+  private void sequenceChanged(Object entity) {
+    if (entity instanceof MetaSequence) {
+      final String name = ((MetaSequence) entity).getName();
+      if (sequenceChanges.get() == null) {
+        sequenceChanges.set(new HashSet<>());
+      }
+      sequenceChanges.get().add(name);
+      JpaSequence.invalidate(name);
+    }
+  }
+
+  private void invalidateSequences() {
+    final Set<String> names = sequenceChanges.get();
+    if (names != null) {
+      sequenceChanges.remove();
+      names.forEach(JpaSequence::invalidate);
+    }
+  }
+
+  private void viewChanged(Object entity) {
+    if (entity instanceof MetaView) {
+      viewChanges.set(Boolean.TRUE);
+      // invalidate now so that the changes are visible to the current transaction
+      XMLViews.invalidateViews();
+    }
+  }
+
+  private void invalidateViews() {
+    if (viewChanges.get() != null) {
+      viewChanges.remove();
+      XMLViews.invalidateViews();
+    }
+  }
+
+  private void jsonFieldChanged(Object entity) {
+    if (entity instanceof MetaJsonField || entity instanceof MetaJsonModel) {
+      jsonFieldChanges.set(Boolean.TRUE);
+      // invalidate now so that the changes are visible to the current transaction
+      MetaStore.invalidateJsonFields();
+    }
+  }
+
+  private void invalidateJsonFields() {
+    if (jsonFieldChanges.get() != null) {
+      jsonFieldChanges.remove();
+      MetaStore.invalidateJsonFields();
+    }
+  }
+
+  private void selectionChanged(Object entity) {
+    final String name;
+    if (entity instanceof MetaSelect) {
+      name = ((MetaSelect) entity).getName();
+    } else if (entity instanceof MetaSelectItem && ((MetaSelectItem) entity).getSelect() != null) {
+      name = ((MetaSelectItem) entity).getSelect().getName();
+    } else {
+      return;
+    }
+    if (name == null) {
+      return;
+    }
+    Set<String> changes = selectionChanges.get();
+    if (changes == null) {
+      changes = new HashSet<>();
+      selectionChanges.set(changes);
+    }
+    changes.add(name);
+    // invalidate now so that the changes are visible to the current transaction
+    MetaStore.invalidateSelection(name);
+  }
+
+  private void invalidateSelections() {
+    final Set<String> changes = selectionChanges.get();
+    if (changes == null) {
+      return;
+    }
+    selectionChanges.remove();
+    for (String name : changes) {
+      MetaStore.invalidateSelection(name);
+    }
+  }
+
+  private void permissionChanged(Object entity) {
+    if (entity instanceof User) {
+      final Long id = ((User) entity).getId();
+      if (id != null) {
+        addPermissionChange(id);
+      }
+    } else if (entity instanceof Permission || entity instanceof Role || entity instanceof Group) {
+      addPermissionChange(Permission.class);
+    }
+  }
+
+  private void addPermissionChange(Object change) {
+    Set<Object> changes = permissionChanges.get();
+    if (changes == null) {
+      changes = new HashSet<>();
+      permissionChanges.set(changes);
+    }
+    changes.add(change);
+  }
+
+  private void invalidatePermissions() {
+    final Set<Object> changes = permissionChanges.get();
+    if (changes == null) {
+      return;
+    }
+    permissionChanges.remove();
+    if (changes.contains(Permission.class)) {
+      AuthPermissionCache.invalidateAll();
+      return;
+    }
+    for (Object id : changes) {
+      AuthPermissionCache.invalidate((Long) id);
+    }
+  }
+
   private boolean canUpdate(Object entity, String field, Object prevValue, Object newValue) {
     if (!(entity instanceof Model) || ((Model) entity).getId() == null) {
       return true;
@@ -152,6 +299,8 @@ public class AuditInterceptor extends EmptyInterceptor {
       return false;
     }
 
+    cacheChanged(entity);
+
     final User user = this.getUser();
     for (int i = 0; i < propertyNames.length; i++) {
       if (!canUpdate(entity, propertyNames[i], previousState[i], currentState[i])) {
@@ -187,6 +336,8 @@ public class AuditInterceptor extends EmptyInterceptor {
       return changed;
     }
 
+    cacheChanged(entity);
+
     final User user = this.getUser();
     for (int i = 0; i < propertyNames.length; i++) {
       if (state[i] != null) {
@@ -217,6 +368,7 @@ public class AuditInterceptor extends EmptyInterceptor {
       throw new PersistenceException(
           String.format("You can't delete: %s#%s", entity.getClass().getName(), id));
     }
+    cacheChanged(entity);
     if (tracker.get() != null && entity instanceof Model) {
       tracker.get().delete((Model) entity);
     }
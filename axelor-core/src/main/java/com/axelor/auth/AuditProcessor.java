@@ -0,0 +1,288 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.auth;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.auth.db.AuditLog;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.event.Observes;
+import com.axelor.events.ShutdownEvent;
+import com.axelor.events.StartupEvent;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates the audit track messages from the pending {@link AuditLog} records.
+ *
+ * <p>When <code>audit.async.enabled</code> is set, {@link AuditTracker} only records the tracked
+ * changes as compact {@link AuditLog} records in the same transaction. These records are then
+ * processed in batches by a single background worker, and removed in the same transaction as the
+ * generated messages, so every change is processed at least once. Failed records are retried up to
+ * <code>audit.async.max-retries</code> times.
+ *
+ * <p>Pending records are claimed by the worker before being processed, so the records are not
+ * processed twice when several nodes share the same database. Claims of a node that stopped
+ * before processing them expire after some time. The records of every tenant are processed in
+ * turn.
+ */
+@Singleton
+public class AuditProcessor {
+
+  private static final Logger log = LoggerFactory.getLogger(AuditProcessor.class);
+
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  private static final int DEFAULT_MAX_RETRIES = 5;
+  private static final int DEFAULT_INTERVAL = 10;
+
+  // claimed records not processed within this delay (in minutes) can be claimed again
+  private static final int CLAIM_TIMEOUT = 10;
+
+  private final boolean enabled;
+  private final int batchSize;
+  private final int maxRetries;
+  private final int interval;
+
+  private final String owner = UUID.randomUUID().toString();
+
+  // tenants with a pending trigger, null for the default tenant
+  private final Set<String> pending = Collections.synchronizedSet(new HashSet<>());
+
+  private ScheduledExecutorService executor;
+
+  public AuditProcessor() {
+    this(
+        AppSettings.get().getBoolean(AvailableAppSettings.AUDIT_ASYNC_ENABLED, false),
+        AppSettings.get().getInt(AvailableAppSettings.AUDIT_ASYNC_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+        AppSettings.get().getInt(AvailableAppSettings.AUDIT_ASYNC_MAX_RETRIES, DEFAULT_MAX_RETRIES),
+        AppSettings.get().getInt(AvailableAppSettings.AUDIT_ASYNC_INTERVAL, DEFAULT_INTERVAL));
+  }
+
+  AuditProcessor(boolean enabled, int batchSize, int maxRetries, int interval) {
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxRetries = maxRetries;
+    this.interval = interval;
+  }
+
+  /**
+   * Whether the asynchronous processing of audit tracks is enabled.
+   *
+   * @return true if enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  void onStartup(@Observes StartupEvent event) {
+    start();
+  }
+
+  void onShutdown(@Observes ShutdownEvent event) {
+    stop();
+  }
+
+  /** Start the background worker, pending records are polled periodically. */
+  public synchronized void start() {
+    if (!enabled || executor != null) {
+      return;
+    }
+    executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "audit-processor");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.SECONDS);
+  }
+
+  /** Stop the background worker. */
+  public synchronized void stop() {
+    if (executor == null) {
+      return;
+    }
+    final ExecutorService service = executor;
+    executor = null;
+    service.shutdown();
+    try {
+      if (!service.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.warn("Audit processor didn't terminate in time.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Notify the worker about new pending records of the current tenant. */
+  synchronized void trigger() {
+    if (!enabled) {
+      return;
+    }
+    start();
+    final String tenant = TenantResolver.currentTenantIdentifier();
+    if (pending.add(tenant)) {
+      executor.execute(
+          () -> {
+            pending.remove(tenant);
+            TenantResolver.runAs(tenant, this::processAll);
+          });
+    }
+  }
+
+  private void run() {
+    TenantResolver.forEachTenant(this::processAll);
+  }
+
+  private void processAll() {
+    try {
+      while (process() == batchSize) {
+        // continue with next batch
+      }
+    } catch (Exception e) {
+      log.error("Unable to process audit logs: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Process the next batch of pending {@link AuditLog} records.
+   *
+   * @return number of records processed
+   */
+  public int process() {
+    final List<Long> ids = claim(findPending());
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      JPA.runInTransaction(() -> ids.forEach(this::process));
+    } catch (Exception e) {
+      JPA.em().clear();
+      // find the failing records
+      for (Long id : ids) {
+        try {
+          JPA.runInTransaction(() -> process(id));
+        } catch (Exception ex) {
+          JPA.em().clear();
+          failed(id, ex);
+        }
+      }
+    } finally {
+      JPA.em().clear();
+    }
+
+    return ids.size();
+  }
+
+  private List<Long> findPending() {
+    return Query.of(AuditLog.class)
+        .filter(
+            "(self.retries IS NULL OR self.retries < :retries) "
+                + "AND (self.owner IS NULL OR self.claimedOn < :expired)")
+        .bind("retries", maxRetries)
+        .bind("expired", LocalDateTime.now().minusMinutes(CLAIM_TIMEOUT))
+        .order("id")
+        .select("id")
+        .fetch(batchSize, 0)
+        .stream()
+        .map(values -> (Long) values.get("id"))
+        .collect(Collectors.toList());
+  }
+
+  private List<Long> claim(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return ids;
+    }
+
+    // the conditional update is atomic, concurrent claims of the same records update nothing
+    JPA.runInTransaction(
+        () ->
+            JPA.em()
+                .createQuery(
+                    "UPDATE AuditLog self SET self.owner = :owner, self.claimedOn = :now "
+                        + "WHERE self.id IN (:ids) "
+                        + "AND (self.owner IS NULL OR self.claimedOn < :expired)")
+                .setParameter("owner", owner)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("expired", LocalDateTime.now().minusMinutes(CLAIM_TIMEOUT))
+                .setParameter("ids", ids)
+                .executeUpdate());
+
+    return Query.of(AuditLog.class)
+        .filter("self.id IN (:ids) AND self.owner = :owner")
+        .bind("ids", ids)
+        .bind("owner", owner)
+        .order("id")
+        .select("id")
+        .fetch(0, 0)
+        .stream()
+        .map(values -> (Long) values.get("id"))
+        .collect(Collectors.toList());
+  }
+
+  private void process(Long id) {
+    final AuditLog item = JPA.em().find(AuditLog.class, id);
+    if (item == null || !owner.equals(item.getOwner())) {
+      return;
+    }
+    AuditableRunner.batchUser.set(item.getUser());
+    try {
+      new AuditTracker().process(item);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    } finally {
+      AuditableRunner.batchUser.remove();
+    }
+    JPA.em().remove(item);
+  }
+
+  private void failed(Long id, Exception error) {
+    log.error("Unable to process audit log #{}: {}", id, error.getMessage(), error);
+    try {
+      JPA.runInTransaction(
+          () -> {
+            final AuditLog item = JPA.em().find(AuditLog.class, id);
+            if (item != null) {
+              item.setRetries(item.getRetries() == null ? 1 : item.getRetries() + 1);
+              item.setError(error.toString());
+              item.setOwner(null);
+              item.setClaimedOn(null);
+            }
+          });
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+    }
+  }
+}
@@ -19,6 +19,7 @@ package com.axelor.auth;
 
 import static com.axelor.common.StringUtils.isBlank;
 
+import com.axelor.auth.db.AuditLog;
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.auth.db.User;
 import com.axelor.common.Inflector;
@@ -29,6 +30,7 @@ import com.axelor.db.annotations.Track;
 import com.axelor.db.annotations.TrackEvent;
 import com.axelor.db.annotations.TrackField;
 import com.axelor.db.annotations.TrackMessage;
+import com.axelor.db.mapper.Adapter;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.event.Event;
@@ -43,12 +45,19 @@ import com.axelor.meta.MetaFiles;
 import com.axelor.script.CompositeScriptHelper;
 import com.axelor.script.ScriptBindings;
 import com.axelor.script.ScriptHelper;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -88,14 +97,86 @@ final class AuditTracker {
     }
   }
 
+  private static final LoadingCache<Class<?>, TrackModel> TRACK_MODELS =
+      CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(TrackModel::new));
+
+  /** The {@link Track} configuration of an entity class, resolved once per class. */
+  private static class TrackModel {
+
+    private final Track track;
+    private final Mapper mapper;
+    private final List<TrackFieldModel> fields = new ArrayList<>();
+    private final Set<String> names = new LinkedHashSet<>();
+
+    public TrackModel(Class<?> entityClass) {
+      this.track = entityClass.getAnnotation(Track.class);
+      this.mapper = Mapper.of(entityClass);
+      if (track == null) {
+        return;
+      }
+      for (TrackField field : track.fields()) {
+        final Property property = mapper.getProperty(field.name());
+        if (property == null) {
+          continue;
+        }
+        String title = property.getTitle();
+        if (isBlank(title)) {
+          title = Inflector.getInstance().humanize(field.name());
+        }
+        fields.add(new TrackFieldModel(field, property, title));
+        names.add(field.name());
+      }
+      addNames(track.messages());
+      addNames(track.contents());
+    }
+
+    private void addNames(TrackMessage[] messages) {
+      for (TrackMessage message : messages) {
+        for (String name : message.fields()) {
+          if (!isBlank(name) && mapper.getProperty(name) != null) {
+            names.add(name);
+          }
+        }
+      }
+    }
+  }
+
+  private static class TrackFieldModel {
+
+    private final TrackField field;
+    private final Property property;
+    private final String title;
+
+    public TrackFieldModel(TrackField field, Property property, String title) {
+      this.field = field;
+      this.property = property;
+      this.title = title;
+    }
+  }
+
   private ObjectMapper objectMapper;
 
-  private String toJSON(Object value) {
+  private AuditProcessor processor;
+
+  private boolean logged;
+
+  private ObjectMapper getObjectMapper() {
     if (objectMapper == null) {
       objectMapper = Beans.get(ObjectMapper.class);
     }
+    return objectMapper;
+  }
+
+  private AuditProcessor getProcessor() {
+    if (processor == null) {
+      processor = Beans.get(AuditProcessor.class);
+    }
+    return processor;
+  }
+
+  private String toJSON(Object value) {
     try {
-      return objectMapper.writeValueAsString(value);
+      return getObjectMapper().writeValueAsString(value);
     } catch (Exception e) {
     }
     return null;
@@ -200,9 +281,10 @@ final class AuditTracker {
       TrackMessage[] messages,
       Map<String, Object> values,
       Map<String, Object> oldValues,
+      boolean created,
       ScriptHelper scriptHelper) {
     for (TrackMessage tm : messages) {
-      if (hasEvent(track, tm, oldValues.isEmpty() ? TrackEvent.CREATE : TrackEvent.UPDATE)) {
+      if (hasEvent(track, tm, created ? TrackEvent.CREATE : TrackEvent.UPDATE)) {
         boolean matched = tm.fields().length == 0;
         for (String field : tm.fields()) {
           if (isBlank(field)) {
@@ -210,7 +292,7 @@ final class AuditTracker {
             break;
           }
           matched =
-              oldValues.isEmpty()
+              created
                   ? values.containsKey(field)
                   : !Objects.equal(values.get(field), oldValues.get(field));
           if (matched) {
@@ -231,18 +313,25 @@ final class AuditTracker {
   }
 
   private void process(EntityState state, User user) {
-
     final AuditableModel entity = state.entity;
-    final Mapper mapper = Mapper.of(entity.getClass());
-    final MailMessage message = new MailMessage();
+    final TrackModel model = TRACK_MODELS.getUnchecked(entity.getClass());
+    process(model, entity, state.values, state.oldValues, state.oldValues.isEmpty(), user);
+  }
 
-    final Track track = getTrack(entity);
+  private void process(
+      TrackModel model,
+      AuditableModel entity,
+      Map<String, Object> values,
+      Map<String, Object> oldValues,
+      boolean created,
+      User user) {
+
+    final Mapper mapper = model.mapper;
+    final MailMessage message = new MailMessage();
 
-    final Map<String, Object> values = state.values;
-    final Map<String, Object> oldValues = state.oldValues;
-    final Map<String, Object> previousState = oldValues.isEmpty() ? null : oldValues;
+    final Track track = model.track;
 
-    final ScriptBindings bindings = new ScriptBindings(state.values);
+    final ScriptBindings bindings = new ScriptBindings(values);
     final ScriptHelper scriptHelper = new CompositeScriptHelper(bindings);
 
     final List<Map<String, String>> tags = new ArrayList<>();
@@ -250,16 +339,16 @@ final class AuditTracker {
     final Set<String> tagFields = new HashSet<>();
 
     // find matched message
-    String msg = findMessage(track, track.messages(), values, oldValues, scriptHelper);
+    String msg = findMessage(track, track.messages(), values, oldValues, created, scriptHelper);
 
     // find matched content message
-    String content = findMessage(track, track.contents(), values, oldValues, scriptHelper);
+    String content = findMessage(track, track.contents(), values, oldValues, created, scriptHelper);
 
-    for (TrackField field : track.fields()) {
+    for (TrackFieldModel fieldModel : model.fields) {
+      final TrackField field = fieldModel.field;
 
       if (!hasEvent(track, field, TrackEvent.ALWAYS)
-          && !hasEvent(
-              track, field, previousState == null ? TrackEvent.CREATE : TrackEvent.UPDATE)) {
+          && !hasEvent(track, field, created ? TrackEvent.CREATE : TrackEvent.UPDATE)) {
         continue;
       }
 
@@ -268,17 +357,12 @@ final class AuditTracker {
       }
 
       final String name = field.name();
-      final Property property = mapper.getProperty(name);
-
-      String title = property.getTitle();
-      if (isBlank(title)) {
-        title = Inflector.getInstance().humanize(name);
-      }
+      final Property property = fieldModel.property;
 
       final Object value = values.get(name);
       final Object oldValue = oldValues.get(name);
 
-      if (previousState != null && Objects.equal(value, oldValue)) {
+      if (!created && Objects.equal(value, oldValue)) {
         continue;
       }
 
@@ -286,7 +370,7 @@ final class AuditTracker {
 
       final Map<String, String> item = new HashMap<>();
       item.put("name", property.getName());
-      item.put("title", title);
+      item.put("title", fieldModel.title);
       item.put("value", format(property, value));
 
       if (oldValue != null) {
@@ -312,7 +396,7 @@ final class AuditTracker {
       if (!canTag) {
         continue;
       }
-      if (hasEvent(track, tm, previousState == null ? TrackEvent.CREATE : TrackEvent.UPDATE)) {
+      if (hasEvent(track, tm, created ? TrackEvent.CREATE : TrackEvent.UPDATE)) {
         if (!isBlank(tm.tag()) && scriptHelper.test(tm.condition())) {
           final Map<String, String> item = new HashMap<>();
           item.put("title", tm.message());
@@ -328,7 +412,7 @@ final class AuditTracker {
     }
 
     if (msg == null) {
-      msg = previousState == null ? /*$$(*/ "Record created" /*)*/ : /*$$(*/ "Record updated" /*)*/;
+      msg = created ? /*$$(*/ "Record created" /*)*/ : /*$$(*/ "Record updated" /*)*/;
     }
 
     final Map<String, Object> json = new HashMap<>();
@@ -354,7 +438,7 @@ final class AuditTracker {
     } catch (Exception e) {
     }
 
-    if (previousState == null && track.subscribe()) {
+    if (created && track.subscribe()) {
       final MailFollower follower = new MailFollower();
       follower.setRelatedId(entity.getId());
       follower.setRelatedModel(entity.getClass().getName());
@@ -364,6 +448,120 @@ final class AuditTracker {
     }
   }
 
+  static Object toCompact(Object value) {
+    if (value instanceof Model) {
+      return ((Model) value).getId();
+    }
+    // keep the scale, a json number may be read back as double
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    }
+    if (value instanceof Collection) {
+      final List<Object> items = new ArrayList<>();
+      for (Object item : (Collection<?>) value) {
+        items.add(toCompact(item));
+      }
+      return items;
+    }
+    return value;
+  }
+
+  private Map<String, Object> toCompact(TrackModel model, Map<String, Object> values) {
+    final Map<String, Object> compact = new HashMap<>();
+    for (String name : model.names) {
+      if (values.containsKey(name)) {
+        compact.put(name, toCompact(values.get(name)));
+      }
+    }
+    return compact;
+  }
+
+  static Object fromCompact(Property property, Object value) {
+    if (value == null || property.isCollection()) {
+      return value;
+    }
+    if (property.isReference()) {
+      return JPA.em().find(property.getTarget(), ((Number) value).longValue());
+    }
+    if (BigDecimal.class.isAssignableFrom(property.getJavaType())) {
+      return new BigDecimal(value.toString());
+    }
+    return Adapter.adapt(value, property.getJavaType(), property.getGenericType(), null);
+  }
+
+  private Map<String, Object> fromCompact(TrackModel model, Object values) {
+    final Map<String, Object> result = new HashMap<>();
+    if (values instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) values).entrySet()) {
+        final String name = (String) entry.getKey();
+        final Property property = model.mapper.getProperty(name);
+        if (property != null) {
+          result.put(name, fromCompact(property, entry.getValue()));
+        }
+      }
+    }
+    return result;
+  }
+
+  private AuditLog createLog(EntityState state, User user) {
+    final AuditableModel entity = state.entity;
+    final TrackModel model = TRACK_MODELS.getUnchecked(entity.getClass());
+    final Map<String, Object> changes = new HashMap<>();
+    changes.put("values", toCompact(model, state.values));
+    changes.put("oldValues", toCompact(model, state.oldValues));
+
+    final AuditLog log = new AuditLog();
+    log.setRelatedModel(entity.getClass().getName());
+    log.setRelatedId(entity.getId());
+    log.setCreated(state.oldValues.isEmpty());
+    log.setChanges(toJSON(changes));
+    log.setUser(user);
+    log.setRetries(0);
+    return log;
+  }
+
+  /**
+   * Generate the notification message from the given compact change record.
+   *
+   * <p>The tracked fields are restored from the change record, other values are taken from the
+   * current state of the record.
+   *
+   * @param log the change record
+   * @throws Exception if the change record can't be processed
+   */
+  void process(AuditLog log) throws Exception {
+    final Class<?> entityClass = JPA.model(log.getRelatedModel());
+    final Object bean = entityClass == null ? null : JPA.em().find(entityClass, log.getRelatedId());
+    if (!(bean instanceof AuditableModel)) {
+      // record is already removed
+      return;
+    }
+
+    final AuditableModel entity = (AuditableModel) bean;
+    final TrackModel model = TRACK_MODELS.getUnchecked(entityClass);
+    if (model.track == null) {
+      return;
+    }
+
+    final Map<String, Object> changes =
+        StringUtils.isBlank(log.getChanges())
+            ? Collections.emptyMap()
+            : getObjectMapper()
+                .readValue(log.getChanges(), new TypeReference<Map<String, Object>>() {});
+
+    final Map<String, Object> values = new HashMap<>();
+    for (Property property : model.mapper.getProperties()) {
+      values.put(property.getName(), property.get(entity));
+    }
+
+    values.putAll(fromCompact(model, changes.get("values")));
+
+    final Map<String, Object> oldValues = fromCompact(model, changes.get("oldValues"));
+    final boolean created = log.getCreated() == Boolean.TRUE;
+
+    process(model, entity, values, oldValues, created, log.getUser());
+  }
+
   private void processTracks(Transaction tx, User user) {
     final Map<String, EntityState> store = STORE.get();
     if (store.isEmpty()) {
@@ -371,6 +569,16 @@ final class AuditTracker {
     }
     // prevent concurrent update
     STORE.remove();
+
+    if (getProcessor().isEnabled()) {
+      // record compact changes, messages are generated by the audit processor
+      for (EntityState state : store.values()) {
+        JPA.em().persist(createLog(state, user));
+      }
+      logged = true;
+      return;
+    }
+
     for (EntityState state : store.values()) {
       process(state, user);
     }
@@ -400,10 +608,19 @@ final class AuditTracker {
 
   /**
    * This method should be called from {@link
-   * AuditInterceptor#afterTransactionCompletion(Transaction)} method to clear the change recording.
+   * AuditInterceptor#afterTransactionCompletion(Transaction)} method to clear the change recording
+   * and to notify the {@link AuditProcessor} about the pending change records, if any.
+   *
+   * @param committed whether the transaction is committed, the processor is not notified otherwise
    */
-  public void clear() {
+  public void clear(boolean committed) {
     STORE.remove();
+    if (logged) {
+      logged = false;
+      if (committed) {
+        getProcessor().trigger();
+      }
+    }
   }
 
   /**
@@ -37,6 +37,33 @@ public class AuditableRunner {
     this.users = users;
   }
 
+  /**
+   * Returns a task running the given task with the current user as the batch user.
+   *
+   * <p>This is used to keep tracking the changes with the same user when a job is split into tasks
+   * running in other threads.
+   *
+   * @param task the task to run
+   * @return the task to run in the other thread
+   */
+  public static Runnable withCurrentUser(Runnable task) {
+    final User currentUser = AuthUtils.getUser();
+    final User user = currentUser == null ? batchUser.get() : currentUser;
+    return () -> {
+      final User previous = batchUser.get();
+      batchUser.set(user);
+      try {
+        task.run();
+      } finally {
+        if (previous == null) {
+          batchUser.remove();
+        } else {
+          batchUser.set(previous);
+        }
+      }
+    };
+  }
+
   /**
    * Run a batch job.
    *
@@ -0,0 +1,206 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.auth;
+
+import com.axelor.auth.db.Permission;
+import com.axelor.auth.db.User;
+import com.axelor.common.StringUtils;
+import com.axelor.db.JpaSecurity.AccessType;
+import com.axelor.db.tenants.TenantResolver;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of resolved permissions per (user, model, access type).
+ *
+ * <p>The cache keeps only the immutable outcome of {@link AuthResolver#resolve(User, String,
+ * AccessType)}, i.e. whether an unconditional permission is granted and the condition templates of
+ * the conditional ones, so no entity instance is kept outside of its session.
+ *
+ * <p>The cache is invalidated by {@link AuditInterceptor} whenever {@link Permission}, {@link
+ * com.axelor.auth.db.Role}, {@link com.axelor.auth.db.Group} or {@link User} records are changed.
+ * Permissions resolved while an invalidation happens are not kept.
+ */
+public final class AuthPermissionCache {
+
+  private static final Cache<Key, Resolved> CACHE =
+      CacheBuilder.newBuilder().maximumSize(10000).recordStats().build();
+
+  // incremented on each invalidation, to drop the permissions resolved before
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  private AuthPermissionCache() {}
+
+  /** The key of the cached permissions. */
+  private static final class Key {
+
+    private final String tenant;
+    private final Long user;
+    private final String model;
+    private final AccessType type;
+
+    public Key(String tenant, Long user, String model, AccessType type) {
+      this.tenant = tenant;
+      this.user = user;
+      this.model = model;
+      this.type = type;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(tenant, user, model, type);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key other = (Key) obj;
+      return Objects.equals(tenant, other.tenant)
+          && Objects.equals(user, other.user)
+          && Objects.equals(model, other.model)
+          && type == other.type;
+    }
+  }
+
+  /** Compiled condition of a conditional permission. */
+  static final class ConditionTemplate {
+
+    private final String condition;
+    private final List<String> params;
+
+    private ConditionTemplate(String condition, String params) {
+      final List<String> names = new ArrayList<>();
+      if (StringUtils.notBlank(params)) {
+        for (String param : params.split(",")) {
+          names.add(param.trim());
+        }
+      }
+      this.condition = condition;
+      this.params = Collections.unmodifiableList(names);
+    }
+
+    public String getCondition() {
+      return condition;
+    }
+
+    public List<String> getParams() {
+      return params;
+    }
+  }
+
+  /** Resolved permissions of a user on a model for an access type. */
+  static final class Resolved {
+
+    private final boolean empty;
+    private final boolean granted;
+    private final List<ConditionTemplate> conditions;
+
+    private Resolved(Set<Permission> permissions) {
+      final List<ConditionTemplate> items = new ArrayList<>();
+      boolean unconditional = false;
+      for (Permission permission : permissions) {
+        final String condition = permission.getCondition();
+        if (condition == null) {
+          unconditional = true;
+        } else if (StringUtils.notBlank(condition)) {
+          items.add(new ConditionTemplate(condition, permission.getConditionParams()));
+        }
+      }
+      this.empty = permissions.isEmpty();
+      this.granted = unconditional;
+      this.conditions = Collections.unmodifiableList(items);
+    }
+
+    /** Whether no permission is resolved at all. */
+    public boolean isEmpty() {
+      return empty;
+    }
+
+    /** Whether at least one permission without condition is resolved. */
+    public boolean isGranted() {
+      return granted;
+    }
+
+    /** The condition templates of the conditional permissions. */
+    public List<ConditionTemplate> getConditions() {
+      return conditions;
+    }
+  }
+
+  static Resolved get(AuthResolver resolver, User user, String model, AccessType type) {
+    if (user.getId() == null) {
+      return new Resolved(resolver.resolve(user, model, type));
+    }
+    final Key key = new Key(TenantResolver.currentTenantIdentifier(), user.getId(), model, type);
+    final Resolved cached = CACHE.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    final long generation = GENERATION.get();
+    final Resolved resolved = new Resolved(resolver.resolve(user, model, type));
+
+    CACHE.put(key, resolved);
+
+    // drop it if invalidated meanwhile, invalidations after this check remove it anyway
+    if (GENERATION.get() != generation) {
+      CACHE.asMap().remove(key, resolved);
+    }
+
+    return resolved;
+  }
+
+  /**
+   * Invalidate cached permissions of the given user.
+   *
+   * @param userId the user id
+   */
+  static void invalidate(Long userId) {
+    if (userId != null) {
+      final String tenant = TenantResolver.currentTenantIdentifier();
+      GENERATION.incrementAndGet();
+      CACHE
+          .asMap()
+          .keySet()
+          .removeIf(key -> userId.equals(key.user) && Objects.equals(tenant, key.tenant));
+    }
+  }
+
+  /** Invalidate all the cached permissions. */
+  public static void invalidateAll() {
+    GENERATION.incrementAndGet();
+    CACHE.invalidateAll();
+  }
+
+  /**
+   * Get the cache statistics (hit and miss counts).
+   *
+   * @return cache statistics
+   */
+  public static CacheStats stats() {
+    return CACHE.stats();
+  }
+}
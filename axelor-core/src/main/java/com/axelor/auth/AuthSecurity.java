@@ -17,9 +17,9 @@
  */
 package com.axelor.auth;
 
-import com.axelor.auth.db.Permission;
+import com.axelor.auth.AuthPermissionCache.ConditionTemplate;
+import com.axelor.auth.AuthPermissionCache.Resolved;
 import com.axelor.auth.db.User;
-import com.axelor.common.StringUtils;
 import com.axelor.db.JpaSecurity;
 import com.axelor.db.Model;
 import com.axelor.rpc.filter.Filter;
@@ -42,23 +42,20 @@ class AuthSecurity implements JpaSecurity, Provider<JpaSecurity> {
 
     private Filter filter;
 
-    public Condition(User user, String condition, String params) {
+    public Condition(User user, ConditionTemplate template) {
 
       final List<Object> args = Lists.newArrayList();
 
-      if (StringUtils.notBlank(params)) {
-        for (String param : params.split(",")) {
-          param = param.trim();
-          if ("__user__".equals(param)) {
-            args.add(user);
-          } else {
-            final Object value = eval(user, "__user__", param);
-            args.add(value);
-          }
+      for (String param : template.getParams()) {
+        if ("__user__".equals(param)) {
+          args.add(user);
+        } else {
+          final Object value = eval(user, "__user__", param);
+          args.add(value);
         }
       }
 
-      this.filter = new JPQLFilter(condition, args.toArray());
+      this.filter = new JPQLFilter(template.getCondition(), args.toArray());
     }
 
     private Object eval(Object bean, String prefix, String expr) {
@@ -90,13 +87,8 @@ class AuthSecurity implements JpaSecurity, Provider<JpaSecurity> {
     return user;
   }
 
-  private Condition getCondition(User user, Permission permission, AccessType accessType) {
-    final String condition = permission.getCondition();
-    final String params = permission.getConditionParams();
-    if (condition == null || "".equals(condition.trim())) {
-      return null;
-    }
-    return new Condition(user, condition, params);
+  private Resolved resolve(User user, Class<? extends Model> model, AccessType type) {
+    return AuthPermissionCache.get(authResolver, user, model.getName(), type);
   }
 
   @Override
@@ -127,16 +119,13 @@ class AuthSecurity implements JpaSecurity, Provider<JpaSecurity> {
     }
 
     final List<Filter> filters = Lists.newArrayList();
-    final Set<Permission> permissions = authResolver.resolve(user, model.getName(), type);
+    final Resolved permissions = resolve(user, model, type);
     if (permissions.isEmpty()) {
       return null;
     }
 
-    for (Permission permission : permissions) {
-      Condition condition = this.getCondition(user, permission, type);
-      if (condition != null) {
-        filters.add(condition.getFilter());
-      }
+    for (ConditionTemplate template : permissions.getConditions()) {
+      filters.add(new Condition(user, template).getFilter());
     }
 
     if (filters.isEmpty() && ids.length == 0) {
@@ -163,16 +152,14 @@ class AuthSecurity implements JpaSecurity, Provider<JpaSecurity> {
       return true;
     }
 
-    final Set<Permission> permissions = authResolver.resolve(user, model.getName(), type);
+    final Resolved permissions = resolve(user, model, type);
     if (permissions.isEmpty()) {
       return false;
     }
 
     // check whether non-conditional permissions are granted
-    for (Permission permission : permissions) {
-      if (permission.getCondition() == null && authResolver.hasAccess(permission, type)) {
-        return true;
-      }
+    if (permissions.isGranted()) {
+      return true;
     }
 
     if (ids == null || ids.length == 0) {
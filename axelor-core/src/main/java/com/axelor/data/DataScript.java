@@ -0,0 +1,112 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data;
+
+import groovy.lang.Binding;
+import groovy.lang.Script;
+import java.util.Map;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/**
+ * A groovy expression compiled once and evaluated with the given variables.
+ *
+ * <p>Every thread reuses its own instance of the compiled script, and the variables are read from
+ * the given map directly, so neither the script nor a new {@link Binding} is created per
+ * evaluation. Like {@link DataScriptHelper#eval(String, Map)}, missing variables are evaluated to
+ * <code>null</code>.
+ *
+ * @see DataScriptHelper#compile(String)
+ */
+public final class DataScript {
+
+  private final String expression;
+
+  private final Class<? extends Script> scriptClass;
+
+  private final ThreadLocal<Script> scripts = ThreadLocal.withInitial(this::newScript);
+
+  DataScript(String expression, Class<? extends Script> scriptClass) {
+    this.expression = expression;
+    this.scriptClass = scriptClass;
+  }
+
+  public String getExpression() {
+    return expression;
+  }
+
+  private Script newScript() {
+    return scriptClass == null ? null : InvokerHelper.createScript(scriptClass, new MapBinding());
+  }
+
+  /**
+   * Evaluate the script with the given variables.
+   *
+   * @param variables the binding variables
+   * @return the result of the expression or null if the expression is invalid
+   */
+  public Object eval(Map<String, Object> variables) {
+    Script script = scripts.get();
+    if (script == null) {
+      return null;
+    }
+    MapBinding binding = (MapBinding) script.getBinding();
+    if (binding.variables != null) {
+      // nested evaluation of the same script
+      script = newScript();
+      binding = (MapBinding) script.getBinding();
+    }
+    binding.variables = variables;
+    try {
+      return script.run();
+    } finally {
+      binding.variables = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  /** The binding reading the variables from the given map. */
+  private static final class MapBinding extends Binding {
+
+    private Map<String, Object> variables;
+
+    @Override
+    public Object getVariable(String name) {
+      return variables.get(name);
+    }
+
+    @Override
+    public void setVariable(String name, Object value) {
+      variables.put(name, value);
+    }
+
+    @Override
+    public boolean hasVariable(String name) {
+      return variables.containsKey(name);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Map getVariables() {
+      return variables;
+    }
+  }
+}
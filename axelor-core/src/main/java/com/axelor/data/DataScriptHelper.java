@@ -19,6 +19,7 @@ package com.axelor.data;
 
 import com.axelor.db.JpaRepository;
 import com.axelor.db.JpaScanner;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -26,6 +27,8 @@ import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
 import groovy.lang.MissingPropertyException;
 import groovy.lang.Script;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -63,6 +66,9 @@ public final class DataScriptHelper {
     config.addCompilationCustomizers(importCustomizer);
   }
 
+  private static final Cache<List<Object>, DataScript> COMPILED =
+      CacheBuilder.newBuilder().weakValues().build();
+
   private boolean indy = true;
 
   private int cacheSize = DEFAULT_CACHE_SIZE;
@@ -99,6 +105,37 @@ public final class DataScriptHelper {
     this.indy = indy;
   }
 
+  /**
+   * Compile the given expression.<br>
+   * <br>
+   * Unlike {@link #eval(String, Map)}, the compiled script is not subject to the cache eviction and
+   * can be evaluated concurrently. The same expressions share the compiled script.
+   *
+   * @param expression the groovy expression to compile
+   * @return the compiled script
+   */
+  public DataScript compile(String expression) {
+    try {
+      return COMPILED.get(
+          Arrays.asList(expression, indy),
+          () -> {
+            final CompilerConfiguration cfg = indy ? configIndy : config;
+            Class<? extends Script> scriptClass = null;
+            try {
+              scriptClass =
+                  new GroovyShell(JpaScanner.getClassLoader(), new Binding(), cfg)
+                      .parse(expression)
+                      .getClass();
+            } catch (Exception e) {
+              log.warn("Invalid script: {}", expression);
+            }
+            return new DataScript(expression, scriptClass);
+          });
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   /**
    * Evaluate the given expression.<br>
    * <br>
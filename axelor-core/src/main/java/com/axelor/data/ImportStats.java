@@ -0,0 +1,110 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data;
+
+/** The statistics of an imported file. */
+public class ImportStats {
+
+  private final String fileName;
+  private final long total;
+  private final long success;
+  private final long elapsed;
+  private final long readTime;
+  private final long bindTime;
+  private final long persistTime;
+  private final long retries;
+
+  public ImportStats(
+      String fileName,
+      long total,
+      long success,
+      long elapsed,
+      long readTime,
+      long bindTime,
+      long persistTime,
+      long retries) {
+    this.fileName = fileName;
+    this.total = total;
+    this.success = success;
+    this.elapsed = elapsed;
+    this.readTime = readTime;
+    this.bindTime = bindTime;
+    this.persistTime = persistTime;
+    this.retries = retries;
+  }
+
+  /** The imported file name. */
+  public String getFileName() {
+    return fileName;
+  }
+
+  /** The total number of records processed. */
+  public long getTotal() {
+    return total;
+  }
+
+  /** The number of records successfully imported. */
+  public long getSuccess() {
+    return success;
+  }
+
+  /** The elapsed time in milliseconds. */
+  public long getElapsed() {
+    return elapsed;
+  }
+
+  /** The time spent on reading the records, in milliseconds. */
+  public long getReadTime() {
+    return readTime;
+  }
+
+  /** The time spent on binding the records, in milliseconds (summed over workers). */
+  public long getBindTime() {
+    return bindTime;
+  }
+
+  /** The time spent on persisting the records, in milliseconds (summed over workers). */
+  public long getPersistTime() {
+    return persistTime;
+  }
+
+  /** The number of records run again after their chunk failed. */
+  public long getRetries() {
+    return retries;
+  }
+
+  /** The number of records processed per second. */
+  public double getRowsPerSecond() {
+    return elapsed == 0 ? 0 : total * 1000.0 / elapsed;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: %d/%d records in %d ms (%.1f rows/s, read=%d ms, bind=%d ms, persist=%d ms, retries=%d)",
+        fileName,
+        success,
+        total,
+        elapsed,
+        getRowsPerSecond(),
+        readTime,
+        bindTime,
+        persistTime,
+        retries);
+  }
+}
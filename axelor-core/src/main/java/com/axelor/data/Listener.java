@@ -44,4 +44,11 @@ public interface Listener {
    * @param e the cause
    */
   void handle(Model bean, Exception e);
+
+  /**
+   * Invoked when file is imported with the import statistics
+   *
+   * @param stats the import statistics
+   */
+  default void imported(ImportStats stats) {}
 }
@@ -0,0 +1,288 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data;
+
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.axelor.db.mapper.PropertyType;
+import com.google.common.collect.Iterables;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.persistence.FlushModeType;
+
+/**
+ * Import scoped cache of the <code>search</code> lookups of the data bindings.
+ *
+ * <p>The ids of the records found by the search queries are cached by (model, query, parameter
+ * values), so the records are fetched by id, even after the persistence context is cleared. Only
+ * found records are cached, records which are not found yet (e.g. created later by the import) are
+ * searched again.
+ *
+ * <p>The lookups of the form <code>self.field = :param</code> on a string field can also be
+ * resolved in bulk with {@link #prefetch(Class, String, Collection)}.
+ */
+public class LookupCache {
+
+  private static final Pattern PARAM_PATTERN = Pattern.compile("(?<![:\\w]):(\\w+)");
+
+  private static final Pattern SIMPLE_PATTERN =
+      Pattern.compile("^\\s*self\\.([\\w.]+)\\s*=\\s*:(\\w+)\\s*$");
+
+  private static final int MAX_SIZE = 100_000;
+
+  private static final int PREFETCH_SIZE = 500;
+
+  private final Map<Key, Long> ids = new ConcurrentHashMap<>();
+
+  private final Map<String, List<String>> params = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder prefetched = new LongAdder();
+
+  private static final class Key {
+
+    private final Class<?> type;
+    private final String query;
+    private final Object[] values;
+    private final int hash;
+
+    Key(Class<?> type, String query, Object[] values) {
+      this.type = type;
+      this.query = query;
+      this.values = values;
+      this.hash = Objects.hash(type, query, Arrays.hashCode(values));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key other = (Key) obj;
+      return type == other.type
+          && query.equals(other.query)
+          && Arrays.equals(values, other.values);
+    }
+  }
+
+  private List<String> getParams(String query) {
+    return params.computeIfAbsent(
+        query,
+        q -> {
+          final List<String> names = new ArrayList<>();
+          final Matcher matcher = PARAM_PATTERN.matcher(q);
+          while (matcher.find()) {
+            if (!names.contains(matcher.group(1))) {
+              names.add(matcher.group(1));
+            }
+          }
+          return names;
+        });
+  }
+
+  private static boolean isCacheable(Object value) {
+    return value == null
+        || value instanceof String
+        || value instanceof Number
+        || value instanceof Boolean
+        || value instanceof Character
+        || value instanceof Enum
+        || value instanceof TemporalAccessor;
+  }
+
+  private Key key(Class<?> type, String query, Map<String, Object> context) {
+    final List<String> names = getParams(query);
+    final Object[] values = new Object[names.size()];
+    for (int i = 0; i < values.length; i++) {
+      final Object value = context.get(names.get(i));
+      if (!isCacheable(value)) {
+        return null;
+      }
+      values[i] = value;
+    }
+    return new Key(type, query, values);
+  }
+
+  /**
+   * Find the record matching the given search query.
+   *
+   * @param type the model class
+   * @param query the search query
+   * @param context the query parameters
+   * @param finder runs the search query if the record is not cached
+   * @return the record found or null
+   */
+  public <T extends Model> T find(
+      Class<T> type, String query, Map<String, Object> context, Supplier<T> finder) {
+    final Key key = key(type, query, context);
+    if (key != null) {
+      final Long id = ids.get(key);
+      if (id != null) {
+        final T bean = JPA.em().find(type, id);
+        if (bean != null) {
+          hits.increment();
+          return bean;
+        }
+        // the record is removed, for example by a rollback
+        ids.remove(key);
+      }
+    }
+
+    misses.increment();
+
+    final T bean = finder.get();
+    if (key != null && bean != null && bean.getId() != null && ids.size() < MAX_SIZE) {
+      ids.put(key, bean.getId());
+    }
+    return bean;
+  }
+
+  /**
+   * Get the parameter of the given query if the query can be prefetched.
+   *
+   * @param type the model class
+   * @param query the search query
+   * @return the parameter name or null if the query can't be prefetched
+   */
+  public String getPrefetchParam(Class<?> type, String query) {
+    final Matcher matcher = SIMPLE_PATTERN.matcher(query);
+    if (!matcher.matches() || !isStringPath(type, matcher.group(1))) {
+      return null;
+    }
+    return matcher.group(2);
+  }
+
+  private static boolean isStringPath(Class<?> type, String path) {
+    Class<?> current = type;
+    Property property = null;
+    for (String name : path.split("\\.")) {
+      if (current == null) {
+        return false;
+      }
+      property = Mapper.of(current).getProperty(name);
+      if (property == null || property.isCollection()) {
+        return false;
+      }
+      current = property.getTarget();
+    }
+    return property != null && property.getType() == PropertyType.STRING;
+  }
+
+  /**
+   * Resolve the given search query for all the given values at once.
+   *
+   * <p>The query should be of the form <code>self.field = :param</code> (see {@link
+   * #getPrefetchParam(Class, String)}), values matching more than one record are not cached.
+   *
+   * @param type the model class
+   * @param query the search query
+   * @param values the parameter values
+   */
+  public void prefetch(Class<?> type, String query, Collection<?> values) {
+    final Matcher matcher = SIMPLE_PATTERN.matcher(query);
+    if (values.isEmpty() || !matcher.matches()) {
+      return;
+    }
+
+    final String path = matcher.group(1);
+    final Set<Object> pending = new HashSet<>();
+    for (Object value : values) {
+      if (value instanceof String && !ids.containsKey(new Key(type, query, new Object[] {value}))) {
+        pending.add(value);
+      }
+    }
+
+    final String jpql =
+        String.format(
+            "SELECT self.id, self.%s FROM %s self WHERE self.%s IN (:values)",
+            path, type.getSimpleName(), path);
+
+    for (List<Object> chunk : Iterables.partition(pending, PREFETCH_SIZE)) {
+      final List<Object[]> rows =
+          JPA.em()
+              .createQuery(jpql, Object[].class)
+              .setParameter("values", chunk)
+              .setFlushMode(FlushModeType.COMMIT)
+              .getResultList();
+
+      final Map<Object, Long> found = new HashMap<>();
+      final Set<Object> duplicates = new HashSet<>();
+      for (Object[] row : rows) {
+        if (found.put(row[1], (Long) row[0]) != null) {
+          duplicates.add(row[1]);
+        }
+      }
+      found.keySet().removeAll(duplicates);
+      found.forEach(
+          (value, id) -> {
+            if (ids.size() < MAX_SIZE) {
+              ids.put(new Key(type, query, new Object[] {value}), id);
+              prefetched.increment();
+            }
+          });
+    }
+  }
+
+  /** Number of lookups found in the cache. */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /** Number of lookups searched in the database. */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /** Number of lookups resolved in bulk. */
+  public long getPrefetched() {
+    return prefetched.sum();
+  }
+
+  /** Ratio of the lookups found in the cache. */
+  public double getHitRate() {
+    final long total = getHits() + getMisses();
+    return total == 0 ? 0 : (double) getHits() / total;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "hits=%d, misses=%d, prefetched=%d, hit rate=%.1f%%",
+        getHits(), getMisses(), getPrefetched(), getHitRate() * 100);
+  }
+}
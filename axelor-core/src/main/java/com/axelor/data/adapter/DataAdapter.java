@@ -50,7 +50,7 @@ public class DataAdapter {
   @XStreamAlias("option")
   private List<Option> options;
 
-  private Adapter adapter;
+  private volatile Adapter adapter;
 
   public DataAdapter() {}
 
@@ -94,17 +94,19 @@ public class DataAdapter {
 
   public Object adapt(Object value, Map<String, Object> context) {
 
-    if (adapter == null) {
-      adapter = create();
+    Adapter current = adapter;
+    if (current == null) {
+      current = create();
       if (options != null) {
         Properties p = new Properties();
         for (Option o : options) {
           p.setProperty(o.name, o.value);
         }
-        adapter.setOptions(p);
+        current.setOptions(p);
       }
+      adapter = current;
     }
 
-    return adapter.adapt(value, context);
+    return current.adapt(value, context);
   }
 }
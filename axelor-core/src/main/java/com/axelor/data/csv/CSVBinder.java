@@ -18,6 +18,7 @@
 package com.axelor.data.csv;
 
 import com.axelor.data.AuditHelper;
+import com.axelor.data.LookupCache;
 import com.axelor.data.adapter.DataAdapter;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
@@ -33,7 +34,9 @@ import com.google.common.collect.Sets;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -60,6 +63,8 @@ public class CSVBinder {
 
   private Map<String, DataAdapter> adapters = Maps.newHashMap();
 
+  private LookupCache lookupCache;
+
   public void registerAdapter(DataAdapter adapter) {
     adapters.put(adapter.getName(), adapter);
   }
@@ -72,6 +77,19 @@ public class CSVBinder {
     return fields;
   }
 
+  public LookupCache getLookupCache() {
+    return lookupCache;
+  }
+
+  /**
+   * Set the cache used to resolve the <code>search</code> lookups.
+   *
+   * @param lookupCache the lookup cache, can be null
+   */
+  public void setLookupCache(LookupCache lookupCache) {
+    this.lookupCache = lookupCache;
+  }
+
   public CSVBinder(Class<?> beanClass, String[] fields, CSVInput csvInput) {
     this(
         beanClass,
@@ -171,12 +189,9 @@ public class CSVBinder {
     } else if (this.query != null) {
       LOG.trace("search: " + this.query);
       Object bean =
-          JPA.all((Class<Model>) beanClass)
-              .filter(query)
-              .bind(params)
-              .cacheable()
-              .autoFlush(false)
-              .fetchOne();
+          lookupCache == null
+              ? search(params)
+              : lookupCache.find((Class<Model>) beanClass, query, params, () -> search(params));
       LOG.trace("search found: " + bean);
       if (update || bean != null) {
         newBean = false;
@@ -192,6 +207,16 @@ public class CSVBinder {
     }
   }
 
+  @SuppressWarnings("unchecked")
+  private Model search(Map<String, Object> params) {
+    return JPA.all((Class<Model>) beanClass)
+        .filter(query)
+        .bind(params)
+        .cacheable()
+        .autoFlush(false)
+        .fetchOne();
+  }
+
   private Object callSearchObject;
   private Method callSearchMethod;
 
@@ -258,6 +283,7 @@ public class CSVBinder {
     } else {
       CSVBinder binder = new CSVBinder(type, fields, cb);
       binder.registerAdapters(adapters);
+      binder.setLookupCache(lookupCache);
       value = binder.bind(values);
     }
     values.put(field, value);
@@ -332,6 +358,7 @@ public class CSVBinder {
       else if (p.getTarget() != null) {
         CSVBinder b = new CSVBinder(p.getTarget(), fields, cb);
         b.registerAdapters(adapters);
+        b.setLookupCache(lookupCache);
         value = b.bind(values);
       }
 
@@ -388,6 +415,12 @@ public class CSVBinder {
     Preconditions.checkNotNull(localContext);
     Preconditions.checkArgument(values.length == fields.length);
 
+    prepare(values, localContext);
+
+    return bind(localContext);
+  }
+
+  private void prepare(String[] values, Map<String, Object> localContext) {
     Map<String, Object> map = Maps.newHashMap(localContext);
     for (int i = 0; i < fields.length; i++) {
       map.put(fields[i], values[i]);
@@ -401,8 +434,82 @@ public class CSVBinder {
       if (field.contains("."))
         localContext.put(field.replace(".", "_") + "_", localContext.get(field));
     }
+  }
 
-    return bind(localContext);
+  /**
+   * Resolve the <code>search</code> lookups of the given rows in bulk.
+   *
+   * <p>The distinct parameter values of the lookups of the form <code>self.field = :param</code>
+   * are collected from the rows and resolved with one query per lookup, so that the following
+   * {@link #bind(String[], Map)} calls find them in the lookup cache.
+   *
+   * @param rows the next rows to bind
+   * @param context the global context
+   */
+  public void prefetch(List<String[]> rows, Map<String, Object> context) {
+    if (lookupCache == null || rows.isEmpty()) {
+      return;
+    }
+
+    final Map<Class<?>, Set<String>> lookups = new LinkedHashMap<>();
+    if (searchCall == null && query != null) {
+      lookups.computeIfAbsent(beanClass, k -> new HashSet<>()).add(query);
+    }
+    collectLookups(beanClass, bindings, lookups);
+
+    final Map<Class<?>, Map<String, Set<Object>>> values = new HashMap<>();
+    final Map<Class<?>, Map<String, String>> params = new HashMap<>();
+    lookups.forEach(
+        (type, queries) ->
+            queries.forEach(
+                search -> {
+                  final String param = lookupCache.getPrefetchParam(type, search);
+                  if (param != null) {
+                    params.computeIfAbsent(type, k -> new HashMap<>()).put(search, param);
+                    values.computeIfAbsent(type, k -> new HashMap<>()).put(search, new HashSet<>());
+                  }
+                }));
+
+    if (params.isEmpty()) {
+      return;
+    }
+
+    for (String[] row : rows) {
+      final Map<String, Object> ctx = Maps.newHashMap(context);
+      prepare(row, ctx);
+      params.forEach(
+          (type, queries) ->
+              queries.forEach(
+                  (search, param) -> {
+                    final Object value = ctx.get(param);
+                    if (value instanceof String && !"".equals(value)) {
+                      values.get(type).get(search).add(value);
+                    }
+                  }));
+    }
+
+    values.forEach(
+        (type, queries) ->
+            queries.forEach((search, keys) -> lookupCache.prefetch(type, search, keys)));
+  }
+
+  private void collectLookups(
+      Class<?> type, List<CSVBind> binds, Map<Class<?>, Set<String>> lookups) {
+    if (binds == null) {
+      return;
+    }
+    final Mapper mapper = Mapper.of(type);
+    for (CSVBind cb : binds) {
+      final Property p = cb.getField() == null ? null : mapper.getProperty(cb.getField());
+      if (p == null || p.getTarget() == null) {
+        continue;
+      }
+      if (cb.getSearch() != null
+          && !(p.getType() == PropertyType.MANY_TO_MANY && cb.getColumn() != null)) {
+        lookups.computeIfAbsent(p.getTarget(), k -> new HashSet<>()).add(cb.getSearch());
+      }
+      collectLookups(p.getTarget(), cb.getBindings(), lookups);
+    }
   }
 
   private List<CSVBind> flatten(List<CSVBind> bindings) {
@@ -79,6 +79,20 @@ public class CSVConfig {
   public static CSVConfig parse(File input) {
     XStream stream = XStreamUtils.createXStream();
     stream.processAnnotations(CSVConfig.class);
-    return (CSVConfig) stream.fromXML(input);
+    CSVConfig config = (CSVConfig) stream.fromXML(input);
+    config.compile();
+    return config;
+  }
+
+  /** Compile the binding expressions of all the inputs. */
+  private void compile() {
+    if (inputs == null) {
+      return;
+    }
+    for (CSVInput input : inputs) {
+      if (input.getBindings() != null) {
+        input.getBindings().forEach(CSVBind::compile);
+      }
+    }
   }
 }
@@ -17,11 +17,14 @@
  */
 package com.axelor.data.csv;
 
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
 import com.axelor.common.StringUtils;
 import com.axelor.data.ImportException;
 import com.axelor.data.ImportTask;
 import com.axelor.data.Importer;
 import com.axelor.data.Listener;
+import com.axelor.data.LookupCache;
 import com.axelor.data.adapter.DataAdapter;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
@@ -38,10 +41,15 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -64,6 +72,9 @@ public class CSVImporter implements Importer {
 
   private CSVLogger loggerManager;
 
+  private int parallelism =
+      AppSettings.get().getInt(AvailableAppSettings.DATA_IMPORT_PARALLELISM, 1);
+
   public void addListener(Listener listener) {
     this.listeners.add(listener);
   }
@@ -76,6 +87,22 @@ public class CSVImporter implements Importer {
     this.context = context;
   }
 
+  /**
+   * Set the number of workers used to import the records.
+   *
+   * <p>With more than one worker, the records are imported by chunks in parallel transactions. The
+   * records of a file should not depend on each other in that case.
+   *
+   * <p>The default is given by the <code>data.import.parallelism</code> setting. It only applies to
+   * the importers created by the application, the module data and demo data are always imported
+   * sequentially.
+   *
+   * @param parallelism the number of workers, <code>1</code> to import sequentially
+   */
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
   public CSVImporter(String configFile) {
     this(configFile, null, null);
   }
@@ -151,6 +178,10 @@ public class CSVImporter implements Importer {
       if (task.readers.isEmpty()) {
         task.configure();
       }
+      if (parallelism > 1) {
+        runParallel(task);
+        return;
+      }
       for (CSVInput input : config.getInputs()) {
         for (Reader reader : task.readers.get(input.getFileName())) {
           try {
@@ -184,9 +215,64 @@ public class CSVImporter implements Importer {
     }
   }
 
+  private void runParallel(ImportTask task) {
+    final Map<CSVInput, List<Callable<Reader>>> sources = new LinkedHashMap<>();
+    for (CSVInput input : config.getInputs()) {
+      final List<Callable<Reader>> readers = new ArrayList<>();
+      for (Reader reader : task.readers.get(input.getFileName())) {
+        readers.add(() -> reader);
+      }
+      sources.put(input, readers);
+    }
+    createParallelImporter()
+        .run(
+            sources,
+            (input, e) -> {
+              LOG.error("Error while importing {}.", input.getFileName(), e);
+              if (e instanceof IOException) {
+                return task.handle((IOException) e);
+              }
+              if (e instanceof ClassNotFoundException) {
+                return task.handle((ClassNotFoundException) e);
+              }
+              return task.handle(new ImportException(e));
+            });
+  }
+
+  private void runParallel() {
+    final Map<CSVInput, List<Callable<Reader>>> sources = new LinkedHashMap<>();
+    for (CSVInput input : config.getInputs()) {
+      final List<Callable<Reader>> readers = new ArrayList<>();
+      for (File file : this.getFiles(input.getFileName())) {
+        readers.add(
+            () -> new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
+      }
+      sources.put(input, readers);
+    }
+    createParallelImporter()
+        .run(
+            sources,
+            (input, e) -> {
+              LOG.error("Error while importing {}.", input.getFileName(), e);
+              return true;
+            });
+  }
+
+  private CSVParallelImporter createParallelImporter() {
+    final int chunkSize =
+        AppSettings.get()
+            .getInt(AvailableAppSettings.DATA_IMPORT_CHUNK_SIZE, DBHelper.getJdbcBatchSize());
+    return new CSVParallelImporter(this, listeners, parallelism, chunkSize);
+  }
+
   @Override
   public void run() {
 
+    if (parallelism > 1) {
+      runParallel();
+      return;
+    }
+
     for (CSVInput input : config.getInputs()) {
 
       String fileName = input.getFileName();
@@ -219,7 +305,7 @@ public class CSVImporter implements Importer {
    * @param line
    * @return <code>true</code> if line is null or empty, <code>false</code> otherwise
    */
-  private boolean isEmpty(String[] line) {
+  static boolean isEmpty(String[] line) {
     if (line == null || line.length == 0) return true;
     if (line.length == 1 && (line[0] == null || "".equals(line[0].trim()))) return true;
     return false;
@@ -276,36 +362,25 @@ public class CSVImporter implements Importer {
     int total = 0;
     int batchSize = DBHelper.getJdbcBatchSize();
 
-    JPA.em().getTransaction().begin();
-    try {
-
-      final Map<String, Object> context = new HashMap<>();
+    LookupCache lookupCache = new LookupCache();
+    binder.setLookupCache(lookupCache);
 
-      // Put global context
-      if (this.context != null) {
-        context.putAll(this.context);
-      }
+    Deque<String[]> chunk = new ArrayDeque<>();
+    int prefetchSize =
+        AppSettings.get().getBoolean(AvailableAppSettings.DATA_IMPORT_PREFETCH, false)
+            ? batchSize
+            : 0;
 
-      csvInput.callPrepareContext(context);
+    JPA.em().getTransaction().begin();
+    try {
 
-      // Put data path in context
-      if (dataDir != null) {
-        context.put("__path__", dataDir.toPath());
-      }
+      final Map<String, Object> context = prepareContext(csvInput);
 
       // register type adapters
-      for (DataAdapter adapter : defaultAdapters) {
-        binder.registerAdapter(adapter);
-      }
-      for (DataAdapter adapter : this.config.getAdapters()) {
-        binder.registerAdapter(adapter);
-      }
-      for (DataAdapter adapter : csvInput.getAdapters()) {
-        binder.registerAdapter(adapter);
-      }
+      registerAdapters(binder, csvInput);
 
       // Process for each lines
-      while ((values = csvReader.readNext()) != null) {
+      while ((values = readNext(csvReader, binder, context, chunk, prefetchSize)) != null) {
 
         if (isEmpty(values)) {
           continue;
@@ -372,11 +447,94 @@ public class CSVImporter implements Importer {
         listener.imported(total, count);
       }
 
+      if (loggerManager != null) {
+        loggerManager.logLookups(csvInput, lookupCache);
+      } else {
+        LOG.debug("Lookups of {}: {}", csvInput.getFileName(), lookupCache);
+      }
+
       valuesStack.clear();
       csvReader.close();
     }
   }
 
+  /**
+   * Prepare the import context of the given input.
+   *
+   * @param csvInput
+   * @return the context
+   * @throws Exception
+   */
+  Map<String, Object> prepareContext(CSVInput csvInput) throws Exception {
+    final Map<String, Object> context = new HashMap<>();
+
+    // Put global context
+    if (this.context != null) {
+      context.putAll(this.context);
+    }
+
+    csvInput.callPrepareContext(context);
+
+    // Put data path in context
+    if (dataDir != null) {
+      context.put("__path__", dataDir.toPath());
+    }
+
+    return context;
+  }
+
+  /**
+   * Register the type adapters of the given input.
+   *
+   * @param binder
+   * @param csvInput
+   */
+  void registerAdapters(CSVBinder binder, CSVInput csvInput) {
+    for (DataAdapter adapter : defaultAdapters) {
+      binder.registerAdapter(adapter);
+    }
+    for (DataAdapter adapter : this.config.getAdapters()) {
+      binder.registerAdapter(adapter);
+    }
+    for (DataAdapter adapter : csvInput.getAdapters()) {
+      binder.registerAdapter(adapter);
+    }
+  }
+
+  /**
+   * Read the next record, the records are read by chunks if prefetch is enabled so that their
+   * lookups are resolved in bulk.
+   *
+   * @param csvReader
+   * @param binder
+   * @param context
+   * @param chunk
+   * @param prefetchSize
+   * @return the next record or null
+   * @throws IOException
+   */
+  private String[] readNext(
+      CSVReader csvReader,
+      CSVBinder binder,
+      Map<String, Object> context,
+      Deque<String[]> chunk,
+      int prefetchSize)
+      throws IOException {
+    if (prefetchSize <= 0) {
+      return csvReader.readNext();
+    }
+    if (chunk.isEmpty()) {
+      String[] row;
+      while (chunk.size() < prefetchSize && (row = csvReader.readNext()) != null) {
+        if (!isEmpty(row)) {
+          chunk.add(row);
+        }
+      }
+      binder.prefetch(new ArrayList<>(chunk), context);
+    }
+    return chunk.poll();
+  }
+
   /**
    * Import the specific row.
    *
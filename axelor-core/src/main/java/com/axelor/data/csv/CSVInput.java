@@ -63,6 +63,8 @@ public class CSVInput {
   @XStreamAsAttribute
   private String searchCall;
 
+  @XStreamAsAttribute private String depends;
+
   @XStreamImplicit(itemFieldName = "bind")
   private List<CSVBind> bindings = Lists.newArrayList();
 
@@ -138,6 +140,14 @@ public class CSVInput {
     return searchCall;
   }
 
+  public String getDepends() {
+    return depends;
+  }
+
+  public void setDepends(String depends) {
+    this.depends = depends;
+  }
+
   public List<CSVBind> getBindings() {
     return bindings;
   }
@@ -153,7 +163,7 @@ public class CSVInput {
     return adapters;
   }
 
-  private Object callObject;
+  private volatile Object callObject;
   private Method callMethod;
 
   private Object contextObject;
@@ -164,6 +174,18 @@ public class CSVInput {
 
     if (Strings.isNullOrEmpty(callable)) return object;
 
+    if (callObject == null) {
+      initCall();
+    }
+
+    try {
+      return (T) callMethod.invoke(callObject, new Object[] {object, context});
+    } catch (Exception e) {
+      throw new ImportException(e);
+    }
+  }
+
+  private synchronized void initCall() throws Exception {
     if (callObject == null) {
 
       String className = callable.split("\\:")[0];
@@ -174,13 +196,6 @@ public class CSVInput {
       callMethod = klass.getMethod(method, Object.class, Map.class);
       callObject = Beans.get(klass);
     }
-
-    try {
-      return (T) callMethod.invoke(callObject, new Object[] {object, context});
-    } catch (Exception e) {
-      System.err.println("EEE: " + e);
-      throw new ImportException(e);
-    }
   }
 
   public Map<String, Object> callPrepareContext(Map<String, Object> context) throws Exception {
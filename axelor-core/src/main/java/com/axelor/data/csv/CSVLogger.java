@@ -17,6 +17,7 @@
  */
 package com.axelor.data.csv;
 
+import com.axelor.data.LookupCache;
 import com.axelor.data.XStreamUtils;
 import com.axelor.data.adapter.DataAdapter;
 import com.google.common.base.Charsets;
@@ -139,6 +140,16 @@ public class CSVLogger {
     }
   }
 
+  /**
+   * Log the statistics of the <code>search</code> lookups of the input.
+   *
+   * @param csvInput the input
+   * @param lookupCache the lookup cache used to import the input
+   */
+  public void logLookups(CSVInput csvInput, LookupCache lookupCache) {
+    LOG.info("Lookups of {}: {}", csvInput.getFileName(), lookupCache);
+  }
+
   /**
    * Quote all text in tab
    *
@@ -0,0 +1,353 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data.csv;
+
+import com.axelor.common.StringUtils;
+import com.axelor.data.ImportStats;
+import com.axelor.data.Listener;
+import com.axelor.data.LookupCache;
+import com.axelor.db.BatchTransactionExecutor;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+import com.opencsv.CSVReader;
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Imports the csv inputs in parallel.
+ *
+ * <p>The input files are read by the calling thread while their records are bound and persisted
+ * by the workers of a {@link BatchTransactionExecutor}, committing them by chunks. When a chunk
+ * fails, it is split in halves which are retried until the failing records are found, so only
+ * these records are lost. The reading waits while a few chunks per worker are already waiting
+ * for a worker, so only these records are kept in memory.
+ *
+ * <p>An input file is imported once all the previous input files are imported, unless the input
+ * declares the input files it depends on with the <code>depends</code> attribute.
+ */
+final class CSVParallelImporter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CSVParallelImporter.class);
+
+  private final CSVImporter importer;
+  private final List<Listener> listeners;
+  private final int parallelism;
+  private final int chunkSize;
+
+  // chunks waiting for a worker, per worker
+  private static final int QUEUED_CHUNKS = 2;
+
+  private final List<Source> sources = new ArrayList<>();
+
+  CSVParallelImporter(
+      CSVImporter importer, List<Listener> listeners, int parallelism, int chunkSize) {
+    this.importer = importer;
+    this.listeners = listeners;
+    this.parallelism = parallelism;
+    this.chunkSize = chunkSize;
+  }
+
+  /** An input file being imported. */
+  private final class Source {
+
+    private final CSVInput input;
+    private final int priority;
+    private final ThreadLocal<CSVBinder> binder = ThreadLocal.withInitial(this::createBinder);
+    private final List<String[]> failed = new ArrayList<>();
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder success = new LongAdder();
+    private final LongAdder bindTime = new LongAdder();
+    private final LongAdder persistTime = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final AtomicLong startTime = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong endTime = new AtomicLong();
+
+    private String[] fields;
+    private Class<?> beanClass;
+    private Map<String, Object> context;
+    private LookupCache lookupCache;
+    private long readTime;
+
+    Source(CSVInput input, int priority) {
+      this.input = input;
+      this.priority = priority;
+    }
+
+    private CSVBinder createBinder() {
+      final CSVBinder csvBinder = new CSVBinder(beanClass, fields, input);
+      importer.registerAdapters(csvBinder, input);
+      csvBinder.setLookupCache(lookupCache);
+      return csvBinder;
+    }
+
+    // the context is prepared once the input files it depends on are imported
+    synchronized Map<String, Object> getContext() {
+      if (context == null) {
+        try {
+          context = importer.prepareContext(input);
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return context;
+    }
+  }
+
+  /** A record to import. */
+  private final class Row implements Runnable {
+
+    private final Source source;
+    private final String[] values;
+
+    private volatile boolean attempted;
+    private volatile Model bean;
+
+    Row(Source source, String[] values) {
+      this.source = source;
+      this.values = values;
+    }
+
+    @Override
+    public void run() {
+      if (attempted) {
+        source.retries.increment();
+      }
+      attempted = true;
+      bean = null;
+      importRow(this);
+    }
+  }
+
+  /**
+   * Import the given inputs.
+   *
+   * @param inputs the inputs with their readers, in import order
+   * @param handler the error handler, returns false to skip the remaining readers of the input
+   */
+  void run(Map<CSVInput, List<Callable<Reader>>> inputs, BiPredicate<CSVInput, Exception> handler) {
+    final BatchTransactionExecutor executor = new BatchTransactionExecutor(parallelism, chunkSize);
+    executor.start(parallelism * chunkSize * QUEUED_CHUNKS);
+
+    for (Map.Entry<CSVInput, List<Callable<Reader>>> entry : inputs.entrySet()) {
+      final CSVInput input = entry.getKey();
+      final int[] depends = findDepends(input);
+      for (Callable<Reader> reader : entry.getValue()) {
+        final Source source = new Source(input, sources.size());
+        try {
+          read(source, reader, depends, executor);
+        } catch (Exception e) {
+          if (!handler.test(input, e)) {
+            break;
+          }
+        } finally {
+          if (sources.contains(source)) {
+            executor.close(source.priority);
+          }
+        }
+      }
+    }
+
+    for (BatchTransactionExecutor.Failure failure : executor.run()) {
+      final Row row = (Row) failure.getCommand();
+      failed(row.source, row.values, row.bean, failure.getError());
+    }
+
+    sources.forEach(this::finish);
+  }
+
+  private int[] findDepends(CSVInput input) {
+    if (input.getDepends() == null) {
+      return null;
+    }
+    final List<Integer> depends = new ArrayList<>();
+    for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(input.getDepends())) {
+      boolean found = false;
+      for (Source source : sources) {
+        if (name.equals(source.input.getFileName())) {
+          depends.add(source.priority);
+          found = true;
+        }
+      }
+      if (!found) {
+        LOG.warn("Input {} depends on {} which is not imported before.", input.getFileName(), name);
+      }
+    }
+    return depends.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private void read(
+      Source source, Callable<Reader> reader, int[] depends, BatchTransactionExecutor executor)
+      throws Exception {
+    final CSVInput input = source.input;
+
+    LOG.info("Importing {} from {} in parallel", input.getTypeName(), input.getFileName());
+
+    source.beanClass = Class.forName(input.getTypeName());
+
+    try (CSVReader csvReader =
+        new CSVReader(new BufferedReader(reader.call()), input.getSeparator())) {
+
+      if (StringUtils.isBlank(input.getHeader())) {
+        source.fields = csvReader.readNext();
+      } else {
+        source.fields = input.getHeader().trim().split("\\s*,\\s*");
+      }
+
+      source.lookupCache = new LookupCache();
+      sources.add(source);
+
+      // the dependencies are declared before the records are run
+      if (depends != null) {
+        executor.dependsOn(source.priority, depends);
+      }
+
+      long start = System.nanoTime();
+      for (String[] values; (values = csvReader.readNext()) != null; ) {
+        if (CSVImporter.isEmpty(values)) {
+          continue;
+        }
+        source.total.increment();
+        source.readTime += System.nanoTime() - start;
+        // blocks while the workers are busy
+        executor.add(new Row(source, values), source.priority, input.getFileName());
+        start = System.nanoTime();
+      }
+      source.readTime += System.nanoTime() - start;
+    }
+  }
+
+  private void importRow(Row row) {
+    final Source source = row.source;
+    final long start = System.nanoTime();
+    source.startTime.accumulateAndGet(System.currentTimeMillis(), Math::min);
+
+    final Map<String, Object> ctx = Maps.newHashMap(source.getContext());
+    Object bean;
+    try {
+      bean = source.binder.get().bind(row.values, ctx);
+      bean = source.input.call(bean, ctx);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+
+    final long bound = System.nanoTime();
+    source.bindTime.add(bound - start);
+    if (bean != null) {
+      row.bean = JPA.manage((Model) bean);
+    }
+    source.persistTime.add(System.nanoTime() - bound);
+
+    JPA.em()
+        .unwrap(Session.class)
+        .getTransaction()
+        .registerSynchronization(
+            new Synchronization() {
+              @Override
+              public void beforeCompletion() {}
+
+              @Override
+              public void afterCompletion(int status) {
+                source.endTime.accumulateAndGet(System.currentTimeMillis(), Math::max);
+                if (status == Status.STATUS_COMMITTED) {
+                  imported(row);
+                }
+              }
+            });
+  }
+
+  private void imported(Row row) {
+    row.source.success.increment();
+    if (row.bean == null) {
+      return;
+    }
+    synchronized (listeners) {
+      for (Listener listener : listeners) {
+        listener.imported(row.bean);
+      }
+    }
+  }
+
+  private void failed(Source source, String[] values, Model bean, RuntimeException error) {
+    LOG.error("Error while importing {}.", source.input.getFileName());
+    LOG.error("Unable to import record: {}", (Object) values);
+    LOG.error("With following exception:", error);
+
+    final Exception cause =
+        error instanceof IllegalStateException && error.getCause() instanceof Exception
+            ? (Exception) error.getCause()
+            : error;
+
+    source.failed.add(values);
+
+    synchronized (listeners) {
+      for (Listener listener : listeners) {
+        listener.handle(bean, cause);
+      }
+    }
+  }
+
+  private void finish(Source source) {
+    final CSVLogger loggerManager = importer.getLoggerManager();
+    if (loggerManager != null) {
+      if (!source.failed.isEmpty()) {
+        loggerManager.prepareInput(source.input, source.fields);
+        source.failed.forEach(loggerManager::log);
+      }
+      loggerManager.logLookups(source.input, source.lookupCache);
+    }
+
+    final long startTime = Math.min(source.startTime.get(), source.endTime.get());
+    final ImportStats stats =
+        new ImportStats(
+            source.input.getFileName(),
+            source.total.sum(),
+            source.success.sum(),
+            source.endTime.get() - startTime,
+            TimeUnit.NANOSECONDS.toMillis(source.readTime),
+            TimeUnit.NANOSECONDS.toMillis(source.bindTime.sum()),
+            TimeUnit.NANOSECONDS.toMillis(source.persistTime.sum()),
+            source.retries.sum());
+
+    LOG.info("Imported {}", stats);
+
+    for (Listener listener : listeners) {
+      listener.imported((int) stats.getTotal(), (int) stats.getSuccess());
+      listener.imported(stats);
+    }
+  }
+}
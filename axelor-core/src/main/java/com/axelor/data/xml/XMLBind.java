@@ -17,6 +17,7 @@
  */
 package com.axelor.data.xml;
 
+import com.axelor.data.DataScript;
 import com.axelor.data.DataScriptHelper;
 import com.axelor.data.ImportException;
 import com.axelor.inject.Beans;
@@ -186,6 +187,55 @@ public class XMLBind {
   public static Pattern pattern = Pattern.compile("^(call|eval):\\s*(.*)");
   private static DataScriptHelper helper = new DataScriptHelper(100, 10, false);
 
+  private static final Pattern CALL_PATTERN = Pattern.compile("(\\w+)\\((.*?)\\)");
+
+  private transient DataScript expressionScript;
+  private transient DataScript conditionScript;
+  private transient DataScript argumentsScript;
+
+  private DataScript getExpressionScript() {
+    if (expressionScript == null) {
+      expressionScript = helper.compile(expression);
+    }
+    return expressionScript;
+  }
+
+  private DataScript getConditionScript() {
+    if (conditionScript == null) {
+      conditionScript = helper.compile(condition + " ? true : false");
+    }
+    return conditionScript;
+  }
+
+  private DataScript getArgumentsScript(String params) {
+    if (argumentsScript == null) {
+      argumentsScript = helper.compile("[" + params + "] as Object[]");
+    }
+    return argumentsScript;
+  }
+
+  /** Compile the expressions of this binding and the nested bindings. */
+  public void compile() {
+    if (!Strings.isNullOrEmpty(expression)) {
+      final Matcher matcher = pattern.matcher(expression);
+      if (matcher.matches() && "call".equals(matcher.group(1))) {
+        final String[] parts = matcher.group(2).split("\\:");
+        final Matcher call = parts.length > 1 ? CALL_PATTERN.matcher(parts[1]) : null;
+        if (call != null && call.matches()) {
+          getArgumentsScript(call.group(2));
+        }
+      } else {
+        getExpressionScript();
+      }
+    }
+    if (!Strings.isNullOrEmpty(condition)) {
+      getConditionScript();
+    }
+    if (bindings != null) {
+      bindings.forEach(XMLBind::compile);
+    }
+  }
+
   public Object evaluate(Map<String, Object> context) {
     if (Strings.isNullOrEmpty(expression)) {
       return handleGroovy(context);
@@ -213,15 +263,14 @@ public class XMLBind {
     if (Strings.isNullOrEmpty(expression)) {
       return context.get(this.getAliasOrName());
     }
-    return helper.eval(expression, context);
+    return getExpressionScript().eval(context);
   }
 
   public boolean validate(Map<String, Object> context) {
     if (Strings.isNullOrEmpty(condition)) {
       return true;
     }
-    String expr = condition + " ? true : false";
-    return (Boolean) helper.eval(expr, context);
+    return (Boolean) getConditionScript().eval(context);
   }
 
   private Object handleCall(Map<String, Object> context, String expr) {
@@ -237,14 +286,12 @@ public class XMLBind {
       Class<?> klass = Class.forName(className);
       Object object = Beans.get(klass);
 
-      Pattern p = Pattern.compile("(\\w+)\\((.*?)\\)");
-      Matcher m = p.matcher(method);
+      Matcher m = CALL_PATTERN.matcher(method);
 
       if (!m.matches()) return null;
 
       String methodName = m.group(1);
-      String params = "[" + m.group(2) + "] as Object[]";
-      Object[] arguments = (Object[]) helper.eval(params, context);
+      Object[] arguments = (Object[]) getArgumentsScript(m.group(2)).eval(context);
 
       return InvokerHelper.invokeMethod(object, methodName, arguments);
     } catch (Exception e) {
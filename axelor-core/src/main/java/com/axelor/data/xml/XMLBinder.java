@@ -18,6 +18,7 @@
 package com.axelor.data.xml;
 
 import com.axelor.data.AuditHelper;
+import com.axelor.data.LookupCache;
 import com.axelor.data.adapter.DataAdapter;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
@@ -56,6 +57,8 @@ public abstract class XMLBinder {
 
   private Map<String, DataAdapter> adapters = new HashMap<>();
 
+  private final LookupCache lookupCache = new LookupCache();
+
   public XMLBinder(XMLInput input, Map<String, Object> context) {
     this.input = input;
     this.context = context;
@@ -69,6 +72,10 @@ public abstract class XMLBinder {
 
   protected abstract void finish();
 
+  public LookupCache getLookupCache() {
+    return lookupCache;
+  }
+
   private Class<?> lastClass = null;
 
   public void bind(Document element) {
@@ -104,7 +111,12 @@ public abstract class XMLBinder {
 
     if (binding.getSearch() != null) {
       LOG.trace("search: " + binding.getSearch());
-      bean = JPA.all((Class<Model>) type).filter(binding.getSearch()).bind(ctx).fetchOne();
+      bean =
+          lookupCache.find(
+              (Class<Model>) type,
+              binding.getSearch(),
+              ctx,
+              () -> JPA.all((Class<Model>) type).filter(binding.getSearch()).bind(ctx).fetchOne());
       LOG.trace("search found: " + bean);
       if (bean != null && binding.getUpdate() != Boolean.TRUE) {
         LOG.trace("search no update");
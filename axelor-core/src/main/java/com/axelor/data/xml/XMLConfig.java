@@ -50,6 +50,20 @@ public class XMLConfig {
     XStream stream = XStreamUtils.createXStream();
     stream.setMode(XStream.NO_REFERENCES);
     stream.processAnnotations(XMLConfig.class);
-    return (XMLConfig) stream.fromXML(input);
+    XMLConfig config = (XMLConfig) stream.fromXML(input);
+    config.compile();
+    return config;
+  }
+
+  /** Compile the binding expressions of all the inputs. */
+  private void compile() {
+    if (inputs == null) {
+      return;
+    }
+    for (XMLInput input : inputs) {
+      if (input.getBindings() != null) {
+        input.getBindings().forEach(XMLBind::compile);
+      }
+    }
   }
 }
@@ -289,6 +289,7 @@ public class XMLImporter implements Importer {
             for (Listener listener : listeners) {
               listener.imported(total, count);
             }
+            log.debug("Lookups of {}: {}", input.getFileName(), getLookupCache());
           }
         };
 
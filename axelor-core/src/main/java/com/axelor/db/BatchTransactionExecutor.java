@@ -0,0 +1,532 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.db;
+
+import com.axelor.auth.AuditableRunner;
+import com.axelor.db.tenants.TenantResolver;
+import com.google.common.base.Preconditions;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes commands in parallel transactions, committing them in batches.
+ *
+ * <p>Unlike {@link ParallelTransactionExecutor}, which runs all the commands of a worker in a
+ * single transaction and rolls back everything on failure, every worker commits its commands in
+ * batches of the configured size and clears its persistence context after each batch. When a batch
+ * fails, it is rolled back and split in halves which are run again until the failing commands are
+ * found, so only the failing commands are lost. The failures are returned by {@link #run()}.
+ *
+ * <p>Commands with the same priority are all completed before moving on to commands with higher
+ * priorities, unless the dependencies of a priority are given with {@link #dependsOn(int, int...)}.
+ * In that case, idle workers pick the commands of any priority whose dependencies are completed.
+ *
+ * <p>The commands can also be fed while they are executed: {@link #start(int)} starts the workers
+ * and bounds the number of commands waiting for a worker, then {@link #add(Runnable, int)} blocks
+ * while this bound is reached. A priority is complete once all its commands are run and it is
+ * closed with {@link #close(int)}, or once {@link #run()} is called.
+ *
+ * <p>The commands are run with the tenant and the audit user of the thread calling {@link
+ * #start(int)} or {@link #run()}.
+ */
+public class BatchTransactionExecutor {
+
+  private static final int DEFAULT_BATCH_SIZE = 100;
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final int numWorkers;
+  private final int batchSize;
+
+  private final Map<Integer, Group> groups = new TreeMap<>();
+  private final Map<Integer, int[]> dependencies = new TreeMap<>();
+
+  private final List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  private Consumer<Progress> listener;
+
+  private volatile int total;
+  private long startTime;
+  private Throwable fatal;
+
+  // commands waiting for a worker, bounded by the capacity once started
+  private int queued;
+  private int capacity = Integer.MAX_VALUE;
+  private boolean closed;
+
+  private ExecutorService workerPool;
+  private List<Future<?>> futures;
+
+  /**
+   * Instantiates an executor with as many workers as {@link ParallelTransactionExecutor} and the
+   * default batch size.
+   */
+  public BatchTransactionExecutor() {
+    this(ParallelTransactionExecutor.getMaxWorkers(), DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Instantiates an executor with as many workers as {@link ParallelTransactionExecutor} and the
+   * specified batch size.
+   *
+   * @param batchSize number of commands to commit at once per worker
+   */
+  public BatchTransactionExecutor(int batchSize) {
+    this(ParallelTransactionExecutor.getMaxWorkers(), batchSize);
+  }
+
+  /**
+   * Instantiates an executor with the specified number of workers and batch size.
+   *
+   * @param numWorkers number of parallel workers
+   * @param batchSize number of commands to commit at once per worker
+   */
+  public BatchTransactionExecutor(int numWorkers, int batchSize) {
+    Preconditions.checkArgument(numWorkers > 0, "Invalid number of workers: %s", numWorkers);
+    Preconditions.checkArgument(batchSize > 0, "Invalid batch size: %s", batchSize);
+    this.numWorkers = numWorkers;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Sets the listener notified of the progress after every batch.
+   *
+   * <p>The listener is called from the worker threads.
+   *
+   * @param listener the progress listener
+   */
+  public void setListener(Consumer<Progress> listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Adds a command to run in a transaction.
+   *
+   * @param command the command
+   */
+  public void add(Runnable command) {
+    add(command, 0);
+  }
+
+  /**
+   * Adds a command to run in a transaction with the specified priority.
+   *
+   * @param command the command
+   * @param priority the priority
+   */
+  public void add(Runnable command, int priority) {
+    add(command, priority, null);
+  }
+
+  /**
+   * Adds a command to run in a transaction with the specified priority.
+   *
+   * @param command the command
+   * @param priority the priority
+   * @param description description of the command used in failure report
+   */
+  public void add(Runnable command, int priority, String description) {
+    Preconditions.checkNotNull(command);
+    synchronized (groups) {
+      while (queued >= capacity && fatal == null) {
+        try {
+          groups.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+      if (fatal != null) {
+        throw new IllegalStateException("Execution interrupted", fatal);
+      }
+      Preconditions.checkState(!closed, "Executor already run");
+      final Group group = groups.computeIfAbsent(priority, Group::new);
+      Preconditions.checkState(!group.closed, "Priority %s is closed", priority);
+      group.queue.add(new Command(command, description, group));
+      group.pending++;
+      queued++;
+      total++;
+      groups.notifyAll();
+    }
+  }
+
+  /**
+   * Declares the priorities that must be completed before running the commands of the given
+   * priority.
+   *
+   * <p>By default, a priority depends on all the lower priorities.
+   *
+   * @param priority the priority
+   * @param depends the lower priorities it depends on
+   */
+  public void dependsOn(int priority, int... depends) {
+    for (int depend : depends) {
+      Preconditions.checkArgument(
+          depend < priority, "Priority %s can't depend on priority %s", priority, depend);
+    }
+    synchronized (groups) {
+      dependencies.put(priority, depends.clone());
+    }
+  }
+
+  /**
+   * Starts the workers, so that the commands are run while more commands are added.
+   *
+   * <p>Once started, {@link #add(Runnable, int, String)} blocks while the given number of commands
+   * are waiting for a worker. The priorities fed this way should be closed with {@link
+   * #close(int)} once all their commands are added, so that the priorities depending on them can
+   * be run. Call {@link #run()} to wait for the completion.
+   *
+   * @param capacity maximum number of commands waiting for a worker
+   */
+  public void start(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "Invalid capacity: %s", capacity);
+    Preconditions.checkState(workerPool == null, "Executor already started");
+
+    this.capacity = capacity;
+    this.startTime = System.currentTimeMillis();
+
+    final AtomicInteger counter = new AtomicInteger();
+    workerPool =
+        Executors.newFixedThreadPool(
+            numWorkers,
+            runnable -> new Thread(runnable, "transaction-worker-" + counter.incrementAndGet()));
+
+    final String tenant = TenantResolver.currentTenantIdentifier();
+    final Runnable worker = AuditableRunner.withCurrentUser(this::work);
+
+    futures = new ArrayList<>(numWorkers);
+    for (int i = 0; i < numWorkers; ++i) {
+      futures.add(workerPool.submit(() -> TenantResolver.runAs(tenant, worker)));
+    }
+  }
+
+  /**
+   * Declares that all the commands of the given priority are added.
+   *
+   * @param priority the priority
+   */
+  public void close(int priority) {
+    synchronized (groups) {
+      groups.computeIfAbsent(priority, Group::new).closed = true;
+      groups.notifyAll();
+    }
+  }
+
+  /**
+   * Runs the commands in parallel transactions and waits for completion.
+   *
+   * <p>If the executor is started, no more command can be added and the remaining commands are
+   * awaited.
+   *
+   * @return the failed commands
+   */
+  public List<Failure> run() {
+    synchronized (groups) {
+      closed = true;
+      groups.values().forEach(group -> group.closed = true);
+      groups.notifyAll();
+    }
+
+    if (workerPool == null) {
+      start(Integer.MAX_VALUE);
+    }
+
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abort(e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      // Should never happen
+      throw new IllegalStateException(cause);
+    } finally {
+      workerPool.shutdown();
+    }
+
+    if (fatal != null) {
+      throw new IllegalStateException("Execution interrupted", fatal);
+    }
+
+    logger.info(
+        "Executed {} commands in {} ms, {} failed.",
+        total,
+        System.currentTimeMillis() - startTime,
+        failures.size());
+
+    return new ArrayList<>(failures);
+  }
+
+  // by default, a priority depends on all the lower priorities
+  private boolean isReady(Group group) {
+    final int[] depends = dependencies.get(group.priority);
+    if (depends == null) {
+      for (Group other : groups.values()) {
+        if (other.priority >= group.priority) {
+          break;
+        }
+        if (!other.isComplete()) {
+          return false;
+        }
+      }
+      return true;
+    }
+    for (int depend : depends) {
+      final Group other = groups.get(depend);
+      if (other != null && !other.isComplete()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void work() {
+    try {
+      for (List<Command> batch; !(batch = take()).isEmpty(); ) {
+        try {
+          execute(batch);
+        } finally {
+          done(batch);
+        }
+        notifyProgress();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abort(e);
+    } catch (Error e) {
+      abort(e);
+      throw e;
+    }
+  }
+
+  private List<Command> take() throws InterruptedException {
+    synchronized (groups) {
+      for (; ; ) {
+        final List<Command> batch = new ArrayList<>(batchSize);
+        if (fatal != null) {
+          return batch;
+        }
+        boolean remaining = false;
+        for (Group group : groups.values()) {
+          remaining |= group.pending > 0;
+          if (group.queue.isEmpty() || !isReady(group)) {
+            continue;
+          }
+          while (batch.size() < batchSize && !group.queue.isEmpty()) {
+            batch.add(group.queue.poll());
+            queued--;
+          }
+          if (batch.size() == batchSize) {
+            break;
+          }
+        }
+        if (!batch.isEmpty()) {
+          // wake up the producer waiting for capacity
+          groups.notifyAll();
+          return batch;
+        }
+        if (closed && !remaining) {
+          return batch;
+        }
+        groups.wait();
+      }
+    }
+  }
+
+  private void done(List<Command> batch) {
+    synchronized (groups) {
+      batch.forEach(command -> command.group.pending--);
+      groups.notifyAll();
+    }
+  }
+
+  private void abort(Throwable error) {
+    synchronized (groups) {
+      if (fatal == null) {
+        fatal = error;
+      }
+      groups.notifyAll();
+    }
+  }
+
+  private void execute(List<Command> batch) {
+    try {
+      JPA.runInTransaction(() -> batch.forEach(command -> command.runnable.run()));
+      completed.add(batch.size());
+    } catch (RuntimeException e) {
+      JPA.em().clear();
+      if (batch.size() == 1) {
+        failed(batch.get(0), e);
+        return;
+      }
+      // find the failing commands
+      final int half = batch.size() / 2;
+      execute(batch.subList(0, half));
+      execute(batch.subList(half, batch.size()));
+    } finally {
+      JPA.em().clear();
+    }
+  }
+
+  private void failed(Command command, RuntimeException error) {
+    logger.error(
+        "Command {} failed: {}",
+        command.description == null ? command.runnable : command.description,
+        error.getMessage(),
+        error);
+    failed.increment();
+    failures.add(new Failure(command.runnable, command.description, command.group.priority, error));
+  }
+
+  private void notifyProgress() {
+    if (listener != null) {
+      listener.accept(
+          new Progress(
+              completed.sum(), failed.sum(), total, System.currentTimeMillis() - startTime));
+    }
+  }
+
+  /** A group of commands with the same priority. */
+  private static final class Group {
+
+    private final int priority;
+    private final Deque<Command> queue = new ArrayDeque<>();
+    private int pending;
+    private boolean closed;
+
+    Group(int priority) {
+      this.priority = priority;
+    }
+
+    boolean isComplete() {
+      return closed && pending == 0;
+    }
+  }
+
+  private static final class Command {
+
+    private final Runnable runnable;
+    private final String description;
+    private final Group group;
+
+    Command(Runnable runnable, String description, Group group) {
+      this.runnable = runnable;
+      this.description = description;
+      this.group = group;
+    }
+  }
+
+  /** A failed command. */
+  public static final class Failure {
+
+    private final Runnable command;
+    private final String description;
+    private final int priority;
+    private final RuntimeException error;
+
+    private Failure(Runnable command, String description, int priority, RuntimeException error) {
+      this.command = command;
+      this.description = description;
+      this.priority = priority;
+      this.error = error;
+    }
+
+    public Runnable getCommand() {
+      return command;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public int getPriority() {
+      return priority;
+    }
+
+    public RuntimeException getError() {
+      return error;
+    }
+  }
+
+  /** The execution progress. */
+  public static final class Progress {
+
+    private final long completed;
+    private final long failed;
+    private final long total;
+    private final long elapsed;
+
+    private Progress(long completed, long failed, long total, long elapsed) {
+      this.completed = completed;
+      this.failed = failed;
+      this.total = total;
+      this.elapsed = elapsed;
+    }
+
+    /** Number of committed commands. */
+    public long getCompleted() {
+      return completed;
+    }
+
+    /** Number of failed commands. */
+    public long getFailed() {
+      return failed;
+    }
+
+    /** Total number of commands added so far. */
+    public long getTotal() {
+      return total;
+    }
+
+    /** Elapsed time in milliseconds. */
+    public long getElapsed() {
+      return elapsed;
+    }
+
+    /** Number of processed commands per second. */
+    public double getThroughput() {
+      return elapsed == 0 ? 0 : (completed + failed) * 1000.0 / elapsed;
+    }
+  }
+}
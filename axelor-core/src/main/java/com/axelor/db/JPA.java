@@ -17,6 +17,7 @@
  */
 package com.axelor.db;
 
+import com.axelor.db.internal.EntityBatchLoader;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.db.mapper.PropertyType;
@@ -288,6 +289,8 @@ public final class JPA {
   public static <T extends Model> T edit(Class<T> klass, Map<String, Object> values) {
     Set<Model> visited = Sets.newHashSet();
     Multimap<String, Long> edited = HashMultimap.create();
+    // load the referenced records in batches first
+    EntityBatchLoader.load(klass, values);
     try {
       return _edit(klass, values, visited, edited);
     } finally {
@@ -17,15 +17,56 @@
  */
 package com.axelor.db;
 
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
 import com.axelor.common.StringUtils;
+import com.axelor.db.tenants.TenantResolver;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaSequence;
 import com.axelor.meta.db.repo.MetaSequenceRepository;
 import com.google.common.base.Strings;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jdbc.AbstractReturningWork;
+import org.hibernate.persister.entity.EntityPersister;
 
-/** This class provides some helper static methods to deal with custom sequences. */
+/**
+ * This class provides some helper static methods to deal with custom sequences.
+ *
+ * <p>By default, every sequence value is allocated by updating the sequence record in the current
+ * transaction, so the values are gap-free but the concurrent transactions using the same sequence
+ * are serialized until they complete.
+ *
+ * <p>When <code>sequence.block-size</code> is greater than 1, blocks of values are reserved in a
+ * short separate transaction and handed out from memory, so the sequence record is locked only
+ * once per block. Unused values of a block are lost on restart or when the sequence is updated, so
+ * the sequences listed in <code>sequence.gap-free</code> are still allocated the gap-free way. The
+ * gap-free way is also used when the sequence record is already loaded in the current transaction,
+ * for example after it is reset with {@link #nextValue(String, long)}.
+ */
 public final class JpaSequence {
 
+  private static final int BLOCK_SIZE =
+      AppSettings.get().getInt(AvailableAppSettings.SEQUENCE_BLOCK_SIZE, 1);
+
+  private static final Set<String> GAP_FREE =
+      Collections.unmodifiableSet(
+          new HashSet<>(AppSettings.get().getList(AvailableAppSettings.SEQUENCE_GAP_FREE)));
+
+  private static final Map<String, Pool> POOLS = new ConcurrentHashMap<>();
+
   private JpaSequence() {}
 
   private static MetaSequence find(String name) {
@@ -37,6 +78,33 @@ public final class JpaSequence {
     return sequence;
   }
 
+  private static String key(String name) {
+    final String tenant = TenantResolver.currentTenantIdentifier();
+    return tenant == null ? name : tenant + ":" + name;
+  }
+
+  private static MetaSequence findManaged(Long id) {
+    final SessionImplementor session = JPA.em().unwrap(SessionImplementor.class);
+    final EntityPersister persister =
+        session.getFactory().getMetamodel().entityPersister(MetaSequence.class);
+    return (MetaSequence)
+        session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+  }
+
+  private static String format(long next, String prefix, String suffix, Integer padding) {
+    String value = "" + next;
+    if (padding != null && padding > 0) {
+      value = Strings.padStart(value, padding, '0');
+    }
+    if (!StringUtils.isBlank(prefix)) {
+      value = prefix + value;
+    }
+    if (!StringUtils.isBlank(suffix)) {
+      value = value + suffix;
+    }
+    return value;
+  }
+
   /**
    * Get the next sequence value of the given sequence.<br>
    * <br>
@@ -47,28 +115,33 @@ public final class JpaSequence {
    * @return next sequence value
    */
   public static String nextValue(String name) {
-    final MetaSequence sequence = find(name);
-    final Long next = sequence.getNext();
-    final String prefix = sequence.getPrefix();
-    final String suffix = sequence.getSuffix();
-    final Integer padding = sequence.getPadding();
+    return next(name, BLOCK_SIZE);
+  }
 
-    String value = "" + next;
-    if (padding > 0) {
-      value = Strings.padStart(value, padding, '0');
-    }
-    if (!StringUtils.isBlank(prefix)) {
-      value = prefix + value;
-    }
-    if (!StringUtils.isBlank(suffix)) {
-      value = value + suffix;
+  /**
+   * Get the next sequence value using blocks of the given size.
+   *
+   * @param name the name of the sequence
+   * @param blockSize number of values to reserve at once
+   * @return next sequence value
+   */
+  static String next(String name, int blockSize) {
+    if (blockSize > 1 && !GAP_FREE.contains(name)) {
+      final Pool pool = pool(name);
+      // a loaded record would overwrite the reserved blocks when flushed
+      if (findManaged(pool.getId()) == null) {
+        return pool.next(blockSize);
+      }
     }
 
+    final MetaSequence sequence = find(name);
+    final Long next = sequence.getNext();
+
     sequence.setNext(next + sequence.getIncrement());
 
     JPA.em().persist(sequence);
 
-    return value;
+    return format(next, sequence.getPrefix(), sequence.getSuffix(), sequence.getPadding());
   }
 
   /**
@@ -87,5 +160,232 @@ public final class JpaSequence {
     final MetaSequence sequence = find(name);
     sequence.setNext(next);
     JPA.em().persist(sequence);
+    invalidate(name);
+  }
+
+  /**
+   * Allocate the next value of the given sequence from the pre-allocated blocks.
+   *
+   * @param name the name of the sequence
+   * @param blockSize number of values to reserve at once
+   * @return next sequence value
+   */
+  static String allocate(String name, int blockSize) {
+    return pool(name).next(blockSize);
+  }
+
+  private static Pool pool(String name) {
+    return POOLS.computeIfAbsent(key(name), k -> new Pool(name));
+  }
+
+  /**
+   * Discard the pre-allocated values of the given sequence.
+   *
+   * <p>This is called when the sequence record is updated, so that the next values are allocated
+   * from the updated record.
+   *
+   * @param name the name of the sequence
+   */
+  public static void invalidate(String name) {
+    final Pool pool = POOLS.get(key(name));
+    if (pool != null) {
+      pool.invalidate();
+    }
+  }
+
+  /**
+   * Get the allocation statistics of the given sequence.
+   *
+   * @param name the name of the sequence
+   * @return statistics or null if no value is allocated from blocks yet
+   */
+  public static Stats getStats(String name) {
+    final Pool pool = POOLS.get(key(name));
+    return pool == null ? null : pool.stats;
+  }
+
+  /** Allocation statistics of a sequence. */
+  public static final class Stats {
+
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder refills = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder refillTime = new LongAdder();
+
+    /** Number of values allocated from the blocks. */
+    public long getAllocations() {
+      return allocations.sum();
+    }
+
+    /** Number of blocks reserved from the database. */
+    public long getRefills() {
+      return refills.sum();
+    }
+
+    /** Number of times a thread had to wait for another thread refilling the block. */
+    public long getContentions() {
+      return contentions.sum();
+    }
+
+    /** Total time spent on reserving blocks, in milliseconds. */
+    public long getRefillTime() {
+      return refillTime.sum();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Stats{allocations=%d, refills=%d, contentions=%d, refillTime=%dms}",
+          getAllocations(), getRefills(), getContentions(), getRefillTime());
+    }
+  }
+
+  /** The reserved values of a sequence. */
+  private static final class Block {
+
+    private final String prefix;
+    private final String suffix;
+    private final Integer padding;
+    private final long start;
+    private final long increment;
+    private final int size;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    Block(String prefix, String suffix, Integer padding, long start, long increment, int size) {
+      this.prefix = prefix;
+      this.suffix = suffix;
+      this.padding = padding;
+      this.start = start;
+      this.increment = increment;
+      this.size = size;
+    }
+
+    String next() {
+      final int index = cursor.getAndIncrement();
+      if (index >= size) {
+        return null;
+      }
+      return format(start + index * increment, prefix, suffix, padding);
+    }
+  }
+
+  /** The in-memory pool of a sequence, values are taken from the current block without locking. */
+  private static final class Pool {
+
+    private static final String UPDATE_SQL =
+        "UPDATE meta_sequence SET next_value = next_value + increment_by * ?, "
+            + "version = COALESCE(version, 0) + 1 WHERE name = ?";
+
+    private static final String SELECT_SQL =
+        "SELECT id, prefix, suffix, padding, increment_by, next_value "
+            + "FROM meta_sequence WHERE name = ?";
+
+    private final String name;
+    private final Stats stats = new Stats();
+
+    private volatile Long id;
+    private volatile Block block;
+
+    Pool(String name) {
+      this.name = name;
+    }
+
+    Long getId() {
+      if (id == null) {
+        id =
+            JPA.em()
+                .createQuery(
+                    "SELECT self.id FROM MetaSequence self WHERE self.name = :name", Long.class)
+                .setParameter("name", name)
+                .setFlushMode(FlushModeType.COMMIT)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No such sequence: " + name));
+      }
+      return id;
+    }
+
+    String next(int blockSize) {
+      for (; ; ) {
+        final Block current = block;
+        if (current != null) {
+          final String value = current.next();
+          if (value != null) {
+            stats.allocations.increment();
+            return value;
+          }
+        }
+        synchronized (this) {
+          if (block == current) {
+            block = reserve(blockSize);
+          } else {
+            stats.contentions.increment();
+          }
+        }
+      }
+    }
+
+    synchronized void invalidate() {
+      block = null;
+    }
+
+    private Block reserve(int blockSize) {
+      final long start = System.currentTimeMillis();
+      final Block reserved =
+          JPA.em()
+              .unwrap(SessionImplementor.class)
+              .getTransactionCoordinator()
+              .createIsolationDelegate()
+              .delegateWork(
+                  new AbstractReturningWork<Block>() {
+                    @Override
+                    public Block execute(Connection connection) throws SQLException {
+                      return reserve(connection, blockSize);
+                    }
+                  },
+                  true);
+      stats.refills.increment();
+      stats.refillTime.add(System.currentTimeMillis() - start);
+      evict();
+      return reserved;
+    }
+
+    /** The bulk update bypasses the caches, stale instances must be reloaded. */
+    private void evict() {
+      final EntityManager em = JPA.em();
+      em.getEntityManagerFactory().getCache().evict(MetaSequence.class, id);
+      final MetaSequence managed = findManaged(id);
+      if (managed != null) {
+        em.refresh(managed);
+      }
+    }
+
+    private Block reserve(Connection connection, int blockSize) throws SQLException {
+      try (PreparedStatement stmt = connection.prepareStatement(UPDATE_SQL)) {
+        stmt.setInt(1, blockSize);
+        stmt.setString(2, name);
+        if (stmt.executeUpdate() == 0) {
+          throw new IllegalArgumentException("No such sequence: " + name);
+        }
+      }
+      try (PreparedStatement stmt = connection.prepareStatement(SELECT_SQL)) {
+        stmt.setString(1, name);
+        try (ResultSet rs = stmt.executeQuery()) {
+          rs.next();
+          id = rs.getLong("id");
+          final long increment = rs.getLong("increment_by");
+          final long next = rs.getLong("next_value");
+          final Object padding = rs.getObject("padding");
+          return new Block(
+              rs.getString("prefix"),
+              rs.getString("suffix"),
+              padding == null ? null : ((Number) padding).intValue(),
+              next - increment * blockSize,
+              increment,
+              blockSize);
+        }
+      }
+    }
   }
 }
@@ -60,7 +60,7 @@ public class ParallelTransactionExecutor {
     this(getMaxWorkers());
   }
 
-  private static int getMaxWorkers() {
+  static int getMaxWorkers() {
     final AppSettings settings = AppSettings.get();
     final int maxPoolSize =
         settings.getInt(AvailableAppSettings.HIBERNATE_HIKARI_MAXIMUN_POOL_SIZE, 0);
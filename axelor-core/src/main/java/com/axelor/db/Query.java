@@ -822,6 +822,39 @@ public class Query<T extends Model> {
       return q.getResultList();
     }
 
+    /**
+     * Fetch the selected values as {@link Stream} within the given range.
+     *
+     * <p>The rows are read from a database cursor as the stream is consumed, so it's recommended
+     * for large data, for example, exports. The stream should be closed after use.
+     *
+     * @param limit the limit
+     * @param offset the offset
+     * @param fetchSize the jdbc fetch size, if less than 1 <code>hibernate.jdbc.fetch_size</code>
+     *     is used
+     * @return stream of selected values
+     */
+    @SuppressWarnings("all")
+    public Stream<List> valuesStream(int limit, int offset, int fetchSize) {
+      final org.hibernate.query.Query q =
+          (org.hibernate.query.Query) em().createQuery(query);
+      if (limit > 0) {
+        q.setMaxResults(limit);
+      }
+      if (offset > 0) {
+        q.setFirstResult(offset);
+      }
+
+      q.setFetchSize(fetchSize > 0 ? fetchSize : DBHelper.getJdbcFetchSize());
+
+      final QueryBinder binder = bind(q).opts(cacheable, flushMode);
+      if (readOnly) {
+        binder.setReadOnly();
+      }
+
+      return q.stream();
+    }
+
     @SuppressWarnings("all")
     public List<Map> fetch(int limit, int offset) {
 
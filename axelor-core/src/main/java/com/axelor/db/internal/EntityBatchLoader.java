@@ -0,0 +1,146 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.db.internal;
+
+import com.axelor.db.JPA;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.google.common.collect.Iterables;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+
+/**
+ * Loads the records referenced by a tree of values in batches (for internal use only).
+ *
+ * <p>The ids of the referenced records are first collected per entity class, then loaded with one
+ * <code>IN</code> query per class. The persistence context acts as the identity map, so following
+ * {@link EntityManager#find(Class, Object)} calls for these ids don't hit the database.
+ */
+public final class EntityBatchLoader {
+
+  private static final String FIELD_ID = "id";
+
+  private static final int CHUNK_SIZE = 500;
+
+  private final Map<Class<?>, Set<Long>> ids = new LinkedHashMap<>();
+  private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private EntityBatchLoader() {}
+
+  /**
+   * Load the records referenced by the given values of a record.
+   *
+   * @param klass the record class
+   * @param values the record values
+   */
+  public static void load(Class<?> klass, Map<String, Object> values) {
+    final EntityBatchLoader loader = new EntityBatchLoader();
+    loader.collect(klass, values);
+    loader.load();
+  }
+
+  /**
+   * Load the records referenced by the given collection items.
+   *
+   * @param klass the target class of the items
+   * @param items the collection items, either ids or value maps
+   */
+  public static void load(Class<?> klass, Collection<?> items) {
+    final EntityBatchLoader loader = new EntityBatchLoader();
+    for (Object item : items) {
+      loader.collect(klass, item);
+    }
+    loader.load();
+  }
+
+  private static Long findId(Map<?, ?> values) {
+    final Object id = values.get(FIELD_ID);
+    if (id == null) {
+      return null;
+    }
+    try {
+      return Long.valueOf(id.toString());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private void add(Class<?> klass, Long id) {
+    if (id != null && id > 0) {
+      ids.computeIfAbsent(klass, key -> new LinkedHashSet<>()).add(id);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void collect(Class<?> klass, Object value) {
+    if (value instanceof Number) {
+      add(klass, ((Number) value).longValue());
+      return;
+    }
+    if (!(value instanceof Map) || !visited.add(value)) {
+      return;
+    }
+
+    final Map<String, Object> values = (Map<String, Object>) value;
+    final Mapper mapper = Mapper.of(klass);
+
+    add(klass, findId(values));
+
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      final Property property = mapper.getProperty(entry.getKey());
+      if (property == null || property.getTarget() == null) {
+        continue;
+      }
+      final Object item = entry.getValue();
+      if (property.isCollection() && item instanceof Collection) {
+        for (Object val : (Collection<?>) item) {
+          collect(property.getTarget(), val);
+        }
+      } else if (property.isReference() && item instanceof Map) {
+        collect(property.getTarget(), item);
+      }
+    }
+  }
+
+  private void load() {
+    final EntityManager em = JPA.em();
+    for (Map.Entry<Class<?>, Set<Long>> entry : ids.entrySet()) {
+      // a single record is better loaded with find
+      if (entry.getValue().size() < 2) {
+        continue;
+      }
+      final String ql =
+          String.format(
+              "SELECT self FROM %s self WHERE self.id IN (:ids)", entry.getKey().getName());
+      for (List<Long> chunk : Iterables.partition(entry.getValue(), CHUNK_SIZE)) {
+        em.createQuery(ql)
+            .setFlushMode(FlushModeType.COMMIT)
+            .setParameter("ids", chunk)
+            .getResultList();
+      }
+    }
+  }
+}
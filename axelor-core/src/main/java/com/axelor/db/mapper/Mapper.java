@@ -39,7 +39,6 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -64,14 +63,13 @@ public class Mapper {
   private static final Cache<Method, Annotation[]> ANNOTATION_CACHE =
       CacheBuilder.newBuilder().maximumSize(1000).weakKeys().build();
 
-  private static final Object[] NULL_ARGUMENTS = {};
-
   private static final String PREFIX_COMPUTE = "compute";
   private static final String PREFIX_SET = "set";
 
   private Map<String, Method> getters = new HashMap<>(); // field -> getter
   private Map<String, Method> setters = new HashMap<>(); // field -> setter
   private Map<String, String> methods = new HashMap<>(); // getter/setter/compute -> field
+  private Map<String, PropertyAccessor> accessors = new HashMap<>(); // field -> accessor
 
   private Map<String, Class<?>> types = new HashMap<>();
   private Map<String, Property> fields = new HashMap<>();
@@ -136,6 +134,16 @@ public class Mapper {
           methods.put(setter.getName(), name);
         }
         types.put(name, type);
+
+        final PropertyAccessor accessor =
+            new PropertyAccessor(
+                getter, setter, setter == null ? null : getAnnotations(name, setter));
+        accessors.put(name, accessor);
+
+        final Property property = fields.get(name);
+        if (property != null) {
+          property.setAccessor(accessor);
+        }
       }
     } catch (IntrospectionException e) {
     }
@@ -354,8 +362,15 @@ public class Mapper {
     Preconditions.checkNotNull(name);
     Preconditions.checkArgument(beanClass.isInstance(bean));
     Preconditions.checkArgument(!name.trim().equals(""));
+    return get(bean, accessors.get(name));
+  }
+
+  static Object get(Object bean, PropertyAccessor accessor) {
+    if (accessor == null || !accessor.canRead()) {
+      return null;
+    }
     try {
-      return getters.get((String) name).invoke(bean, NULL_ARGUMENTS);
+      return accessor.get(bean);
     } catch (Exception e) {
       return null;
     }
@@ -375,18 +390,15 @@ public class Mapper {
     Preconditions.checkArgument(beanClass.isInstance(bean));
     Preconditions.checkArgument(!name.trim().equals(""));
 
-    final Method method = setters.get(name);
-    if (method == null) {
+    final PropertyAccessor accessor = accessors.get(name);
+    if (accessor == null || !accessor.canWrite()) {
       throw new IllegalArgumentException(
           "The bean of type: " + beanClass.getName() + " has no property called: " + name);
     }
 
-    final Object oldValue = get(bean, name);
-    final Class<?> actualType = method.getParameterTypes()[0];
-    final Type genericType = method.getGenericParameterTypes()[0];
-    final Annotation[] annotations = getAnnotations(name, method);
+    final Object oldValue = get(bean, accessor);
     try {
-      method.invoke(bean, Adapter.adapt(value, actualType, genericType, annotations));
+      accessor.set(bean, value);
     } catch (Exception e) {
       throw new IllegalArgumentException(e);
     }
@@ -144,6 +144,8 @@ public class Property {
 
   private String selection;
 
+  private transient PropertyAccessor accessor;
+
   @SuppressWarnings("unchecked")
   Property(
       Class<?> entity, String name, Class<?> javaType, Type genericType, Annotation[] annotations) {
@@ -528,6 +530,10 @@ public class Property {
     return nameSearch;
   }
 
+  void setAccessor(PropertyAccessor accessor) {
+    this.accessor = accessor;
+  }
+
   public String getSelection() {
     return selection;
   }
@@ -539,7 +545,12 @@ public class Property {
    * @return value of the current property
    */
   public Object get(Object bean) {
-    return Mapper.of(entity).get(bean, name);
+    if (accessor == null) {
+      return Mapper.of(entity).get(bean, name);
+    }
+    Preconditions.checkNotNull(bean);
+    Preconditions.checkArgument(entity.isInstance(bean));
+    return Mapper.get(bean, accessor);
   }
 
   /**
@@ -0,0 +1,193 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.db.mapper;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compiled getter/setter of a bean property.
+ *
+ * <p>The accessor methods are bound to {@link Function} and {@link BiConsumer} instances generated
+ * with {@link LambdaMetafactory}, so the calls are plain interface calls the JIT can inline instead
+ * of reflective {@link Method#invoke(Object, Object...)} calls. Methods which can't be linked this
+ * way (non-public, or not visible from this class loader) fall back to reflection.
+ */
+final class PropertyAccessor {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Function<Object, Object> getter;
+  private final BiConsumer<Object, Object> setter;
+
+  private final Class<?> setterType;
+  private final Type setterGenericType;
+  private final Annotation[] setterAnnotations;
+
+  PropertyAccessor(Method getter, Method setter, Annotation[] setterAnnotations) {
+    this.getter = getter == null ? null : compileGetter(getter);
+    this.setter = setter == null ? null : compileSetter(setter);
+    this.setterType = setter == null ? null : setter.getParameterTypes()[0];
+    this.setterGenericType = setter == null ? null : setter.getGenericParameterTypes()[0];
+    this.setterAnnotations = setterAnnotations;
+  }
+
+  public boolean canRead() {
+    return getter != null;
+  }
+
+  public boolean canWrite() {
+    return setter != null;
+  }
+
+  /**
+   * Get the property value from the given bean.
+   *
+   * @param bean the bean
+   * @return the property value
+   */
+  public Object get(Object bean) {
+    return getter.apply(bean);
+  }
+
+  /**
+   * Set the property value to the given bean, the value is adapted to the property type first.
+   *
+   * @param bean the bean
+   * @param value the value
+   */
+  public void set(Object bean, Object value) {
+    setter.accept(bean, Adapter.adapt(value, setterType, setterGenericType, setterAnnotations));
+  }
+
+  private static Function<Object, Object> compileGetter(Method method) {
+    if (isLinkable(method)) {
+      try {
+        final MethodHandle handle = LOOKUP.unreflect(method);
+        final CallSite site =
+            LambdaMetafactory.metafactory(
+                LOOKUP,
+                "apply",
+                MethodType.methodType(Function.class),
+                GETTER_TYPE,
+                handle,
+                handle.type().wrap());
+        @SuppressWarnings("unchecked")
+        final Function<Object, Object> getter =
+            (Function<Object, Object>) site.getTarget().invoke();
+        return getter;
+      } catch (Throwable e) {
+        // fallback to reflection
+      }
+    }
+    method.setAccessible(true);
+    return bean -> invoke(method, bean);
+  }
+
+  private static BiConsumer<Object, Object> compileSetter(Method method) {
+    if (isLinkable(method)) {
+      try {
+        final MethodHandle handle = LOOKUP.unreflect(method);
+        final CallSite site =
+            LambdaMetafactory.metafactory(
+                LOOKUP,
+                "accept",
+                MethodType.methodType(BiConsumer.class),
+                SETTER_TYPE,
+                handle,
+                handle.type().wrap().changeReturnType(void.class));
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Object, Object> setter =
+            (BiConsumer<Object, Object>) site.getTarget().invoke();
+        return setter;
+      } catch (Throwable e) {
+        // fallback to reflection
+      }
+    }
+    method.setAccessible(true);
+    return (bean, value) -> invoke(method, bean, value);
+  }
+
+  private static Object invoke(Method method, Object bean, Object... args) {
+    try {
+      return method.invoke(bean, args);
+    } catch (InvocationTargetException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalArgumentException(cause);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * The generated lambda class is defined by the class loader of this class, so the method and
+   * all the types it refers to must be public and visible from it.
+   */
+  private static boolean isLinkable(Method method) {
+    final Class<?> declaringClass = method.getDeclaringClass();
+    if (!Modifier.isPublic(method.getModifiers())
+        || !Modifier.isPublic(declaringClass.getModifiers())
+        || !isVisible(declaringClass)
+        || !isVisible(method.getReturnType())) {
+      return false;
+    }
+    for (Class<?> type : method.getParameterTypes()) {
+      if (!isVisible(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isVisible(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return false;
+    }
+    try {
+      return Class.forName(type.getName(), false, PropertyAccessor.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+}
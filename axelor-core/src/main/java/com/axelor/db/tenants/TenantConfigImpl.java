@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -81,17 +82,25 @@ public class TenantConfigImpl implements TenantConfig {
   private TenantConfigImpl() {}
 
   public static List<TenantConfig> findByHost(Properties props, String host) {
+    return find(props, tenantId -> matches(props, tenantId, host));
+  }
+
+  public static List<TenantConfig> findAll(Properties props) {
+    return find(props, tenantId -> true);
+  }
+
+  private static List<TenantConfig> find(Properties props, Predicate<String> filter) {
     final List<TenantConfig> all = new ArrayList<>();
     for (String key : props.stringPropertyNames()) {
       Matcher matcher = PATTERN_DB_NAME.matcher(key);
       if (matcher.matches()) {
         String tenantId = matcher.group(1);
-        if (matches(props, tenantId, host)) {
+        if (filter.test(tenantId)) {
           all.add(findById(props, matcher.group(1)));
         }
       }
     }
-    if (all.isEmpty() && matches(props, DEFAULT_TENANT_ID, host)) {
+    if (all.isEmpty() && filter.test(DEFAULT_TENANT_ID)) {
       all.add(findById(props, DEFAULT_TENANT_ID));
     }
 
@@ -17,6 +17,11 @@
  */
 package com.axelor.db.tenants;
 
+import com.axelor.app.AppSettings;
+import com.axelor.inject.Beans;
+import com.google.inject.persist.UnitOfWork;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
 
 /** The tenant identifier resolver. */
@@ -42,6 +47,56 @@ public class TenantResolver implements CurrentTenantIdentifierResolver {
     return tenant;
   }
 
+  /**
+   * Run the given task with the given tenant.
+   *
+   * <p>This is meant to be used from background threads. The {@link UnitOfWork} of the thread is
+   * ended before and after running the task so that the task gets an entity manager connected to
+   * the given tenant database.
+   *
+   * @param tenantId the tenant identifier, null for the default tenant
+   * @param task the task to run
+   */
+  public static void runAs(String tenantId, Runnable task) {
+    final String current = CURRENT_TENANT.get();
+    final UnitOfWork unitOfWork = Beans.get(UnitOfWork.class);
+    unitOfWork.end();
+    CURRENT_TENANT.set(tenantId);
+    try {
+      task.run();
+    } finally {
+      unitOfWork.end();
+      if (current == null) {
+        CURRENT_TENANT.remove();
+      } else {
+        CURRENT_TENANT.set(current);
+      }
+    }
+  }
+
+  /**
+   * Run the given task once for every active tenant.
+   *
+   * <p>This is meant to be used from background threads, see {@link #runAs(String, Runnable)}. If
+   * multi-tenancy is not enabled, the task is simply run once.
+   *
+   * @param task the task to run
+   */
+  public static void forEachTenant(Runnable task) {
+    if (!enabled) {
+      task.run();
+      return;
+    }
+    final List<String> tenants =
+        TenantConfigImpl.findAll(AppSettings.get().getProperties()).stream()
+            .filter(config -> config.getActive() != Boolean.FALSE)
+            .map(TenantConfig::getTenantId)
+            .collect(Collectors.toList());
+    for (String tenantId : tenants) {
+      runAs(tenantId, task);
+    }
+  }
+
   @Override
   public String resolveCurrentTenantIdentifier() {
     return currentTenantIdentifier();
@@ -38,6 +38,10 @@ public final class L10n {
   private static final String TIME_FORMAT = DEFAULT_TIME_FORMAT;
   private static final String DATE_TIME_FORMAT = DATE_FORMAT + " " + TIME_FORMAT;
 
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
+  private static final DateTimeFormatter DATE_TIME_FORMATTER =
+      DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
+
   private Locale locale;
 
   private L10n(Locale locale) {
@@ -104,7 +108,7 @@ public final class L10n {
     if (value == null) {
       return null;
     }
-    return DateTimeFormatter.ofPattern(DATE_FORMAT).format(value);
+    return DATE_FORMATTER.format(value);
   }
 
   /**
@@ -117,7 +121,7 @@ public final class L10n {
     if (value == null) {
       return null;
     }
-    return DateTimeFormatter.ofPattern(DATE_TIME_FORMAT).format(value);
+    return DATE_TIME_FORMATTER.format(value);
   }
 
   /**
@@ -130,6 +134,6 @@ public final class L10n {
     if (value == null) {
       return null;
     }
-    return DateTimeFormatter.ofPattern(DATE_TIME_FORMAT).format(value);
+    return DATE_TIME_FORMATTER.format(value);
   }
 }
@@ -18,16 +18,135 @@
 package com.axelor.mail;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.Transport;
 
-/** The {@link MailSender} provides features to send mails. */
+/**
+ * The {@link MailSender} provides features to send mails.
+ *
+ * <p>The connections to the mail server are pooled and reused to send subsequent messages. The
+ * pools are shared by all the senders using the same server, port, user and session properties.
+ * Idle connections are closed by a background task after {@link #IDLE_TIMEOUT} milliseconds, and
+ * all the pooled connections can be closed with {@link #closeAll()}.
+ */
 public final class MailSender {
 
+  /** The time after which idle connections are closed, in milliseconds. */
+  public static final long IDLE_TIMEOUT = 30_000;
+
+  private static final int MAX_IDLE = 8;
+
+  private static final Map<PoolKey, Pool> POOLS = new ConcurrentHashMap<>();
+
+  private static ScheduledExecutorService sweeper;
+
   private Session session;
 
+  private final Pool pool;
+
+  private static final class PoolKey {
+
+    private final String host;
+    private final String port;
+    private final String user;
+    private final Properties properties;
+
+    PoolKey(Session session) {
+      final String protocol = session.getProperty("mail.transport.protocol");
+      final String prefix = "mail." + (protocol == null ? "smtp" : protocol) + ".";
+      this.host = session.getProperty(prefix + "host");
+      this.port = session.getProperty(prefix + "port");
+      this.user = session.getProperty(prefix + "user");
+      // the other properties, like the envelope sender, apply to the pooled connections
+      this.properties = new Properties();
+      this.properties.putAll(session.getProperties());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof PoolKey)) return false;
+      final PoolKey other = (PoolKey) obj;
+      return Objects.equals(host, other.host)
+          && Objects.equals(port, other.port)
+          && Objects.equals(user, other.user)
+          && Objects.equals(properties, other.properties);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(host, port, user, properties);
+    }
+  }
+
+  private static final class Pool {
+
+    private final Deque<PooledTransport> idle = new ArrayDeque<>();
+
+    synchronized PooledTransport poll() {
+      return idle.pollFirst();
+    }
+
+    synchronized boolean offer(Transport transport) {
+      if (idle.size() < MAX_IDLE) {
+        idle.addFirst(new PooledTransport(transport));
+        return true;
+      }
+      return false;
+    }
+
+    // the idle connections are ordered from the most recently used
+    synchronized List<Transport> expire(long now) {
+      final List<Transport> expired = new ArrayList<>();
+      final Iterator<PooledTransport> iter = idle.descendingIterator();
+      while (iter.hasNext()) {
+        final PooledTransport pooled = iter.next();
+        if (now - pooled.lastUsed < IDLE_TIMEOUT) {
+          break;
+        }
+        iter.remove();
+        expired.add(pooled.transport);
+      }
+      return expired;
+    }
+
+    synchronized List<Transport> clear() {
+      final List<Transport> transports = new ArrayList<>();
+      idle.forEach(pooled -> transports.add(pooled.transport));
+      idle.clear();
+      return transports;
+    }
+  }
+
+  private static final class PooledTransport {
+
+    private final Transport transport;
+    private final long lastUsed;
+
+    PooledTransport(Transport transport) {
+      this.transport = transport;
+      this.lastUsed = System.currentTimeMillis();
+    }
+  }
+
   /**
    * Create a new {@link MailSender} with the given account.
    *
@@ -35,6 +154,7 @@ public final class MailSender {
    */
   public MailSender(MailAccount account) {
     this.session = account.getSession();
+    this.pool = POOLS.computeIfAbsent(new PoolKey(session), key -> new Pool());
   }
 
   /**
@@ -46,15 +166,137 @@ public final class MailSender {
     return new MailBuilder(session);
   }
 
+  private Transport borrow() throws MessagingException {
+    final long now = System.currentTimeMillis();
+    PooledTransport pooled;
+    while ((pooled = pool.poll()) != null) {
+      if (now - pooled.lastUsed < IDLE_TIMEOUT && pooled.transport.isConnected()) {
+        return pooled.transport;
+      }
+      close(pooled.transport);
+    }
+    final Transport transport = session.getTransport();
+    transport.connect();
+    return transport;
+  }
+
+  private void release(Transport transport) {
+    if (pool.offer(transport)) {
+      startSweeper();
+    } else {
+      close(transport);
+    }
+  }
+
+  private static synchronized void startSweeper() {
+    if (sweeper != null) {
+      return;
+    }
+    sweeper =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "mail-sender-sweeper");
+              thread.setDaemon(true);
+              return thread;
+            });
+    sweeper.scheduleWithFixedDelay(
+        MailSender::sweep, IDLE_TIMEOUT, IDLE_TIMEOUT / 2, TimeUnit.MILLISECONDS);
+  }
+
+  private static void sweep() {
+    final long now = System.currentTimeMillis();
+    POOLS.values().forEach(pool -> pool.expire(now).forEach(MailSender::close));
+  }
+
+  private static void close(Transport transport) {
+    try {
+      transport.close();
+    } catch (MessagingException e) {
+      // ignore
+    }
+  }
+
+  private static void send(Transport transport, Message message) throws MessagingException {
+    message.saveChanges();
+    final Address[] addresses = message.getAllRecipients();
+    if (addresses == null || addresses.length == 0) {
+      throw new SendFailedException("No recipient addresses");
+    }
+    transport.sendMessage(message, addresses);
+  }
+
   /**
    * Send a mail message.
    *
+   * <p>The message is sent with a pooled connection to the mail server of this sender.
+   *
    * @param message the message to sent
    * @throws MessagingException if the message could not be sent
    * @see Transport#send(Message)
    */
   public void send(Message message) throws MessagingException {
-    Transport.send(message);
+    final Transport transport = borrow();
+    try {
+      send(transport, message);
+    } catch (MessagingException e) {
+      if (!transport.isConnected()) {
+        close(transport);
+        throw e;
+      }
+      release(transport);
+      throw e;
+    }
+    release(transport);
+  }
+
+  /**
+   * Send the given messages in a batch, over a single pooled connection.
+   *
+   * <p>A failing message doesn't stop the batch, the connection is re-opened if required.
+   *
+   * @param messages the messages to send
+   * @param callback called after each message with the error, or null if the message is sent
+   * @throws MessagingException if unable to connect to the mail server
+   */
+  public void send(
+      Collection<? extends Message> messages, BiConsumer<Message, MessagingException> callback)
+      throws MessagingException {
+    Transport transport = borrow();
+    try {
+      for (Message message : messages) {
+        try {
+          send(transport, message);
+        } catch (MessagingException e) {
+          callback.accept(message, e);
+          if (!transport.isConnected()) {
+            close(transport);
+            transport = borrow();
+          }
+          continue;
+        }
+        callback.accept(message, null);
+      }
+    } catch (MessagingException | RuntimeException e) {
+      close(transport);
+      throw e;
+    }
+    release(transport);
+  }
+
+  /** Close the pooled connections to the mail server of this sender. */
+  public void close() {
+    pool.clear().forEach(MailSender::close);
+  }
+
+  /** Close the pooled connections of all the senders and stop closing idle connections. */
+  public static void closeAll() {
+    synchronized (MailSender.class) {
+      if (sweeper != null) {
+        sweeper.shutdownNow();
+        sweeper = null;
+      }
+    }
+    POOLS.values().forEach(pool -> pool.clear().forEach(MailSender::close));
   }
 
   /**
@@ -134,6 +134,9 @@ public class SmtpAccount implements MailAccount {
       return Session.getInstance(props);
     }
 
+    // the pooled connections are shared per server and user
+    props.setProperty("mail.smtp.user", user);
+
     if (MailConstants.CHANNEL_STARTTLS.equalsIgnoreCase(channel)) {
       props.setProperty("mail.smtp.starttls.enable", "true");
     }
@@ -0,0 +1,352 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.mail.service;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.event.Observes;
+import com.axelor.events.ShutdownEvent;
+import com.axelor.events.StartupEvent;
+import com.axelor.inject.Beans;
+import com.axelor.mail.MailSender;
+import com.axelor.mail.db.MailQueue;
+import com.google.common.collect.Lists;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the outgoing email messages stored in the {@link MailQueue}.
+ *
+ * <p>The pending messages are polled by a single scheduler and delivered in batches by a bounded
+ * pool of <code>mail.queue.workers</code> workers, each batch being sent over a single pooled
+ * connection per mail account. Failed messages are retried with an exponential backoff up to
+ * <code>mail.queue.max-retries</code> times.
+ *
+ * <p>Pending messages are claimed by the processor before being delivered, so the messages are not
+ * delivered twice when several nodes share the same database. The queue of every tenant is
+ * processed in turn.
+ */
+@Singleton
+public class MailQueueProcessor {
+
+  private static final Logger log = LoggerFactory.getLogger(MailQueueProcessor.class);
+
+  private static final int DEFAULT_WORKERS = 4;
+  private static final int DEFAULT_BATCH_SIZE = 50;
+  private static final int DEFAULT_MAX_RETRIES = 5;
+  private static final int DEFAULT_INTERVAL = 10;
+
+  // retry delays, in seconds
+  private static final long RETRY_DELAY = 60;
+  private static final long MAX_RETRY_DELAY = 3600;
+
+  // claimed messages not delivered within this delay (in minutes) can be claimed again
+  private static final int CLAIM_TIMEOUT = 10;
+
+  private final int workers;
+  private final int batchSize;
+  private final int maxRetries;
+  private final int interval;
+
+  private final String owner = UUID.randomUUID().toString();
+
+  private final AtomicBoolean pending = new AtomicBoolean();
+
+  private final LongAdder sentCount = new LongAdder();
+  private final LongAdder failedCount = new LongAdder();
+  private final LongAdder sendTime = new LongAdder();
+
+  private ScheduledExecutorService scheduler;
+  private ExecutorService executor;
+
+  public MailQueueProcessor() {
+    this(
+        AppSettings.get().getInt(AvailableAppSettings.MAIL_QUEUE_WORKERS, DEFAULT_WORKERS),
+        AppSettings.get().getInt(AvailableAppSettings.MAIL_QUEUE_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+        AppSettings.get().getInt(AvailableAppSettings.MAIL_QUEUE_MAX_RETRIES, DEFAULT_MAX_RETRIES),
+        AppSettings.get().getInt(AvailableAppSettings.MAIL_QUEUE_INTERVAL, DEFAULT_INTERVAL));
+  }
+
+  MailQueueProcessor(int workers, int batchSize, int maxRetries, int interval) {
+    this.workers = Math.max(1, workers);
+    this.batchSize = Math.max(1, batchSize);
+    this.maxRetries = maxRetries;
+    this.interval = interval;
+  }
+
+  void onStartup(@Observes StartupEvent event) {
+    start();
+  }
+
+  void onShutdown(@Observes ShutdownEvent event) {
+    stop();
+  }
+
+  /** Start the scheduler and the workers, pending messages are polled periodically. */
+  public synchronized void start() {
+    if (scheduler != null) {
+      return;
+    }
+    final AtomicInteger counter = new AtomicInteger();
+    executor =
+        Executors.newFixedThreadPool(
+            workers,
+            runnable -> {
+              final Thread thread =
+                  new Thread(runnable, "mail-queue-worker-" + counter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "mail-queue");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.SECONDS);
+  }
+
+  /** Stop the scheduler and the workers, and close the pooled mail server connections. */
+  public synchronized void stop() {
+    if (scheduler == null) {
+      return;
+    }
+    final ExecutorService service = scheduler;
+    scheduler = null;
+    service.shutdown();
+    try {
+      if (!service.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.warn("Mail queue didn't terminate in time.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    executor.shutdown();
+    executor = null;
+    MailSender.closeAll();
+  }
+
+  /** Notify the scheduler about new pending messages. */
+  synchronized void trigger() {
+    start();
+    if (pending.compareAndSet(false, true)) {
+      scheduler.execute(this::run);
+    }
+  }
+
+  private void run() {
+    pending.set(false);
+    TenantResolver.forEachTenant(this::processAll);
+  }
+
+  private void processAll() {
+    try {
+      while (process() == batchSize * workers) {
+        // continue with next batches
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.error("Unable to process mail queue: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Deliver the next batches of pending messages.
+   *
+   * @return number of messages processed
+   */
+  public int process() throws InterruptedException {
+    final MailService service = Beans.get(MailService.class);
+    if (!(service instanceof MailServiceImpl)) {
+      return 0;
+    }
+
+    final ExecutorService workerPool;
+    synchronized (this) {
+      workerPool = executor;
+    }
+    if (workerPool == null) {
+      return 0;
+    }
+
+    final List<Long> ids = claim(findPending(batchSize * workers));
+    if (ids.isEmpty()) {
+      return 0;
+    }
+
+    final String tenant = TenantResolver.currentTenantIdentifier();
+    final List<Future<?>> futures = new ArrayList<>();
+    for (List<Long> batch : Lists.partition(ids, batchSize)) {
+      futures.add(
+          workerPool.submit(
+              () ->
+                  TenantResolver.runAs(
+                      tenant, () -> ((MailServiceImpl) service).deliver(batch, this))));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        log.error("Unable to deliver emails: {}", e.getMessage(), e.getCause());
+      }
+    }
+
+    return ids.size();
+  }
+
+  private List<Long> findPending(int limit) {
+    return Query.of(MailQueue.class)
+        .filter(
+            "(self.retries IS NULL OR self.retries < :retries) "
+                + "AND (self.nextAttempt IS NULL OR self.nextAttempt <= :now) "
+                + "AND (self.owner IS NULL OR self.claimedOn < :expired) "
+                + "AND (self.sent IS NULL OR self.sent = FALSE)")
+        .bind("retries", maxRetries)
+        .bind("now", LocalDateTime.now())
+        .bind("expired", LocalDateTime.now().minusMinutes(CLAIM_TIMEOUT))
+        .order("id")
+        .select("id")
+        .fetch(limit, 0)
+        .stream()
+        .map(values -> (Long) values.get("id"))
+        .collect(Collectors.toList());
+  }
+
+  private List<Long> claim(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return ids;
+    }
+
+    // the conditional update is atomic, concurrent claims of the same messages update nothing
+    JPA.runInTransaction(
+        () ->
+            JPA.em()
+                .createQuery(
+                    "UPDATE MailQueue self SET self.owner = :owner, self.claimedOn = :now "
+                        + "WHERE self.id IN (:ids) "
+                        + "AND (self.owner IS NULL OR self.claimedOn < :expired)")
+                .setParameter("owner", owner)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("expired", LocalDateTime.now().minusMinutes(CLAIM_TIMEOUT))
+                .setParameter("ids", ids)
+                .executeUpdate());
+
+    return Query.of(MailQueue.class)
+        .filter("self.id IN (:ids) AND self.owner = :owner")
+        .bind("ids", ids)
+        .bind("owner", owner)
+        .order("id")
+        .select("id")
+        .fetch(0, 0)
+        .stream()
+        .map(values -> (Long) values.get("id"))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Check whether the given message is claimed by this processor.
+   *
+   * @param item the queued message
+   * @return true if the message can be delivered by this processor
+   */
+  boolean isClaimed(MailQueue item) {
+    return owner.equals(item.getOwner());
+  }
+
+  /**
+   * Get the next attempt time of a message that failed the given number of times.
+   *
+   * @param retries number of failed attempts
+   * @return next attempt time
+   */
+  LocalDateTime getNextAttempt(int retries) {
+    final long delay = RETRY_DELAY << Math.min(retries - 1, 16);
+    return LocalDateTime.now().plusSeconds(Math.min(delay, MAX_RETRY_DELAY));
+  }
+
+  void sent(long nanos) {
+    sentCount.increment();
+    sendTime.add(nanos);
+  }
+
+  void failed() {
+    failedCount.increment();
+  }
+
+  /**
+   * Get the number of messages waiting to be delivered.
+   *
+   * @return the queue depth
+   */
+  public long getQueueSize() {
+    return Query.of(MailQueue.class)
+        .filter(
+            "(self.retries IS NULL OR self.retries < :retries) "
+                + "AND (self.sent IS NULL OR self.sent = FALSE)")
+        .bind("retries", maxRetries)
+        .count();
+  }
+
+  /**
+   * Get the number of messages delivered since startup.
+   *
+   * @return number of sent messages
+   */
+  public long getSentCount() {
+    return sentCount.sum();
+  }
+
+  /**
+   * Get the number of failed delivery attempts since startup.
+   *
+   * @return number of failed attempts
+   */
+  public long getFailedCount() {
+    return failedCount.sum();
+  }
+
+  /**
+   * Get the average time to send a message, in milliseconds.
+   *
+   * @return average send latency
+   */
+  public double getAverageLatency() {
+    final long count = sentCount.sum();
+    return count == 0 ? 0 : sendTime.sum() / 1_000_000.0 / count;
+  }
+}
@@ -27,6 +27,7 @@ import com.axelor.auth.db.repo.UserRepository;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.Query;
+import com.axelor.db.internal.DBHelper;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
@@ -39,8 +40,10 @@ import com.axelor.mail.MailReader;
 import com.axelor.mail.MailSender;
 import com.axelor.mail.SmtpAccount;
 import com.axelor.mail.db.MailAddress;
+import com.axelor.mail.db.MailFetchState;
 import com.axelor.mail.db.MailFollower;
 import com.axelor.mail.db.MailMessage;
+import com.axelor.mail.db.MailQueue;
 import com.axelor.mail.db.repo.MailAddressRepository;
 import com.axelor.mail.db.repo.MailFollowerRepository;
 import com.axelor.mail.db.repo.MailMessageRepository;
@@ -58,22 +61,28 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.inject.persist.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import javax.activation.DataSource;
 import javax.inject.Singleton;
 import javax.mail.FetchProfile;
@@ -82,11 +91,17 @@ import javax.mail.Folder;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.Store;
+import javax.mail.UIDFolder;
+import javax.mail.URLName;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.mail.search.AndTerm;
 import javax.mail.search.FlagTerm;
 import javax.mail.search.SearchTerm;
+import javax.persistence.EntityManager;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -103,12 +118,19 @@ public class MailServiceImpl implements MailService, MailConstants {
   private boolean senderConfigured;
   private boolean readerConfigured;
 
-  private ExecutorService executor = Executors.newCachedThreadPool();
-
   private Logger log = LoggerFactory.getLogger(MailService.class);
 
   private static final Object FETCH_LOCK = new Object();
 
+  private static final String[] FETCH_HEADERS = {
+    "Message-ID", "In-Reply-To", "References", "X-References"
+  };
+
+  private static final int FETCH_CHUNK_SIZE = 500;
+
+  /** The known messages, by message id, of the current fetch cycle. */
+  private final ThreadLocal<Map<String, MailMessage>> knownMessages = new ThreadLocal<>();
+
   public MailServiceImpl() {}
 
   /**
@@ -122,14 +144,7 @@ public class MailServiceImpl implements MailService, MailConstants {
    * @return a {@link MailSender}, null if not configured
    */
   protected MailSender getMailSender(final MailMessage message, Model entity) {
-    if (senderConfigured) {
-      return sender;
-    }
-    try {
-      return initSender();
-    } finally {
-      senderConfigured = true;
-    }
+    return getDefaultSender();
   }
 
   private synchronized MailSender initSender() {
@@ -383,17 +398,230 @@ public class MailServiceImpl implements MailService, MailConstants {
       throw new MailException(e);
     }
 
-    // send email using a separate process to void thread blocking
-    executor.submit(
-        new Callable<Boolean>() {
-          @Override
-          public Boolean call() throws Exception {
-            send(sender, email);
-            return true;
-          }
-        });
+    // deliver email from the mail queue to avoid thread blocking
+    enqueue(message, email);
+  }
+
+  /**
+   * Add the given email to the outgoing mail queue.
+   *
+   * <p>The email is saved with the current transaction, if any, and the {@link MailQueueProcessor}
+   * is notified once the transaction is committed.
+   *
+   * @param message the message
+   * @param email the email to deliver
+   * @throws MailException if the email can't be serialized
+   */
+  void enqueue(final MailMessage message, final MimeMessage email) throws MailException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      email.writeTo(out);
+    } catch (MessagingException | IOException e) {
+      throw new MailException(e);
+    }
+
+    final MailQueue item = new MailQueue();
+    item.setMailMessageId(message.getId());
+    item.setRelatedModel(message.getRelatedModel());
+    item.setRelatedId(message.getRelatedId());
+    item.setContent(out.toByteArray());
+    item.setNextAttempt(LocalDateTime.now());
+
+    final EntityManager em = JPA.em();
+    if (em.getTransaction().isActive()) {
+      em.persist(item);
+      em.unwrap(Session.class)
+          .getTransaction()
+          .registerSynchronization(
+              new Synchronization() {
+                @Override
+                public void beforeCompletion() {}
+
+                @Override
+                public void afterCompletion(int status) {
+                  if (status == Status.STATUS_COMMITTED) {
+                    Beans.get(MailQueueProcessor.class).trigger();
+                  }
+                }
+              });
+    } else {
+      JPA.runInTransaction(() -> JPA.em().persist(item));
+      Beans.get(MailQueueProcessor.class).trigger();
+    }
+  }
+
+  /** The queued email, keeps the original Message-ID when sent. */
+  private static final class QueuedMessage extends MimeMessage {
+
+    QueuedMessage(byte[] content) throws MessagingException {
+      super(null, new ByteArrayInputStream(content));
+    }
+
+    @Override
+    protected void updateMessageID() throws MessagingException {
+      if (getMessageID() == null) {
+        super.updateMessageID();
+      }
+    }
+  }
+
+  /**
+   * Deliver the given queued emails.
+   *
+   * <p>The emails are grouped by {@link MailSender} and sent in batches with a single connection
+   * per sender. The {@link MailSender} of an email is given by {@link #getMailSender(MailMessage,
+   * Model)}, with a copy of the related message holding its related record if the message is not
+   * saved. Only the emails claimed by the given processor are delivered.
+   *
+   * @param ids the ids of the {@link MailQueue} records
+   * @param processor the queue processor to record delivery statistics
+   */
+  void deliver(List<Long> ids, MailQueueProcessor processor) {
+    final Map<MailSender, Map<MimeMessage, Long>> batches = new LinkedHashMap<>();
+
+    for (Long id : ids) {
+      final MailQueue item = JPA.em().find(MailQueue.class, id);
+      if (item == null || !processor.isClaimed(item)) {
+        continue;
+      }
+      try {
+        MailMessage message =
+            item.getMailMessageId() == null
+                ? null
+                : JPA.em().find(MailMessage.class, item.getMailMessageId());
+        if (message == null) {
+          message = new MailMessage();
+          message.setRelatedModel(item.getRelatedModel());
+          message.setRelatedId(item.getRelatedId());
+        }
+        final MailSender sender = getMailSender(message, findEntity(message));
+        if (sender == null) {
+          throw new MailException("Mail sender is not configured.");
+        }
+        batches
+            .computeIfAbsent(sender, key -> new IdentityHashMap<>())
+            .put(new QueuedMessage(item.getContent()), id);
+      } catch (Exception e) {
+        failed(id, e, processor);
+      }
+    }
+
+    JPA.em().clear();
+
+    for (Map.Entry<MailSender, Map<MimeMessage, Long>> entry : batches.entrySet()) {
+      final Map<MimeMessage, Long> batch = entry.getValue();
+      final Set<MimeMessage> done = Collections.newSetFromMap(new IdentityHashMap<>());
+      final long[] start = {System.nanoTime()};
+      try {
+        entry
+            .getKey()
+            .send(
+                batch.keySet(),
+                (email, error) -> {
+                  done.add((MimeMessage) email);
+                  if (error == null) {
+                    processor.sent(System.nanoTime() - start[0]);
+                    delivered(batch.get(email), (MimeMessage) email);
+                  } else {
+                    failed(batch.get(email), error, processor);
+                  }
+                  start[0] = System.nanoTime();
+                });
+      } catch (Exception e) {
+        batch.forEach(
+            (email, id) -> {
+              if (!done.contains(email)) {
+                failed(id, e, processor);
+              }
+            });
+      }
+    }
+  }
+
+  private MailSender getDefaultSender() {
+    if (senderConfigured) {
+      return sender;
+    }
+    try {
+      return initSender();
+    } finally {
+      senderConfigured = true;
+    }
+  }
+
+  private void delivered(Long id, MimeMessage email) {
+    try {
+      JPA.runInTransaction(
+          () -> {
+            final MailQueue item = JPA.em().find(MailQueue.class, id);
+            if (item != null) {
+              JPA.em().remove(item);
+            }
+          });
+    } catch (Exception e) {
+      log.error("Unable to remove delivered email #{}: {}", id, e.getMessage(), e);
+      JPA.em().clear();
+      markSent(id);
+    }
+    try {
+      Beans.get(AuditableRunner.class).run(() -> JPA.runInTransaction(() -> messageSent(email)));
+    } catch (Exception e) {
+      log.error("Unable to complete email delivery: {}", e.getMessage(), e);
+    } finally {
+      JPA.em().clear();
+    }
+  }
+
+  // the delivered email is released without being delivered again
+  private void markSent(Long id) {
+    try {
+      JPA.runInTransaction(
+          () ->
+              JPA.em()
+                  .createQuery(
+                      "UPDATE MailQueue self SET self.sent = TRUE, "
+                          + "self.owner = NULL, self.claimedOn = NULL WHERE self.id = :id")
+                  .setParameter("id", id)
+                  .executeUpdate());
+    } catch (Exception e) {
+      log.error("Unable to mark email #{} as sent: {}", id, e.getMessage(), e);
+    } finally {
+      JPA.em().clear();
+    }
   }
 
+  private void failed(Long id, Exception error, MailQueueProcessor processor) {
+    log.error("Unable to send email #{}: {}", id, error.getMessage(), error);
+    processor.failed();
+    try {
+      JPA.runInTransaction(
+          () -> {
+            final MailQueue item = JPA.em().find(MailQueue.class, id);
+            if (item != null) {
+              final int retries = item.getRetries() == null ? 1 : item.getRetries() + 1;
+              item.setRetries(retries);
+              item.setNextAttempt(processor.getNextAttempt(retries));
+              item.setError(error.toString());
+              item.setOwner(null);
+              item.setClaimedOn(null);
+            }
+          });
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+    } finally {
+      JPA.em().clear();
+    }
+  }
+
+  /**
+   * Send the given email directly, without the mail queue.
+   *
+   * @param sender the mail sender
+   * @param email the email to send
+   * @throws Exception if unable to send the email
+   * @deprecated emails are delivered through the mail queue, see {@link MailQueueProcessor}
+   */
+  @Deprecated
   @Transactional(rollbackOn = Exception.class)
   protected void send(final MailSender sender, final MimeMessage email) throws Exception {
     final AuditableRunner runner = Beans.get(AuditableRunner.class);
@@ -412,8 +640,7 @@ public class MailServiceImpl implements MailService, MailConstants {
   /**
    * This method is called when email is sent successfully.
    *
-   * <p>This method is called by {@link #send(MailSender, MimeMessage)} which is running under a
-   * transaction with super user access.
+   * <p>This method is called by the mail queue workers under a transaction with super user access.
    *
    * @param email the email message sent
    */
@@ -438,25 +665,9 @@ public class MailServiceImpl implements MailService, MailConstants {
 
     log.info("new email recieved: {}", email.getMessageID());
 
-    final MailParser parser = new MailParser(email).parse();
+    final MailParser parser = new MailParser(email);
     final String messageId = email.getMessageID();
-
-    final Set<String> parentIds = new HashSet<>();
-    String parentId;
-
-    parentId = parser.getHeader("In-Reply-To");
-    if (parentId != null) {
-      parentIds.add(parentId);
-    }
-    parentId = parser.getHeader("X-References");
-    if (parentId != null) {
-      parentIds.addAll(Splitter.on(" ").trimResults().omitEmptyStrings().splitToList(parentId));
-    }
-
-    parentId = parser.getHeader("References");
-    if (parentId != null) {
-      parentIds.addAll(Splitter.on(" ").trimResults().omitEmptyStrings().splitToList(parentId));
-    }
+    final Set<String> parentIds = getParentIds(email);
 
     // default implementation only supports reply
     if (parentIds.isEmpty()) {
@@ -468,8 +679,7 @@ public class MailServiceImpl implements MailService, MailConstants {
     final MailAddressRepository emails = Beans.get(MailAddressRepository.class);
     final MailMessageRepository messages = Beans.get(MailMessageRepository.class);
 
-    final MailMessage parent =
-        messages.all().filter("self.messageId in (:ids)").bind("ids", parentIds).fetchOne();
+    final MailMessage parent = findMessage(parentIds);
 
     // no parent message found, ignore
     if (parent == null) {
@@ -477,7 +687,8 @@ public class MailServiceImpl implements MailService, MailConstants {
       return null;
     }
 
-    final MailMessage existing = messages.all().filter("self.messageId = ?", messageId).fetchOne();
+    final MailMessage existing =
+        messageId == null ? null : findMessage(Collections.singleton(messageId));
 
     // very unlikely, message already exist
     if (existing != null) {
@@ -485,10 +696,14 @@ public class MailServiceImpl implements MailService, MailConstants {
       return null;
     }
 
+    // only parse the content of accepted messages
+    parser.parse();
+
     final MailMessage message = new MailMessage();
     final String content = parser.getHtml() == null ? parser.getText() : parser.getHtml();
     final String summary = parser.getSummary();
 
+    message.setMessageId(messageId);
     message.setSubject(parser.getSubject());
     message.setBody(content);
     message.setSummary(summary);
@@ -522,9 +737,54 @@ public class MailServiceImpl implements MailService, MailConstants {
     return message;
   }
 
+  private static Set<String> getParentIds(MimeMessage email) throws MessagingException {
+    final Set<String> parentIds = new LinkedHashSet<>();
+    final String inReplyTo = email.getHeader("In-Reply-To", null);
+    if (inReplyTo != null) {
+      parentIds.add(inReplyTo);
+    }
+    for (String name : new String[] {"X-References", "References"}) {
+      final String references = email.getHeader(name, " ");
+      if (references != null) {
+        parentIds.addAll(Splitter.on(" ").trimResults().omitEmptyStrings().splitToList(references));
+      }
+    }
+    return parentIds;
+  }
+
+  private MailMessage findMessage(Set<String> messageIds) {
+    final Map<String, MailMessage> known = knownMessages.get();
+    if (known == null) {
+      return Beans.get(MailMessageRepository.class)
+          .all()
+          .filter("self.messageId in (:ids)")
+          .bind("ids", messageIds)
+          .fetchOne();
+    }
+    return messageIds.stream().map(known::get).filter(Objects::nonNull).findFirst().orElse(null);
+  }
+
+  private static Map<String, MailMessage> findMessages(Set<String> messageIds) {
+    final Map<String, MailMessage> found = new HashMap<>();
+    for (List<String> ids : Iterables.partition(messageIds, FETCH_CHUNK_SIZE)) {
+      Query.of(MailMessage.class)
+          .filter("self.messageId in (:ids)")
+          .bind("ids", ids)
+          .autoFlush(false)
+          .fetch()
+          .forEach(message -> found.putIfAbsent(message.getMessageId(), message));
+    }
+    return found;
+  }
+
   /**
    * Fetch email messages from the given mail store.
    *
+   * <p>With IMAP, only the messages received since the last fetch are considered, as tracked by
+   * their UIDs in {@link MailFetchState}. On the first fetch, or if the mailbox has been recreated,
+   * all the unseen messages are considered and the messages already seen are skipped by the next
+   * fetches.
+   *
    * @param reader the mail reader to fetch message from
    * @throws MessagingException if unable to parse message
    * @throws IOException if unable to load message content
@@ -534,10 +794,174 @@ public class MailServiceImpl implements MailService, MailConstants {
 
     final Store store = reader.getStore();
     final Folder inbox = store.getFolder("INBOX");
-    final MailMessageRepository repo = Beans.get(MailMessageRepository.class);
 
     log.debug("Fetching new emails from: {}", store.getURLName());
 
+    if (!(inbox instanceof UIDFolder)) {
+      fetchUnseen(inbox);
+      return;
+    }
+
+    final UIDFolder folder = (UIDFolder) inbox;
+    final URLName url = store.getURLName();
+    final String account =
+        new URLName(
+                url.getProtocol(),
+                url.getHost(),
+                url.getPort(),
+                inbox.getFullName(),
+                url.getUsername(),
+                null)
+            .toString();
+
+    // messages are tracked by UIDs, no need to change their flags
+    inbox.open(Folder.READ_ONLY);
+    try {
+      final MailFetchState state =
+          Query.of(MailFetchState.class)
+              .filter("self.account = :account")
+              .bind("account", account)
+              .fetchOne();
+
+      final long uidValidity = folder.getUIDValidity();
+      final boolean resync =
+          state == null
+              || state.getLastUid() == null
+              || !Objects.equals(state.getUidValidity(), uidValidity);
+
+      // on resync, only the unseen messages are fetched, the next fetches skip the seen ones
+      final long lastUid = resync ? 0 : state.getLastUid();
+      final long highestUid = resync ? getLastUid(inbox) : lastUid;
+      final Message[] messages =
+          resync
+              ? inbox.search(
+                  new AndTerm(
+                      new FlagTerm(new Flags(Flags.Flag.SEEN), false),
+                      new FlagTerm(new Flags("fetched"), false)))
+              : folder.getMessagesByUID(lastUid + 1, UIDFolder.LASTUID);
+
+      // fetch the headers only, the content is loaded for the accepted messages
+      final FetchProfile profile = new FetchProfile();
+      profile.add(UIDFolder.FetchProfileItem.UID);
+      profile.add(FetchProfile.Item.ENVELOPE);
+      for (String header : FETCH_HEADERS) {
+        profile.add(header);
+      }
+      inbox.fetch(messages, profile);
+
+      long maxUid = highestUid;
+      final List<MimeMessage> pending = new ArrayList<>();
+      for (Message message : messages) {
+        final long uid = folder.getUID(message);
+        // the last message is always returned by a UID range search
+        if (uid <= lastUid) {
+          continue;
+        }
+        maxUid = Math.max(maxUid, uid);
+        if (message instanceof MimeMessage) {
+          pending.add((MimeMessage) message);
+        }
+      }
+
+      final int count = receive(pending);
+
+      final MailFetchState current =
+          state == null || !JPA.em().contains(state)
+              ? Query.of(MailFetchState.class)
+                  .filter("self.account = :account")
+                  .bind("account", account)
+                  .fetchOne()
+              : state;
+      final MailFetchState target = current == null ? new MailFetchState() : current;
+
+      target.setAccount(account);
+      target.setUidValidity(uidValidity);
+      target.setLastUid(maxUid);
+
+      JPA.save(target);
+
+      log.debug("Fetched {} emails from: {}", count, store.getURLName());
+    } finally {
+      inbox.close(false);
+    }
+  }
+
+  private static long getLastUid(Folder inbox) throws MessagingException {
+    final int count = inbox.getMessageCount();
+    return count > 0 ? ((UIDFolder) inbox).getUID(inbox.getMessage(count)) : 0;
+  }
+
+  /**
+   * Receive the given messages in a single transaction.
+   *
+   * <p>The existing and the parent messages are looked up in batches, and the persistence context
+   * is cleared every <code>hibernate.jdbc.batch_size</code> messages.
+   */
+  private int receive(List<MimeMessage> messages) throws MessagingException, IOException {
+    if (messages.isEmpty()) {
+      return 0;
+    }
+
+    final Set<String> messageIds = new HashSet<>();
+    for (MimeMessage message : messages) {
+      final String messageId = message.getMessageID();
+      if (messageId != null) {
+        messageIds.add(messageId);
+      }
+      messageIds.addAll(getParentIds(message));
+    }
+
+    final Map<String, MailMessage> known = findMessages(messageIds);
+    final List<MimeMessage> accepted = new ArrayList<>();
+    for (MimeMessage message : messages) {
+      final String messageId = message.getMessageID();
+      if (messageId == null || !known.containsKey(messageId)) {
+        accepted.add(message);
+      }
+    }
+
+    if (accepted.isEmpty()) {
+      return 0;
+    }
+
+    // load the content structure of the accepted messages at once
+    final FetchProfile profile = new FetchProfile();
+    profile.add(FetchProfile.Item.CONTENT_INFO);
+    accepted.get(0).getFolder().fetch(accepted.toArray(new Message[] {}), profile);
+
+    final MailMessageRepository repo = Beans.get(MailMessageRepository.class);
+    final int batchSize = Math.max(1, DBHelper.getJdbcBatchSize());
+
+    int count = 0;
+    knownMessages.set(known);
+    try {
+      for (MimeMessage message : accepted) {
+        MailMessage entity = messageReceived(message);
+        if (entity == null) {
+          continue;
+        }
+        if (!JPA.em().contains(entity)) {
+          entity = repo.save(entity);
+        }
+        if (entity.getMessageId() != null) {
+          known.put(entity.getMessageId(), entity);
+        }
+        if (++count % batchSize == 0) {
+          JPA.flush();
+          JPA.clear();
+        }
+      }
+    } finally {
+      knownMessages.remove();
+    }
+
+    return count;
+  }
+
+  private void fetchUnseen(final Folder inbox) throws MessagingException, IOException {
+
+    final MailMessageRepository repo = Beans.get(MailMessageRepository.class);
+
     // open as READ_WRITE to mark messages as seen
     inbox.open(Folder.READ_WRITE);
 
@@ -568,7 +992,7 @@ public class MailServiceImpl implements MailService, MailConstants {
       }
     }
 
-    log.debug("Fetched {} emails from: {}", count, store.getURLName());
+    log.debug("Fetched {} emails from: {}", count, inbox.getURLName());
     inbox.close(false);
   }
 
@@ -34,18 +34,22 @@ import com.axelor.meta.db.repo.MetaAttachmentRepository;
 import com.axelor.meta.db.repo.MetaFileRepository;
 import com.google.common.base.Preconditions;
 import com.google.inject.persist.Transactional;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.time.LocalDate;
@@ -80,6 +84,9 @@ public class MetaFiles {
   // temp clean up threshold 24 hours
   private static final long TEMP_THRESHOLD = 24 * 3600 * 1000;
 
+  // size of the blocks transferred to the upload files
+  private static final long TRANSFER_SIZE = 1024 * 1024;
+
   private static final Object lock = new Object();
 
   private static final List<Pattern> WHITELIST_PATTERNS =
@@ -353,12 +360,35 @@ public class MetaFiles {
    * @throws IOException if an I/O error occurs
    */
   public void clean() throws IOException {
-    if (!Files.isDirectory(getTempPath())) {
+    clean(getTempPath(), System.currentTimeMillis());
+  }
+
+  /**
+   * Clean up obsolete temporary files of all the tenants.
+   *
+   * <p>This is used by {@link MetaFilesCleaner} to periodically sweep the temporary directories.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  static void cleanAll() throws IOException {
+    final long currentTime = System.currentTimeMillis();
+    if (!Files.isDirectory(UPLOAD_PATH)) {
+      return;
+    }
+    clean(UPLOAD_PATH.resolve("tmp"), currentTime);
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(UPLOAD_PATH, Files::isDirectory)) {
+      for (Path dir : stream) {
+        clean(dir.resolve("tmp"), currentTime);
+      }
+    }
+  }
+
+  private static void clean(Path tempPath, long currentTime) throws IOException {
+    if (!Files.isDirectory(tempPath)) {
       return;
     }
-    final long currentTime = System.currentTimeMillis();
     Files.walkFileTree(
-        getTempPath(),
+        tempPath,
         new SimpleFileVisitor<Path>() {
           @Override
           public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
@@ -413,32 +443,30 @@ public class MetaFiles {
     // make sure the upload directories exist
     Files.createDirectories(getTempPath());
 
-    // clean up obsolete temporary files
-    try {
-      clean();
-    } catch (Exception e) {
-    }
+    // obsolete temporary files are cleaned up by the MetaFilesCleaner
 
-    final File file = tmp.toFile();
-    final BufferedOutputStream bos =
-        new BufferedOutputStream(new FileOutputStream(file, startOffset > 0));
-    try {
-      int read = 0;
+    final OpenOption[] options =
+        startOffset > 0
+            ? new OpenOption[] {StandardOpenOption.WRITE}
+            : new OpenOption[] {
+              StandardOpenOption.WRITE,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING
+            };
+
+    final ReadableByteChannel source = Channels.newChannel(chunk);
+    try (FileChannel target = FileChannel.open(tmp, options)) {
       long total = startOffset;
-      byte[] bytes = new byte[4096];
-      while ((read = chunk.read(bytes)) != -1) {
-        total += read;
+      long count = 0;
+      while ((count = target.transferFrom(source, total, TRANSFER_SIZE)) > 0) {
+        total += count;
         if (fileSize > -1 && total > fileSize) {
           throw new IllegalArgumentException("Invalid chunk, oversized upload.");
         }
-        bos.write(bytes, 0, read);
       }
-      bos.flush();
-    } finally {
-      bos.close();
     }
 
-    return file;
+    return tmp.toFile();
   }
 
   /**
@@ -0,0 +1,95 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.event.Observes;
+import com.axelor.events.ShutdownEvent;
+import com.axelor.events.StartupEvent;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically cleans up obsolete temporary upload files.
+ *
+ * <p>The temporary directories are swept every <code>file.upload.temp-clean-interval</code>
+ * minutes instead of on every upload request. The sweeper is disabled if the interval is not
+ * positive.
+ */
+@Singleton
+public class MetaFilesCleaner {
+
+  private static final Logger log = LoggerFactory.getLogger(MetaFilesCleaner.class);
+
+  private static final int DEFAULT_INTERVAL = 60;
+
+  private final int interval;
+
+  private ScheduledExecutorService executor;
+
+  public MetaFilesCleaner() {
+    this.interval =
+        AppSettings.get()
+            .getInt(AvailableAppSettings.FILE_UPLOAD_TEMP_CLEAN_INTERVAL, DEFAULT_INTERVAL);
+  }
+
+  void onStartup(@Observes StartupEvent event) {
+    start();
+  }
+
+  void onShutdown(@Observes ShutdownEvent event) {
+    stop();
+  }
+
+  /** Start the sweeper. */
+  public synchronized void start() {
+    if (interval <= 0 || executor != null) {
+      return;
+    }
+    executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "temp-files-cleaner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.scheduleWithFixedDelay(this::run, 0, interval, TimeUnit.MINUTES);
+  }
+
+  /** Stop the sweeper. */
+  public synchronized void stop() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    executor = null;
+  }
+
+  private void run() {
+    try {
+      MetaFiles.cleanAll();
+    } catch (Exception e) {
+      log.error("Unable to clean up temporary files: {}", e.getMessage(), e);
+    }
+  }
+}
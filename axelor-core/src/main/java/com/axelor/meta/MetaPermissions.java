@@ -85,6 +85,55 @@ public class MetaPermissions {
     return permission;
   }
 
+  private boolean hasRules(Set<MetaPermission> permissions, String object) {
+    if (permissions == null) {
+      return false;
+    }
+    for (MetaPermission perm : permissions) {
+      if (object.equals(perm.getObject())
+          && perm.getActive() == Boolean.TRUE
+          && perm.getRules() != null
+          && !perm.getRules().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check whether the given user has any active field permission rule on the given object.
+   *
+   * @param user the user
+   * @param object the object name
+   * @return true if there is at least one rule
+   */
+  public boolean hasRules(User user, String object) {
+    if (user == null || object == null) {
+      return false;
+    }
+    if (hasRules(user.getMetaPermissions(), object)) {
+      return true;
+    }
+    if (user.getGroup() != null && hasRules(user.getGroup().getMetaPermissions(), object)) {
+      return true;
+    }
+    if (user.getRoles() != null) {
+      for (Role role : user.getRoles()) {
+        if (hasRules(role.getMetaPermissions(), object)) {
+          return true;
+        }
+      }
+    }
+    if (user.getGroup() != null && user.getGroup().getRoles() != null) {
+      for (Role role : user.getGroup().getRoles()) {
+        if (hasRules(role.getMetaPermissions(), object)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public MetaPermissionRule findRule(User user, String object, String field) {
     final MetaPermission permission = find(user, object, field);
     if (permission == null) {
@@ -20,7 +20,6 @@ package com.axelor.meta;
 import static com.axelor.common.StringUtils.isBlank;
 
 import com.axelor.auth.AuthUtils;
-import com.axelor.auth.db.Role;
 import com.axelor.auth.db.User;
 import com.axelor.common.Inflector;
 import com.axelor.common.StringUtils;
@@ -32,6 +31,7 @@ import com.axelor.db.ValueEnum;
 import com.axelor.db.annotations.Widget;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
+import com.axelor.db.tenants.TenantResolver;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaJsonField;
@@ -65,6 +65,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +79,88 @@ public final class MetaStore {
   private static final Cache<String, Action> ACTIONS =
       CacheBuilder.newBuilder().maximumSize(1000).weakValues().build();
 
+  private static final Cache<String, SelectionItems> SELECTIONS =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  private static final SelectionItems NO_SELECTION =
+      new SelectionItems(Collections.emptyMap());
+
+  /** Immutable selection items, both by value and sorted by order. */
+  private static final class SelectionItems {
+
+    private final Map<String, Selection.Option> items;
+    private final List<Selection.Option> sorted;
+
+    public SelectionItems(Map<String, Selection.Option> items) {
+      final List<Selection.Option> values = new ArrayList<>(items.values());
+      Collections.sort(
+          values,
+          new Comparator<Selection.Option>() {
+            @Override
+            public int compare(Selection.Option o1, Selection.Option o2) {
+              Integer n = o1.getOrder();
+              Integer m = o2.getOrder();
+
+              if (n == null) n = 0;
+              if (m == null) m = 0;
+
+              return Integer.compare(n, m);
+            }
+          });
+      this.items = Collections.unmodifiableMap(items);
+      this.sorted = Collections.unmodifiableList(values);
+    }
+  }
+
+  private static final Cache<String, JsonFields> JSON_FIELDS =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  private static final AtomicLong JSON_FIELDS_VERSION = new AtomicLong();
+
+  /** The compiled custom field definitions of a json field or a custom model. */
+  private static final class JsonFields {
+
+    private final long version;
+    private final List<JsonField> items;
+
+    public JsonFields(long version, List<JsonField> items) {
+      this.version = version;
+      this.items = items;
+    }
+  }
+
+  /** The user independent definition of a custom field. */
+  private static final class JsonField {
+
+    private final String name;
+    private final String title;
+    private final String autoTitle;
+    private final String selection;
+    private final Class<?> enumType;
+    private final String includeIf;
+    private final Set<Long> roles;
+    private final Map<String, Object> attrs;
+
+    public JsonField(
+        String name,
+        String title,
+        String autoTitle,
+        String selection,
+        Class<?> enumType,
+        String includeIf,
+        Set<Long> roles,
+        Map<String, Object> attrs) {
+      this.name = name;
+      this.title = title;
+      this.autoTitle = autoTitle;
+      this.selection = selection;
+      this.enumType = enumType;
+      this.includeIf = includeIf;
+      this.roles = Collections.unmodifiableSet(roles);
+      this.attrs = Collections.unmodifiableMap(attrs);
+    }
+  }
+
   private MetaStore() {}
 
   /** Used for unit testing. */
@@ -244,6 +329,12 @@ public final class MetaStore {
       Map<String, Object> fields, String object, String jsonField) {
     final User user = AuthUtils.getUser();
     final MetaPermissions perms = Beans.get(MetaPermissions.class);
+
+    // most users have no field permission rules at all
+    if (!perms.hasRules(user, object)) {
+      return fields;
+    }
+
     final Map<String, Object> result = new LinkedHashMap<>();
 
     for (Map.Entry<String, Object> item : fields.entrySet()) {
@@ -290,72 +381,147 @@ public final class MetaStore {
     } catch (Exception e) {
       return null;
     }
-    final List<MetaJsonField> fields =
-        Query.of(MetaJsonField.class)
-            .filter("self.model = :model AND self.modelField = :field")
-            .bind("model", modelName)
-            .bind("field", fieldName)
-            .order("sequence")
-            .order("id")
-            .fetch();
-
-    final Map<String, Object> result = updateJsonFields(fields, fieldName);
+    final JsonFields fields =
+        getJsonFields(
+            modelName + ":" + fieldName,
+            fieldName,
+            () ->
+                Query.of(MetaJsonField.class)
+                    .filter("self.model = :model AND self.modelField = :field")
+                    .bind("model", modelName)
+                    .bind("field", fieldName)
+                    .order("sequence")
+                    .order("id")
+                    .fetch());
+
+    final Map<String, Object> result = updateJsonFields(fields.items);
     return checkPermissions(result, modelName, fieldName);
   }
 
   public static Map<String, Object> findJsonFields(String jsonModel) {
-    final MetaJsonModelRepository forms = Beans.get(MetaJsonModelRepository.class);
-    final MetaJsonModel found = forms.findByName(jsonModel);
-    if (found == null) return null;
-    final Map<String, Object> result = updateJsonFields(found.getFields(), "attrs");
+    final JsonFields fields =
+        getJsonFields(
+            jsonModel,
+            "attrs",
+            () -> {
+              final MetaJsonModelRepository forms = Beans.get(MetaJsonModelRepository.class);
+              final MetaJsonModel found = forms.findByName(jsonModel);
+              return found == null ? null : found.getFields();
+            });
+    if (fields.items == null) return null;
+    final Map<String, Object> result = updateJsonFields(fields.items);
     return checkPermissions(result, jsonModel, null);
   }
 
-  private static Map<String, Object> updateJsonFields(
-      List<MetaJsonField> records, String fieldName) {
-    final java.lang.reflect.Field[] declaredFields = MetaJsonField.class.getDeclaredFields();
-    final Mapper mapper = Mapper.of(MetaJsonField.class);
+  /**
+   * Invalidate the cached custom field definitions.
+   *
+   * <p>This is called whenever a {@link MetaJsonField} or a {@link MetaJsonModel} is changed.
+   */
+  public static void invalidateJsonFields() {
+    JSON_FIELDS_VERSION.incrementAndGet();
+    JSON_FIELDS.invalidateAll();
+  }
+
+  private static JsonFields getJsonFields(
+      String key, String fieldName, Supplier<List<MetaJsonField>> loader) {
+    final String cacheKey = tenantKey(key);
+    final long version = JSON_FIELDS_VERSION.get();
+    final JsonFields cached = JSON_FIELDS.getIfPresent(cacheKey);
+    if (cached != null && cached.version == version) {
+      return cached;
+    }
+    final List<MetaJsonField> records = loader.get();
+    final JsonFields fields =
+        new JsonFields(version, records == null ? null : compileJsonFields(records, fieldName));
+    JSON_FIELDS.put(cacheKey, fields);
+    return fields;
+  }
+
+  private static Map<String, Object> updateJsonFields(List<JsonField> items) {
     final Map<String, Object> fields = new LinkedHashMap<>();
-    final List<MetaJsonField> jsonFields = new ArrayList<>(records);
     final User user = AuthUtils.getUser();
 
+    Set<Long> roles = null;
     ScriptHelper scriptHelper = null;
 
-    jsonFields.sort(
-        (a, b) -> {
-          int x = a.getSequence() == null ? 0 : a.getSequence();
-          int y = b.getSequence() == null ? 0 : b.getSequence();
-          return Integer.compare(x, y);
-        });
-
-    for (MetaJsonField record : jsonFields) {
-      final Map<String, Object> attrs = new HashMap<>();
-      final String name = record.getName();
+    for (JsonField item : items) {
 
       // check permissions
-      if (record.getRoles() != null && !record.getRoles().isEmpty()) {
-        final Set<Role> roles = new HashSet<>();
-        if (user.getRoles() != null) {
-          roles.addAll(user.getRoles());
-        }
-        if (user.getGroup() != null && user.getGroup().getRoles() != null) {
-          roles.addAll(user.getGroup().getRoles());
+      if (!item.roles.isEmpty()) {
+        if (roles == null) {
+          roles = getRoleIds(user);
         }
-        if (Collections.disjoint(roles, record.getRoles())) {
+        if (Collections.disjoint(roles, item.roles)) {
           continue;
         }
       }
 
       // check server condition
-      if (StringUtils.notBlank(record.getIncludeIf())) {
+      if (item.includeIf != null) {
         if (scriptHelper == null) {
           scriptHelper = new CompositeScriptHelper(null);
         }
-        if (scriptHelper == null || !scriptHelper.test(record.getIncludeIf())) {
+        if (!scriptHelper.test(item.includeIf)) {
           continue;
         }
       }
 
+      final Map<String, Object> attrs = new HashMap<>(item.attrs);
+
+      // localized title
+      attrs.put("title", I18n.get(item.title));
+
+      // auto title
+      if (item.autoTitle != null) {
+        attrs.put("autoTitle", I18n.get(item.autoTitle));
+      }
+
+      if (item.selection != null) {
+        attrs.put("selectionList", getSelectionList(item.selection));
+      }
+
+      if (item.enumType != null) {
+        attrs.put("selectionList", getSelectionList(item.enumType));
+      }
+
+      fields.put(item.name, attrs);
+    }
+    return fields;
+  }
+
+  private static Set<Long> getRoleIds(User user) {
+    final Set<Long> roles = new HashSet<>();
+    if (user == null) {
+      return roles;
+    }
+    if (user.getRoles() != null) {
+      user.getRoles().forEach(role -> roles.add(role.getId()));
+    }
+    if (user.getGroup() != null && user.getGroup().getRoles() != null) {
+      user.getGroup().getRoles().forEach(role -> roles.add(role.getId()));
+    }
+    return roles;
+  }
+
+  private static List<JsonField> compileJsonFields(
+      List<MetaJsonField> records, String fieldName) {
+    final java.lang.reflect.Field[] declaredFields = MetaJsonField.class.getDeclaredFields();
+    final Mapper mapper = Mapper.of(MetaJsonField.class);
+    final List<JsonField> fields = new ArrayList<>();
+    final List<MetaJsonField> jsonFields = new ArrayList<>(records);
+
+    jsonFields.sort(
+        (a, b) -> {
+          int x = a.getSequence() == null ? 0 : a.getSequence();
+          int y = b.getSequence() == null ? 0 : b.getSequence();
+          return Integer.compare(x, y);
+        });
+
+    for (MetaJsonField record : jsonFields) {
+      final Map<String, Object> attrs = new HashMap<>();
+      final String name = record.getName();
+
       for (java.lang.reflect.Field field : declaredFields) {
         final Property prop = mapper.getProperty(field.getName());
         if (prop == null || prop.isPrimary() || prop.isReference() || prop.isCollection()) {
@@ -366,16 +532,13 @@ public final class MetaStore {
         attrs.put(prop.getName(), value);
       }
 
-      String title = record.getTitle();
-
-      // localized title
-      attrs.put("title", I18n.get(title));
+      final String title = record.getTitle();
 
-      // auto title
+      // auto title, localized per request
+      String autoTitle = null;
       if (StringUtils.isBlank(title)) {
         String last = name.substring(name.lastIndexOf('.') + 1);
-        title = I18n.get(Inflector.getInstance().humanize(last));
-        attrs.put("autoTitle", title);
+        autoTitle = Inflector.getInstance().humanize(last);
       }
 
       String type = record.getType() == null ? "" : record.getType();
@@ -425,13 +588,10 @@ public final class MetaStore {
         }
       }
 
-      if (StringUtils.notBlank(record.getSelection())) {
-        attrs.put("selectionList", getSelectionList(record.getSelection()));
-      }
-
+      Class<?> enumType = null;
       if (StringUtils.notBlank(record.getEnumType())) {
         try {
-          attrs.put("selectionList", getSelectionList(Class.forName(record.getEnumType())));
+          enumType = Class.forName(record.getEnumType());
         } catch (ClassNotFoundException e) {
           log.error("No such enum type found: {}", record.getEnumType());
         }
@@ -443,9 +603,23 @@ public final class MetaStore {
         attrs.put("jsonType", type);
       }
 
-      fields.put(record.getName(), attrs);
+      final Set<Long> roles = new HashSet<>();
+      if (record.getRoles() != null) {
+        record.getRoles().forEach(role -> roles.add(role.getId()));
+      }
+
+      fields.add(
+          new JsonField(
+              name,
+              title,
+              autoTitle,
+              StringUtils.notBlank(record.getSelection()) ? record.getSelection() : null,
+              enumType,
+              StringUtils.notBlank(record.getIncludeIf()) ? record.getIncludeIf() : null,
+              roles,
+              attrs));
     }
-    return fields;
+    return Collections.unmodifiableList(fields);
   }
 
   public static List<Selection.Option> getSelectionList(Class<?> enumType) {
@@ -526,28 +700,12 @@ public final class MetaStore {
       return null;
     }
 
-    final Map<String, Selection.Option> all = buildSelectionMap(selection);
-    if (all == null) {
+    final SelectionItems all = findSelection(selection);
+    if (all == NO_SELECTION) {
       return null;
     }
 
-    final List<Selection.Option> values = new ArrayList<>(all.values());
-    Collections.sort(
-        values,
-        new Comparator<Selection.Option>() {
-          @Override
-          public int compare(Selection.Option o1, Selection.Option o2) {
-            Integer n = o1.getOrder();
-            Integer m = o2.getOrder();
-
-            if (n == null) n = 0;
-            if (m == null) m = 0;
-
-            return Integer.compare(n, m);
-          }
-        });
-
-    return values;
+    return all.sorted;
   }
 
   public static Selection.Option getSelectionItem(String selection, String value) {
@@ -555,15 +713,23 @@ public final class MetaStore {
       return null;
     }
 
-    final Map<String, Selection.Option> all = buildSelectionMap(selection);
-    if (all == null) {
+    final SelectionItems all = findSelection(selection);
+    if (all == NO_SELECTION) {
       return null;
     }
 
-    return all.get(value);
+    return all.items.get(value);
+  }
+
+  private static SelectionItems findSelection(String selection) {
+    try {
+      return SELECTIONS.get(tenantKey(selection), () -> buildSelection(selection));
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
   }
 
-  private static Map<String, Selection.Option> buildSelectionMap(String selection) {
+  private static SelectionItems buildSelection(String selection) {
     final List<MetaSelectItem> items =
         Query.of(MetaSelectItem.class)
             .filter("self.select.name = ?", selection)
@@ -572,7 +738,7 @@ public final class MetaStore {
             .fetch();
 
     if (items.isEmpty()) {
-      return null;
+      return NO_SELECTION;
     }
 
     final Map<String, Selection.Option> all = new LinkedHashMap<>();
@@ -585,7 +751,7 @@ public final class MetaStore {
       }
     }
 
-    return all;
+    return new SelectionItems(all);
   }
 
   private static Selection.Option getSelectionItem(MetaSelectItem item) {
@@ -608,9 +774,27 @@ public final class MetaStore {
 
   public static void clear() {
     ACTIONS.invalidateAll();
+    SELECTIONS.invalidateAll();
+    invalidateJsonFields();
+    XMLViews.invalidateViews();
   }
 
   public static void invalidate(String name) {
     ACTIONS.invalidate(name);
   }
+
+  /**
+   * Invalidate the cached items of the given selection.
+   *
+   * @param selection the selection name
+   */
+  public static void invalidateSelection(String selection) {
+    SELECTIONS.invalidate(tenantKey(selection));
+  }
+
+  // meta records are stored per tenant database
+  private static String tenantKey(String key) {
+    final String tenant = TenantResolver.currentTenantIdentifier();
+    return tenant == null ? key : tenant + ":" + key;
+  }
 }
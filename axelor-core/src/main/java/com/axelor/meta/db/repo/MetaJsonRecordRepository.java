@@ -93,7 +93,7 @@ public class MetaJsonRecordRepository extends JpaRepository<MetaJsonRecord> {
    */
   public MetaJsonRecord save(Context context) {
     if (context instanceof MetaJsonContext && ((MetaJsonContext) context).record != null) {
-      return save(((MetaJsonContext) context).record);
+      return save(((MetaJsonContext) context).getRecord());
     }
     return save(context.asType(MetaJsonRecord.class));
   }
@@ -127,6 +127,12 @@ public class MetaJsonRecordRepository extends JpaRepository<MetaJsonRecord> {
       super(Resource.toMap(record), MetaJsonRecord.class);
       this.record = record;
     }
+
+    public MetaJsonRecord getRecord() {
+      // make sure pending json changes are applied to the record
+      resolveJson();
+      return record;
+    }
   }
 
   public static class MetaJsonRecordQuery extends Query<MetaJsonRecord> {
@@ -17,7 +17,7 @@
  */
 package com.axelor.meta.loader;
 
-import com.axelor.db.JPA;
+import com.axelor.db.BatchTransactionExecutor;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -111,13 +111,18 @@ abstract class AbstractLoader {
   }
 
   protected void runResolveTasks() {
-    if (resolveTasks.isEmpty()) {
-      return;
-    }
-
     synchronized (resolveTasks) {
-      resolveTasks.parallelStream().forEach(task -> JPA.runInTransaction(task::run));
+      if (resolveTasks.isEmpty()) {
+        return;
+      }
+      // the tasks consume the unresolved keys, so they can't be run again as part of a batch
+      final BatchTransactionExecutor executor = new BatchTransactionExecutor(1);
+      resolveTasks.forEach(executor::add);
       resolveTasks.clear();
+      final List<BatchTransactionExecutor.Failure> failures = executor.run();
+      if (!failures.isEmpty()) {
+        throw failures.get(0).getError();
+      }
     }
   }
 
@@ -73,6 +73,8 @@ class DataLoader extends AbstractLoader {
   private void importCsv(File config) {
     File data = FileUtils.getFile(config.getParentFile(), INPUT_DIR_NAME);
     CSVImporter importer = new CSVImporter(config.getAbsolutePath(), data.getAbsolutePath(), null);
+    // module data files may refer to the records of the same file
+    importer.setParallelism(1);
     importer.run();
   }
 
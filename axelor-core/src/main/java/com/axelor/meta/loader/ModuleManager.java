@@ -17,6 +17,8 @@
  */
 package com.axelor.meta.loader;
 
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
 import com.axelor.auth.AuditableRunner;
 import com.axelor.auth.AuthService;
 import com.axelor.auth.db.AuditableModel;
@@ -55,7 +57,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -78,12 +84,20 @@ public class ModuleManager {
 
   private final DemoLoader demoLoader;
 
+  private final ModelLoader modelLoader;
+
+  private final I18nLoader i18nLoader;
+
   private final List<AbstractParallelLoader> metaLoaders;
 
   @Inject private Event<ModuleChanged> moduleChangedEvent;
 
   private static final Set<String> SKIP = new HashSet<>();
 
+  private static final String STAGE_META = "meta";
+  private static final String STAGE_DATA = "data";
+  private static final String STAGE_DEMO = "demo";
+
   private static long lastRestored;
   private final Set<Path> pathsToRestore = new HashSet<>();
 
@@ -107,7 +121,9 @@ public class ModuleManager {
     this.viewLoader = viewLoader;
     this.dataLoader = dataLoader;
     this.demoLoader = demoLoader;
-    metaLoaders = ImmutableList.of(modelLoader, viewLoader, i18nLoader);
+    this.modelLoader = modelLoader;
+    this.i18nLoader = i18nLoader;
+    metaLoaders = ImmutableList.of(viewLoader, i18nLoader);
   }
 
   public void initialize(final boolean update, final boolean withDemo) {
@@ -117,19 +133,16 @@ public class ModuleManager {
       Beans.get(AuditableRunner.class)
           .run(
               () -> {
-                final List<Module> newlyInstalledModules = new ArrayList<>();
+                final List<Module> newlyInstalledModules =
+                    resolver.all().stream()
+                        .filter(m -> !m.isRemovable() || m.isInstalled())
+                        .peek(m -> log.info("Loading package {}...", m.getName()))
+                        .filter(m -> !m.isRemovable() || m.isPending())
+                        .filter(m -> canInstall(m, update, false))
+                        .collect(Collectors.toList());
 
                 // install modules
-                resolver.all().stream()
-                    .filter(m -> !m.isRemovable() || m.isInstalled())
-                    .peek(m -> log.info("Loading package {}...", m.getName()))
-                    .filter(m -> !m.isRemovable() || m.isPending())
-                    .forEach(
-                        m -> {
-                          if (install(m.getName(), update, withDemo, false)) {
-                            newlyInstalledModules.add(m);
-                          }
-                        });
+                install(newlyInstalledModules, update, withDemo);
 
                 // second iteration ensures proper view sequence
                 newlyInstalledModules.forEach(m -> viewLoader.doLast(m, update));
@@ -168,12 +181,12 @@ public class ModuleManager {
             .map(Module::getName)
             .forEach(names::add);
       }
-      resolver.all().stream()
-          .filter(m -> names.contains(m.getName()))
-          .forEach(m -> install(m, true, withDemo));
-      resolver.all().stream()
-          .filter(m -> names.contains(m.getName()))
-          .forEach(m -> viewLoader.doLast(m, true));
+      final List<Module> moduleList =
+          resolver.all().stream()
+              .filter(m -> names.contains(m.getName()))
+              .collect(Collectors.toList());
+      installModules(moduleList, true, withDemo);
+      moduleList.forEach(m -> viewLoader.doLast(m, true));
     } finally {
       this.doCleanUp();
     }
@@ -187,7 +200,7 @@ public class ModuleManager {
 
     try {
       pathsToRestore.addAll(paths);
-      moduleList.forEach(m -> install(m, true, false));
+      installModules(moduleList, true, false);
       moduleList.forEach(m -> viewLoader.doLast(m, true));
     } finally {
       pathsToRestore.clear();
@@ -234,9 +247,11 @@ public class ModuleManager {
 
   public void install(String moduleName, boolean update, boolean withDemo) {
     try {
-      resolver.resolve(moduleName).stream()
-          .map(Module::getName)
-          .forEach(name -> install(name, update, withDemo, true));
+      final List<Module> moduleList =
+          resolver.resolve(moduleName).stream()
+              .filter(m -> canInstall(m, update, true))
+              .collect(Collectors.toList());
+      install(moduleList, update, withDemo);
       resolver.resolve(moduleName).stream().forEach(m -> viewLoader.doLast(m, update));
     } finally {
       this.doCleanUp();
@@ -273,9 +288,8 @@ public class ModuleManager {
     updateLastRestored();
   }
 
-  private boolean install(String moduleName, boolean update, boolean withDemo, boolean force) {
-    final Module module = resolver.get(moduleName);
-    final MetaModule metaModule = modules.findByName(moduleName);
+  private boolean canInstall(Module module, boolean update, boolean force) {
+    final MetaModule metaModule = modules.findByName(module.getName());
     if (metaModule == null) {
       return false;
     }
@@ -285,15 +299,85 @@ public class ModuleManager {
     if (module.isInstalled() && !(update || module.isUpgradable() || module.isPending())) {
       return false;
     }
-    install(module, update, withDemo);
-
-    moduleChangedEvent
-        .select(NamedLiteral.of(moduleName))
-        .fire(new ModuleChanged(moduleName, module.isInstalled()));
     return true;
   }
 
-  private void install(Module module, boolean update, boolean withDemo) {
+  private void install(List<Module> moduleList, boolean update, boolean withDemo) {
+    installModules(
+        moduleList,
+        update,
+        withDemo,
+        module -> {
+          synchronized (moduleChangedEvent) {
+            moduleChangedEvent
+                .select(NamedLiteral.of(module.getName()))
+                .fire(new ModuleChanged(module.getName(), module.isInstalled()));
+          }
+        });
+  }
+
+  private void installModules(List<Module> moduleList, boolean update, boolean withDemo) {
+    installModules(moduleList, update, withDemo, module -> {});
+  }
+
+  private void installModules(
+      List<Module> moduleList, boolean update, boolean withDemo, Consumer<Module> onInstalled) {
+    final InstallStats stats = new InstallStats();
+    final ModuleScheduler scheduler = new ModuleScheduler(getParallelism());
+    final long start = System.currentTimeMillis();
+
+    if (scheduler.getParallelism() == 1) {
+      // keep the install order, each module is installed completely before the next one
+      moduleList.forEach(
+          m -> {
+            install(m, update, withDemo, metaLoaders, true, stats);
+            onInstalled.accept(m);
+          });
+    } else {
+      // models and views are loaded first, one module at a time in dependency order: modules
+      // which don't depend on each other can extend the same entities, and the view loader
+      // shares its duplicate checks and pending references across the modules
+      moduleList.stream()
+          .filter(m -> !SKIP.contains(m.getName()))
+          .forEach(
+              m ->
+                  stats.time(
+                      m,
+                      STAGE_META,
+                      () -> installMeta(m, update, ImmutableList.of(viewLoader), true)));
+
+      final AuditableRunner runner = Beans.get(AuditableRunner.class);
+      scheduler.run(
+          moduleList,
+          m ->
+              runner.run(
+                  () -> {
+                    install(m, update, withDemo, ImmutableList.of(i18nLoader), false, stats);
+                    onInstalled.accept(m);
+                  }));
+    }
+
+    if (!moduleList.isEmpty()) {
+      log.info(
+          "Installed {} package(s) in {} ms with parallelism {} ({})",
+          moduleList.size(),
+          System.currentTimeMillis() - start,
+          scheduler.getParallelism(),
+          stats);
+    }
+  }
+
+  private static int getParallelism() {
+    return AppSettings.get().getInt(AvailableAppSettings.MODULES_INSTALL_PARALLELISM, 1);
+  }
+
+  private void install(
+      Module module,
+      boolean update,
+      boolean withDemo,
+      List<AbstractParallelLoader> loaders,
+      boolean withModels,
+      InstallStats stats) {
     if (SKIP.contains(module.getName())) {
       return;
     }
@@ -306,26 +390,31 @@ public class ModuleManager {
     log.info(message + module + "...");
 
     // load meta
-    installMeta(module, update);
+    stats.time(module, STAGE_META, () -> installMeta(module, update, loaders, withModels));
 
     // load data (runs in it's own transaction)
     if (loadData) {
-      dataLoader.load(module, update);
+      stats.time(module, STAGE_DATA, () -> dataLoader.load(module, update));
       if (withDemo) {
-        demoLoader.load(module, update);
+        stats.time(module, STAGE_DEMO, () -> demoLoader.load(module, update));
       }
     }
 
     // finally update install state
     updateState(module);
+
+    log.info("Package {} done in {}", module.getName(), stats.toString(module));
   }
 
-  private void installMeta(Module module, boolean update) {
+  private void installMeta(
+      Module module, boolean update, List<AbstractParallelLoader> loaders, boolean withModels) {
     final ParallelTransactionExecutor transactionExecutor = new ParallelTransactionExecutor();
-    metaLoaders.forEach(
-        metaLoader ->
-            metaLoader.feedTransactionExecutor(
-                transactionExecutor, module, update, pathsToRestore));
+    if (withModels) {
+      modelLoader.feedTransactionExecutor(transactionExecutor, module, update, pathsToRestore);
+    }
+    loaders.forEach(
+        loader ->
+            loader.feedTransactionExecutor(transactionExecutor, module, update, pathsToRestore));
     transactionExecutor.run();
   }
 
@@ -538,4 +627,40 @@ public class ModuleManager {
       }
     }
   }
+
+  /** Time spent on each install stage, per module and in total. */
+  private static final class InstallStats {
+
+    private final Map<String, Map<String, Long>> times = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> totals = new ConcurrentHashMap<>();
+
+    void time(Module module, String stage, Runnable task) {
+      final long start = System.currentTimeMillis();
+      try {
+        task.run();
+      } finally {
+        final long time = System.currentTimeMillis() - start;
+        times
+            .computeIfAbsent(module.getName(), key -> new ConcurrentHashMap<>())
+            .merge(stage, time, Long::sum);
+        totals.computeIfAbsent(stage, key -> new LongAdder()).add(time);
+      }
+    }
+
+    private static String format(Map<String, ?> values) {
+      return Stream.of(STAGE_META, STAGE_DATA, STAGE_DEMO)
+          .filter(values::containsKey)
+          .map(stage -> stage + ": " + values.get(stage) + " ms")
+          .collect(Collectors.joining(", "));
+    }
+
+    String toString(Module module) {
+      return format(times.getOrDefault(module.getName(), Collections.emptyMap()));
+    }
+
+    @Override
+    public String toString() {
+      return format(totals);
+    }
+  }
 }
@@ -0,0 +1,168 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.loader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs a task for each of the given modules in dependency order.
+ *
+ * <p>A module is processed once all the modules it depends on (directly or through modules not
+ * part of the given list) are processed, so the modules which don't depend on each other are
+ * processed concurrently, up to the given parallelism. With a parallelism of 1, the modules are
+ * processed one by one in the given order.
+ *
+ * <p>If a task fails, no more module is scheduled and the first error is thrown once the running
+ * tasks are completed.
+ */
+final class ModuleScheduler {
+
+  private final int parallelism;
+
+  public ModuleScheduler(int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void run(List<Module> modules, Consumer<Module> task) {
+    if (parallelism == 1 || modules.size() < 2) {
+      modules.forEach(task);
+      return;
+    }
+
+    final Map<Module, Set<Module>> waiting = new HashMap<>();
+    final Map<Module, List<Module>> dependents = new HashMap<>();
+    final Set<Module> all = new HashSet<>(modules);
+
+    for (Module module : modules) {
+      final Set<Module> depends = findDepends(module, all);
+      waiting.put(module, depends);
+      for (Module depend : depends) {
+        dependents.computeIfAbsent(depend, key -> new ArrayList<>()).add(module);
+      }
+    }
+
+    final AtomicInteger counter = new AtomicInteger();
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            runnable -> new Thread(runnable, "module-installer-" + counter.incrementAndGet()));
+    final CompletionService<Module> service = new ExecutorCompletionService<>(executor);
+
+    final Set<Module> ready = new LinkedHashSet<>();
+    int running = 0;
+    RuntimeException error = null;
+
+    try {
+      for (Module module : modules) {
+        if (waiting.get(module).isEmpty()) {
+          ready.add(module);
+        }
+      }
+
+      while (!ready.isEmpty() || running > 0) {
+        if (error == null) {
+          for (Module module : ready) {
+            service.submit(() -> task.accept(module), module);
+            running++;
+          }
+        }
+        ready.clear();
+
+        if (running == 0) {
+          break;
+        }
+
+        final Module done;
+        try {
+          done = service.take().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+          running--;
+          if (error == null) {
+            error = toRuntimeException(e.getCause());
+          }
+          continue;
+        }
+
+        running--;
+
+        for (Module next : dependents.getOrDefault(done, new ArrayList<>())) {
+          final Set<Module> depends = waiting.get(next);
+          depends.remove(done);
+          if (depends.isEmpty()) {
+            ready.add(next);
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /** Find the dependencies of the given module among the given modules. */
+  private static Set<Module> findDepends(Module module, Set<Module> all) {
+    final Set<Module> found = new HashSet<>();
+    final Set<Module> visited = new HashSet<>();
+    final List<Module> stack = new ArrayList<>(module.getDepends());
+    while (!stack.isEmpty()) {
+      final Module depend = stack.remove(stack.size() - 1);
+      if (!visited.add(depend)) {
+        continue;
+      }
+      if (all.contains(depend)) {
+        found.add(depend);
+      } else {
+        stack.addAll(depend.getDepends());
+      }
+    }
+    return found;
+  }
+
+  private static RuntimeException toRuntimeException(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IllegalStateException(cause);
+  }
+}
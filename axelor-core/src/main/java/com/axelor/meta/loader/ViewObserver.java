@@ -17,6 +17,8 @@
  */
 package com.axelor.meta.loader;
 
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
 import com.axelor.db.JPA;
 import com.axelor.event.Observes;
 import com.axelor.events.FeatureChanged;
@@ -24,6 +26,7 @@ import com.axelor.events.ModuleChanged;
 import com.axelor.events.PostRequest;
 import com.axelor.events.PreRequest;
 import com.axelor.events.RequestEvent;
+import com.axelor.events.StartupEvent;
 import com.axelor.events.qualifiers.EntityType;
 import com.axelor.meta.db.MetaView;
 import com.axelor.meta.db.repo.MetaViewRepository;
@@ -31,6 +34,7 @@ import com.axelor.rpc.RequestUtils;
 import com.google.inject.Singleton;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -50,6 +54,14 @@ public class ViewObserver {
     this.finalViewGenerator = finalViewGenerator;
   }
 
+  void onStartup(@Observes StartupEvent event) {
+    final List<String> names = AppSettings.get().getList(AvailableAppSettings.VIEW_CACHE_PRELOAD);
+    if (names.isEmpty()) {
+      return;
+    }
+    JPA.runInTransaction(() -> XMLViews.preloadViews(names));
+  }
+
   void onModuleChanged(@Observes ModuleChanged event) {
     finalViewGenerator.generate(metaViewRepo.findByDependentModule(event.getModuleName()));
   }
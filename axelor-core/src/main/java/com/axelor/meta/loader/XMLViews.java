@@ -29,6 +29,7 @@ import com.axelor.common.StringUtils;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.axelor.db.internal.DBHelper;
+import com.axelor.db.tenants.TenantResolver;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaAction;
 import com.axelor.meta.db.MetaModel;
@@ -47,6 +48,7 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -78,6 +80,7 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -171,6 +174,9 @@ public class XMLViews {
                 }
               });
 
+  private static final Cache<List<Object>, CompiledView> VIEW_CACHE =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
   private static AppConfig appConfigProvider;
 
   static {
@@ -491,6 +497,9 @@ public class XMLViews {
    *   <li>find view matching given params but have no groups
    * </ol>
    *
+   * <p>Unless it is a custom view, the returned view is cached and shared by all the callers, so it
+   * should not be modified.
+   *
    * @param name find by name
    * @param type find by type (name or model should be provided)
    * @param model find by model (name or type should be provided)
@@ -499,13 +508,11 @@ public class XMLViews {
    */
   public static AbstractView findView(String name, String type, String model, String module) {
 
-    final MetaViewRepository views = Beans.get(MetaViewRepository.class);
     final MetaViewCustomRepository customViews = Beans.get(MetaViewCustomRepository.class);
 
     final User user = AuthUtils.getUser();
     final Long group = user != null && user.getGroup() != null ? user.getGroup().getId() : null;
 
-    MetaView view = null;
     MetaViewCustom custom = null;
 
     // find personalized view
@@ -516,6 +523,51 @@ public class XMLViews {
     // make sure hot updates are applied
     applyHotUpdates();
 
+    final CompiledView view = findCompiledView(name, type, model, module, group);
+
+    if (StringUtils.notBlank(name) && !view.isFound()) {
+      log.error("No such view found: {}", name);
+      return null;
+    }
+
+    if (custom == null) {
+      return view.getView();
+    }
+
+    final AbstractView xmlView;
+    try {
+      xmlView = unmarshal(custom.getXml()).getViews().get(0);
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      return null;
+    }
+    if (view.isFound()) {
+      view.apply(xmlView);
+    }
+    xmlView.setCustomViewId(custom.getId());
+    xmlView.setCustomViewShared(custom.getShared());
+    return xmlView;
+  }
+
+  private static CompiledView findCompiledView(
+      String name, String type, String model, String module, Long group) {
+    // views are stored per tenant database
+    final List<Object> key =
+        Arrays.asList(TenantResolver.currentTenantIdentifier(), name, type, model, module, group);
+    try {
+      return VIEW_CACHE.get(key, () -> compileView(name, type, model, module, group));
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private static CompiledView compileView(
+      String name, String type, String model, String module, Long group) {
+
+    final MetaViewRepository views = Beans.get(MetaViewRepository.class);
+
+    MetaView view = null;
+
     // first find by name
     if (StringUtils.notBlank(name)) {
       // with group
@@ -527,8 +579,7 @@ public class XMLViews {
       view = view == null ? findMetaView(views, name, null, null, module, null) : view;
 
       if (view == null) {
-        log.error("No such view found: {}", name);
-        return null;
+        return CompiledView.NOT_FOUND;
       }
     }
 
@@ -538,49 +589,90 @@ public class XMLViews {
       view = view == null ? findMetaView(views, null, type, model, module, null) : view;
     }
 
-    final AbstractView xmlView;
-    final MetaModel metaModel;
-    try {
-      final String xml;
-
-      if (custom == null) {
-        if (view == null) {
-          return null;
-        }
-
-        xml = view.getXml();
-      } else {
-        xml = custom.getXml();
+    if (view == null) {
+      return CompiledView.NOT_FOUND;
+    }
+
+    Long modelId = null;
+    if (view.getModel() != null) {
+      final MetaModel metaModel =
+          Beans.get(MetaModelRepository.class)
+              .all()
+              .filter("self.fullName = :name")
+              .bind("name", view.getModel())
+              .cacheable()
+              .autoFlush(false)
+              .fetchOne();
+      if (metaModel != null) {
+        modelId = metaModel.getId();
       }
+    }
 
-      final ObjectViews objectViews = unmarshal(xml);
-      xmlView = objectViews.getViews().get(0);
+    AbstractView xmlView = null;
+    try {
+      xmlView = unmarshal(view.getXml()).getViews().get(0);
     } catch (Exception e) {
       log.error(e.getMessage(), e);
-      return null;
     }
-    if (view != null) {
-      xmlView.setViewId(view.getId());
-      xmlView.setHelpLink(view.getHelpLink());
-      if (view.getModel() != null) {
-        metaModel =
-            Beans.get(MetaModelRepository.class)
-                .all()
-                .filter("self.fullName = :name")
-                .bind("name", view.getModel())
-                .cacheable()
-                .autoFlush(false)
-                .fetchOne();
-        if (metaModel != null) {
-          xmlView.setModelId(metaModel.getId());
-        }
+
+    return new CompiledView(view.getId(), view.getHelpLink(), modelId, xmlView);
+  }
+
+  /**
+   * Pre-load the compiled views of the given names, for the users without group.
+   *
+   * @param names the view names
+   */
+  public static void preloadViews(Collection<String> names) {
+    for (String name : names) {
+      findCompiledView(name, null, null, null, null);
+    }
+  }
+
+  /** Invalidate all the compiled views. */
+  public static void invalidateViews() {
+    VIEW_CACHE.invalidateAll();
+  }
+
+  /**
+   * The resolved and unmarshalled view of a (name, type, model, module, group) lookup.
+   *
+   * <p>The view instance is shared by all the callers, so it should not be modified.
+   */
+  private static final class CompiledView {
+
+    static final CompiledView NOT_FOUND = new CompiledView(null, null, null, null);
+
+    private final Long viewId;
+    private final String helpLink;
+    private final Long modelId;
+    private final AbstractView view;
+
+    CompiledView(Long viewId, String helpLink, Long modelId, AbstractView view) {
+      this.viewId = viewId;
+      this.helpLink = helpLink;
+      this.modelId = modelId;
+      this.view = view;
+      if (view != null) {
+        apply(view);
       }
     }
-    if (custom != null) {
-      xmlView.setCustomViewId(custom.getId());
-      xmlView.setCustomViewShared(custom.getShared());
+
+    boolean isFound() {
+      return viewId != null;
+    }
+
+    AbstractView getView() {
+      return view;
+    }
+
+    void apply(AbstractView xmlView) {
+      xmlView.setViewId(viewId);
+      xmlView.setHelpLink(helpLink);
+      if (modelId != null) {
+        xmlView.setModelId(modelId);
+      }
     }
-    return xmlView;
   }
 
   public static Action findAction(String name) {
@@ -60,10 +60,10 @@ public class FormInclude extends AbstractWidget {
   @JsonInclude
   public AbstractView getView() {
     AbstractView view = XMLViews.findView(name, null, null, module);
+    // the found view is shared, its owner is not set
     if (view == owner) {
       return null;
     }
-    view.setOwner(owner);
     return view;
   }
 }
@@ -254,12 +254,6 @@ public class Search extends AbstractView {
 
     @JsonIgnore @XmlElement private SearchSelectWhere where;
 
-    private transient String queryString;
-
-    public String getQueryString() {
-      return queryString;
-    }
-
     public String getModel() {
       return model;
     }
@@ -347,9 +341,9 @@ public class Search extends AbstractView {
         Joiner.on(", ").appendTo(builder, orders);
       }
 
-      queryString = builder.toString();
+      final String qs = builder.toString();
 
-      Query query = JPA.em().createQuery(queryString);
+      Query query = JPA.em().createQuery(qs);
       QueryBinder.of(query).bind(binding);
 
       return query;
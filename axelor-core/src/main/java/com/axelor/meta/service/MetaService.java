@@ -598,7 +598,9 @@ public class MetaService {
       }
       List<?> items = Lists.newArrayList();
 
-      LOG.debug("Query : {}", select.getQueryString());
+      if (query != null && LOG.isDebugEnabled()) {
+        LOG.debug("Query : {}", query.unwrap(org.hibernate.query.Query.class).getQueryString());
+      }
 
       if (query != null) {
         query.setFirstResult(request.getOffset());
@@ -29,9 +29,12 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 import javax.script.SimpleBindings;
 
 /**
@@ -157,6 +160,23 @@ public class Context extends SimpleBindings {
     return handler;
   }
 
+  /**
+   * Defer the serialization of the given json field until its value is accessed.
+   *
+   * @param name the json field name
+   * @param value the json value supplier
+   */
+  void deferJson(String name, Supplier<String> value) {
+    getContextHandler().defer(name, value);
+  }
+
+  /** Serialize the pending changes of the json fields to the context entity. */
+  protected void resolveJson() {
+    if (handler != null) {
+      handler.resolveAll();
+    }
+  }
+
   protected Object getTarget() {
     return getContextHandler().getProxy();
   }
@@ -275,6 +295,24 @@ public class Context extends SimpleBindings {
     return super.put(name, value);
   }
 
+  @Override
+  public Set<String> keySet() {
+    resolveJson();
+    return super.keySet();
+  }
+
+  @Override
+  public Collection<Object> values() {
+    resolveJson();
+    return super.values();
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    resolveJson();
+    return super.entrySet();
+  }
+
   @Override
   public boolean containsKey(Object key) {
     final String name = checkKey(key);
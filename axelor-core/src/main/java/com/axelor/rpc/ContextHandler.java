@@ -20,6 +20,7 @@ package com.axelor.rpc;
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
+import com.axelor.db.internal.EntityBatchLoader;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.meta.db.MetaJsonRecord;
@@ -29,6 +30,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -38,6 +40,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
 import net.bytebuddy.implementation.bind.annotation.Origin;
@@ -78,6 +81,8 @@ public class ContextHandler<T> {
 
   private JsonContext jsonContext;
 
+  private final Map<String, Supplier<?>> deferred = new HashMap<>();
+
   private boolean searched;
 
   ContextHandler(Class<T> beanClass, Map<String, Object> values) {
@@ -100,6 +105,32 @@ public class ContextHandler<T> {
     }
   }
 
+  /**
+   * Defer the computation of the value of the given field until it's accessed.
+   *
+   * <p>This is used by {@link JsonContext} so that the json values are serialized only once, when
+   * the json field is actually read.
+   *
+   * @param name the field name
+   * @param value the value supplier
+   */
+  void defer(String name, Supplier<?> value) {
+    deferred.put(name, value);
+  }
+
+  private void resolve(String name) {
+    final Supplier<?> value = deferred.remove(name);
+    if (value != null) {
+      beanMapper.set(proxy, name, value.get());
+    }
+  }
+
+  void resolveAll() {
+    if (!deferred.isEmpty()) {
+      new ArrayList<>(deferred.keySet()).forEach(this::resolve);
+    }
+  }
+
   private T getManagedEntity() {
     if (searched) {
       return managedEntity;
@@ -174,6 +205,8 @@ public class ContextHandler<T> {
       return value;
     }
     if (property.isCollection() && value instanceof Collection) {
+      // load the referenced records in batches first
+      EntityBatchLoader.load(property.getTarget(), (Collection<?>) value);
       value =
           ((Collection<?>) value)
               .stream().map(item -> createOrFind(property, item)).collect(Collectors.toList());
@@ -207,6 +240,7 @@ public class ContextHandler<T> {
 
   private Object interceptComputeAccess(Callable<?> superCall, Method method, Object[] args)
       throws Exception {
+    resolveAll();
     final Property computed = beanMapper.getProperty(method);
     final Set<String> depends;
     if (computed == null
@@ -286,6 +320,13 @@ public class ContextHandler<T> {
     final String fieldName = property.getName();
     final Object unmanaged = getUnmanagedEntity();
 
+    // the setter overrides the deferred value, the getter resolves it
+    if (args.length == 1) {
+      deferred.remove(fieldName);
+    } else {
+      resolve(fieldName);
+    }
+
     // in case of setter, update context map
     final Object oldValue = args.length == 1 ? values.put(fieldName, args[0]) : null;
 
@@ -353,6 +394,7 @@ public class ContextHandler<T> {
 
   @RuntimeType
   public Object getContextEntity() {
+    resolveAll();
     final Object bean = getUnmanagedEntity();
     final Object managed = getManagedEntity();
 
@@ -33,31 +33,43 @@ import com.axelor.db.mapper.Property;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.persistence.Entity;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
 import net.bytebuddy.dynamic.DynamicType.Builder;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
 import net.bytebuddy.implementation.InvocationHandlerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /** Factory to create {@link ContextHandler}. */
 public final class ContextHandlerFactory {
 
+  private static final Logger log = LoggerFactory.getLogger(ContextHandlerFactory.class);
+
   private static final ByteBuddy BYTE_BUDDY = new ByteBuddy();
 
   private static final String FIELD_HANDLER = "contextHandler";
 
   private static final String COMPUTE_METHOD_PREFIX = "compute";
 
+  // proxy classes are generated once and kept for the lifetime of the application
   private static final LoadingCache<Class<?>, Class<?>> PROXY_CACHE =
       CacheBuilder.newBuilder()
-          .weakKeys()
-          .maximumSize(500)
           .build(
               new CacheLoader<Class<?>, Class<?>>() {
                 public Class<?> load(Class<?> key) throws Exception {
-                  return makeProxy(key);
+                  return makeProxy(key).load(key.getClassLoader()).getLoaded();
                 }
               });
 
@@ -69,13 +81,69 @@ public final class ContextHandlerFactory {
   }
 
   /**
-   * Asynchronously refresh proxy cache.
+   * Generate the missing proxy classes of the given entity classes.
+   *
+   * <p>The proxy classes are generated in parallel and loaded together in a dedicated class loader
+   * per entity class loader, so first use of an entity context doesn't wait for class generation.
    *
    * @param models the entity classes for which proxy classes are required
+   * @return the number of generated proxy classes
    */
-  public static void refresh(Collection<Class<?>> models) {
-    PROXY_CACHE.invalidateAll();
-    models.parallelStream().filter(ContextHandlerFactory::isEntity).forEach(PROXY_CACHE::refresh);
+  public static int refresh(Collection<Class<?>> models) {
+    final long start = System.currentTimeMillis();
+    final long metaspace = getMetaspaceUsed();
+
+    final Map<Class<?>, DynamicType.Unloaded<?>> types =
+        models.parallelStream()
+            .filter(ContextHandlerFactory::isEntity)
+            .filter(model -> PROXY_CACHE.getIfPresent(model) == null)
+            .distinct()
+            .collect(Collectors.toConcurrentMap(Function.identity(), model -> makeProxy(model)));
+
+    if (types.isEmpty()) {
+      return 0;
+    }
+
+    final Map<ClassLoader, List<Class<?>>> groups =
+        types.keySet().stream().collect(Collectors.groupingBy(Class::getClassLoader));
+
+    groups.forEach((loader, beans) -> load(loader, beans, types));
+
+    log.info(
+        "Context proxies generated: {} in {} ms, metaspace used: {} KB",
+        types.size(),
+        System.currentTimeMillis() - start,
+        (getMetaspaceUsed() - metaspace) / 1024);
+
+    return types.size();
+  }
+
+  private static void load(
+      ClassLoader loader, List<Class<?>> beans, Map<Class<?>, DynamicType.Unloaded<?>> types) {
+    final DynamicType.Unloaded<?> first = types.get(beans.get(0));
+    final List<DynamicType> others = new ArrayList<>();
+    for (Class<?> bean : beans.subList(1, beans.size())) {
+      others.add(types.get(bean));
+    }
+
+    final DynamicType.Loaded<?> result =
+        first
+            .include(others.toArray(new DynamicType[] {}))
+            .load(loader, ClassLoadingStrategy.Default.WRAPPER);
+
+    final Map<TypeDescription, Class<?>> loaded = new HashMap<>(result.getLoadedAuxiliaryTypes());
+    loaded.put(first.getTypeDescription(), result.getLoaded());
+
+    for (Class<?> bean : beans) {
+      PROXY_CACHE.asMap().putIfAbsent(bean, loaded.get(types.get(bean).getTypeDescription()));
+    }
+  }
+
+  private static long getMetaspaceUsed() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> "Metaspace".equals(pool.getName()))
+        .mapToLong(pool -> pool.getUsage().getUsed())
+        .sum();
   }
 
   private static boolean hasJsonFields(Class<?> beanClass) {
@@ -83,7 +151,7 @@ public final class ContextHandlerFactory {
     return attrs != null && attrs.isJson();
   }
 
-  private static <T> Class<? extends T> makeProxy(final Class<T> beanClass) {
+  private static <T> DynamicType.Unloaded<T> makeProxy(final Class<T> beanClass) {
     Builder<T> builder =
         BYTE_BUDDY
             .subclass(beanClass)
@@ -111,7 +179,7 @@ public final class ContextHandlerFactory {
                               .intercept(null, method, args)));
     }
 
-    return builder.make().load(beanClass.getClassLoader()).getLoaded();
+    return builder.make();
   }
 
   public static <T> ContextHandler<T> newHandler(Class<T> beanClass, Map<String, Object> values) {
@@ -49,10 +49,8 @@ public class JsonContext extends SimpleBindings {
     public void serialize(Model value, JsonGenerator jgen, SerializerProvider provider)
         throws IOException, JsonProcessingException {
       if (value != null) {
-        final JsonSerializer<Object> serializer = provider.findValueSerializer(Map.class, null);
-        final Map<String, Object> map = Resource.toMapCompact(value);
-        map.remove("$version");
-        serializer.serialize(map, jgen, provider);
+        // same as serializing Resource.toMapCompact(value) without $version and null values
+        ToMapPlan.writeJson(value, true, 1, false, new ToMapPlan.Output(jgen, provider, false));
       }
     }
   }
@@ -130,7 +128,8 @@ public class JsonContext extends SimpleBindings {
   }
 
   private void propagate() {
-    context.put(jsonField, toJson(this));
+    // serialized once, when the json field is read or the context is saved
+    context.deferJson(jsonField, () -> toJson(this));
   }
 
   public Long getId() {
@@ -66,13 +66,12 @@ public class ObjectMapperProvider implements Provider<ObjectMapper> {
     @Override
     public void serialize(Model value, JsonGenerator jgen, SerializerProvider provider)
         throws IOException, JsonProcessingException {
-      if (value != null) {
+      if (value instanceof ContextEntity) {
         final JsonSerializer<Object> serializer = provider.findValueSerializer(Map.class, null);
-        final Map<String, Object> map =
-            value instanceof ContextEntity
-                ? ((ContextEntity) value).getContextMap()
-                : Resource.toMap(value);
-        serializer.serialize(map, jgen, provider);
+        serializer.serialize(((ContextEntity) value).getContextMap(), jgen, provider);
+      } else if (value != null) {
+        // same as serializing Resource.toMap(value), without the intermediate maps
+        ToMapPlan.writeJson(value, false, 0, true, new ToMapPlan.Output(jgen, provider, true));
       }
     }
   }
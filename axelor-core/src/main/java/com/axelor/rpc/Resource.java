@@ -21,6 +21,7 @@ import static com.axelor.common.StringUtils.isBlank;
 
 import com.axelor.app.AppSettings;
 import com.axelor.app.AvailableAppSettings;
+import com.axelor.app.internal.AppFilter;
 import com.axelor.auth.AuthService;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
@@ -35,7 +36,6 @@ import com.axelor.db.Model;
 import com.axelor.db.Query;
 import com.axelor.db.QueryBinder;
 import com.axelor.db.Repository;
-import com.axelor.db.ValueEnum;
 import com.axelor.db.hibernate.type.JsonFunction;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
@@ -54,7 +54,6 @@ import com.axelor.inject.Beans;
 import com.axelor.meta.MetaFiles;
 import com.axelor.meta.MetaPermissions;
 import com.axelor.meta.MetaStore;
-import com.axelor.meta.db.MetaAction;
 import com.axelor.meta.db.MetaJsonRecord;
 import com.axelor.meta.db.MetaTranslation;
 import com.axelor.meta.schema.views.Selection;
@@ -71,15 +70,15 @@ import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import com.google.inject.TypeLiteral;
 import com.google.inject.persist.Transactional;
+import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.reflect.Method;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.charset.Charset;
+import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -87,12 +86,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -452,10 +450,11 @@ public class Resource<T extends Model> {
     final List<Object> jsonData = new ArrayList<>();
     final boolean populate =
         request.getContext() != null && request.getContext().get("_populate") != Boolean.FALSE;
+    final Function<Object, Map<String, Object>> toMap = toMapper();
 
     for (Object item : data) {
       if (item instanceof Model) {
-        item = toMap(item);
+        item = toMap.apply(item);
       }
       if (item instanceof Map) {
         Map<String, Object> map = (Map) item;
@@ -549,6 +548,7 @@ public class Resource<T extends Model> {
 
   private static final int DEFAULT_EXPORT_MAX_SIZE = -1;
   private static final int DEFAULT_EXPORT_FETCH_SIZE = 500;
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
 
   private static final int EXPORT_MAX_SIZE =
       AppSettings.get().getInt(AvailableAppSettings.DATA_EXPORT_MAX_SIZE, DEFAULT_EXPORT_MAX_SIZE);
@@ -574,8 +574,13 @@ public class Resource<T extends Model> {
     try {
       final java.nio.file.Path tempFile = MetaFiles.createTempFile(null, ".csv");
       try (final OutputStream os = new FileOutputStream(tempFile.toFile())) {
-        try (final Writer writer = new OutputStreamWriter(os, csvCharset)) {
-          data.put("exportSize", export(request, writer));
+        try (final Writer writer =
+            new BufferedWriter(new OutputStreamWriter(os, csvCharset), EXPORT_BUFFER_SIZE)) {
+          final ExportStats stats = export(request, writer);
+          data.put("exportSize", stats.count);
+          data.put("exportTime", stats.time);
+          data.put("exportRate", stats.getRate());
+          data.put("exportPeakHeap", stats.peakHeap);
         }
       }
       data.put("fileName", tempFile.toFile().getName());
@@ -590,7 +595,7 @@ public class Resource<T extends Model> {
   }
 
   @SuppressWarnings("all")
-  private int export(Request request, Writer writer) throws IOException {
+  private ExportStats export(Request request, Writer writer) throws IOException {
 
     List<String> fields = request.getFields();
     List<String> header = new ArrayList<>();
@@ -734,66 +739,128 @@ public class Resource<T extends Model> {
 
     writer.write(Joiner.on(";").join(header));
 
-    int limit =
-        EXPORT_MAX_SIZE > 0 ? Math.min(EXPORT_FETCH_SIZE, EXPORT_MAX_SIZE) : EXPORT_FETCH_SIZE;
-    int offset = 0;
-    int count = 0;
-
-    Query<?> query = getQuery(request);
-    Query<?>.Selector selector = query.select(names.toArray(new String[0]));
-
-    List<?> data = selector.values(limit, offset);
-
-    final L10n formatter = L10n.getInstance();
-
-    while (!data.isEmpty()) {
-      for (Object item : data) {
-        List<?> row = (List<?>) item;
-        List<String> line = new ArrayList<>();
-        int index = 0;
-        for (Object value : row) {
-          if (index++ < 2) continue; // ignore first two items (id, version)
-          Object objValue = value == null ? "" : value;
-          if (selection.containsKey(index - 3)) {
-            objValue = selection.get(index - 3).get(objValue.toString());
-          }
-          if (objValue instanceof Number) {
-            objValue = formatter.format((Number) objValue, false);
-          }
-          if (objValue instanceof LocalDate) {
-            objValue = formatter.format((LocalDate) objValue);
+    final int limit = EXPORT_MAX_SIZE > 0 ? EXPORT_MAX_SIZE : 0;
+    final int columns = names.size();
+
+    // resolve value formatters once per column
+    final List<Function<Object, Object>> formatters = new ArrayList<>();
+    final ExportFormatter formatter = new ExportFormatter(L10n.getInstance());
+    for (int i = 0; i < columns; i++) {
+      final Map<String, String> options = selection.get(i);
+      formatters.add(
+          options == null
+              ? formatter::format
+              : value -> formatter.format(options.get(value.toString())));
+    }
+
+    final Query<?> query = getQuery(request).readOnly();
+    final Query<?>.Selector selector = query.select(names.toArray(new String[0]));
+    final ExportStats stats = new ExportStats();
+
+    try (Stream<List> rows = selector.valuesStream(limit, 0, EXPORT_FETCH_SIZE)) {
+      final Iterator<List> iter = rows.iterator();
+      while (iter.hasNext()) {
+        final List<?> row = iter.next();
+        writer.write('\n');
+        // ignore first two items (id, version)
+        for (int i = 2; i < row.size(); i++) {
+          if (i > 2) {
+            writer.write(';');
           }
-          if (objValue instanceof LocalDateTime) {
-            objValue = formatter.format((LocalDateTime) objValue);
-          }
-          if (objValue instanceof ZonedDateTime) {
-            objValue = formatter.format((ZonedDateTime) objValue);
-          }
-          String strValue = objValue == null ? "" : escapeCsv(objValue.toString());
-          line.add(strValue);
+          final Object value = row.get(i) == null ? "" : row.get(i);
+          final int column = i - 2;
+          writeCsv(
+              writer,
+              column < columns ? formatters.get(column).apply(value) : formatter.format(value));
         }
-        writer.write("\n");
-        writer.write(Joiner.on(";").join(line));
+        stats.rowWritten();
       }
+    }
 
-      count += data.size();
+    stats.finish();
 
-      int nextLimit = limit;
-      if (EXPORT_MAX_SIZE > -1) {
-        if (count >= EXPORT_MAX_SIZE) {
-          break;
-        }
-        nextLimit = Math.min(limit, EXPORT_MAX_SIZE - count);
+    LOG.debug(
+        "Exported {} records of '{}' in {} ms ({} records/s, peak heap {} bytes)",
+        stats.count,
+        model.getName(),
+        stats.time,
+        stats.getRate(),
+        stats.peakHeap);
+
+    return stats;
+  }
+
+  /** Value formatter for exports, formats are resolved once per export. */
+  private static class ExportFormatter {
+
+    private final L10n l10n;
+    private final NumberFormat numberFormat;
+
+    public ExportFormatter(L10n l10n) {
+      this.l10n = l10n;
+      this.numberFormat = NumberFormat.getInstance(AppFilter.getLocale());
+      this.numberFormat.setGroupingUsed(false);
+    }
+
+    public Object format(Object value) {
+      if (value instanceof Number) {
+        return numberFormat.format(value);
+      }
+      if (value instanceof LocalDate) {
+        return l10n.format((LocalDate) value);
       }
+      if (value instanceof LocalDateTime) {
+        return l10n.format((LocalDateTime) value);
+      }
+      if (value instanceof ZonedDateTime) {
+        return l10n.format((ZonedDateTime) value);
+      }
+      return value;
+    }
+  }
+
+  /** Export statistics. */
+  private static class ExportStats {
+
+    private static final int HEAP_SAMPLE_INTERVAL = 1000;
 
-      offset += limit;
-      data = selector.values(nextLimit, offset);
+    private final long start = System.currentTimeMillis();
+    private int count;
+    private long time;
+    private long peakHeap = usedHeap();
+
+    private static long usedHeap() {
+      final Runtime runtime = Runtime.getRuntime();
+      return runtime.totalMemory() - runtime.freeMemory();
     }
 
-    Response response = new Response();
-    response.setTotal(count);
+    public void rowWritten() {
+      if (++count % HEAP_SAMPLE_INTERVAL == 0) {
+        peakHeap = Math.max(peakHeap, usedHeap());
+      }
+    }
+
+    public void finish() {
+      time = System.currentTimeMillis() - start;
+      peakHeap = Math.max(peakHeap, usedHeap());
+    }
+
+    public long getRate() {
+      return time > 0 ? count * 1000L / time : count;
+    }
+  }
 
-    return count;
+  private void writeCsv(Writer writer, Object value) throws IOException {
+    writer.write('"');
+    if (value != null) {
+      final String text = value.toString();
+      if (text.indexOf('"') > -1) {
+        writer.write(text.replace("\"", "\"\""));
+      } else {
+        writer.write(text);
+      }
+    }
+    writer.write('"');
   }
 
   private String escapeCsv(String value) {
@@ -866,14 +933,13 @@ public class Resource<T extends Model> {
             e -> {
               final String name = e.getKey();
               final String[] names = e.getValue().toArray(new String[] {});
+              final Function<Object, Map<String, Object>> toMap = toMapper(names);
               Object old = values.get(name);
               Object value = mapper.get(entity, name);
               if (value instanceof Collection<?>) {
-                value =
-                    ((Collection<?>) value)
-                        .stream().map(input -> toMap(input, names)).collect(Collectors.toList());
+                value = ((Collection<?>) value).stream().map(toMap).collect(Collectors.toList());
               } else if (value instanceof Model) {
-                value = toMap(value, names);
+                value = toMap.apply(value);
                 if (old instanceof Map) {
                   value = mergeMaps((Map) value, (Map) old);
                 }
@@ -969,6 +1035,8 @@ public class Resource<T extends Model> {
       names = request.getFields().toArray(names);
     }
 
+    final Function<Object, Map<String, Object>> toMap = toMapper(names);
+
     for (Object record : records) {
 
       if (record == null) {
@@ -1013,7 +1081,7 @@ public class Resource<T extends Model> {
         I18nBundle.invalidate();
       }
 
-      data.add(repository.populate(toMap(bean, names), request.getContext()));
+      data.add(repository.populate(toMap.apply(bean), request.getContext()));
     }
 
     response.setData(data);
@@ -1297,7 +1365,29 @@ public class Resource<T extends Model> {
     return _toMap(bean, null, true, 1);
   }
 
-  @SuppressWarnings("all")
+  /**
+   * Create a function to convert beans to maps with the given field names.
+   *
+   * <p>The field tree is created once and the conversion plan is resolved once per bean class, so
+   * the function should be used to convert the records of a result set.
+   *
+   * @param names the field names
+   * @return the conversion function
+   */
+  private static Function<Object, Map<String, Object>> toMapper(String... names) {
+    final Map<String, Object> fields = unflatten(null, names);
+    final Map<Class<?>, ToMapPlan> plans = new HashMap<>();
+    return bean -> {
+      if (bean == null) {
+        return null;
+      }
+      final Object entity = EntityHelper.getEntity(bean);
+      return plans
+          .computeIfAbsent(entity.getClass(), klass -> ToMapPlan.of(klass, fields))
+          .toMap(entity, false, 0);
+    };
+  }
+
   private static Map<String, Object> _toMap(
       Object bean, Map<String, Object> fields, boolean compact, int level) {
 
@@ -1307,141 +1397,7 @@ public class Resource<T extends Model> {
 
     bean = EntityHelper.getEntity(bean);
 
-    if (fields == null) {
-      fields = Maps.newHashMap();
-    }
-
-    Map<String, Object> result = new HashMap<String, Object>();
-    Mapper mapper = Mapper.of(bean.getClass());
-
-    boolean isSaved = ((Model) bean).getId() != null;
-    boolean isCompact = compact || fields.containsKey("$version");
-
-    final Set<Property> translatables = new HashSet<>();
-
-    if ((isCompact && isSaved) || (isSaved && level >= 1) || (level > 1)) {
-
-      Property pn = mapper.getNameField();
-      Property pc = mapper.getProperty("code");
-
-      result.put("id", mapper.get(bean, "id"));
-      result.put("$version", mapper.get(bean, "version"));
-
-      if (pn != null) {
-        result.put(pn.getName(), mapper.get(bean, pn.getName()));
-      }
-      if (pc != null) {
-        result.put(pc.getName(), mapper.get(bean, pc.getName()));
-      }
-
-      if (pn != null && pn.isTranslatable()) {
-        Translator.translate(result, pn);
-      }
-      if (pc != null && pc.isTranslatable()) {
-        Translator.translate(result, pc);
-      }
-
-      for (String name : fields.keySet()) {
-        Object child = mapper.get(bean, name);
-        if (child instanceof Model) {
-          child = _toMap(child, (Map) fields.get(name), true, level + 1);
-        }
-        if (child != null) {
-          result.put(name, child);
-        }
-        Optional.ofNullable(mapper.getProperty(name))
-            .filter(Property::isTranslatable)
-            .ifPresent(property -> Translator.translate(result, property));
-      }
-      return result;
-    }
-
-    for (final Property prop : mapper.getProperties()) {
-
-      String name = prop.getName();
-      PropertyType type = prop.getType();
-
-      if (type == PropertyType.BINARY || prop.isPassword()) {
-        continue;
-      }
-
-      if (isSaved
-          && !name.matches("id|version|archived")
-          && !fields.isEmpty()
-          && !fields.containsKey(name)) {
-        continue;
-      }
-
-      Object value = mapper.get(bean, name);
-
-      if (name.equals("archived") && value == null) {
-        continue;
-      }
-
-      if (prop.isImage() && byte[].class.isInstance(value)) {
-        value = new String((byte[]) value);
-      }
-
-      // decimal values should be rounded accordingly otherwise the
-      // json mapper may use wrong scale.
-      if (value instanceof BigDecimal) {
-        BigDecimal decimal = (BigDecimal) value;
-        int scale = prop.getScale();
-        if (decimal.scale() == 0 && scale > 0 && scale != decimal.scale()) {
-          value = decimal.setScale(scale, RoundingMode.HALF_UP);
-        }
-      }
-
-      if (value instanceof Model) { // m2o
-        Map<String, Object> _fields = (Map) fields.get(prop.getName());
-        value = _toMap(value, _fields, true, level + 1);
-      }
-
-      if (value instanceof Collection) { // o2m | m2m
-        List<Object> items = Lists.newArrayList();
-        for (Model input : (Collection<Model>) value) {
-          Map<String, Object> item;
-          if (input.getId() != null) {
-            item = _toMap(input, null, true, level + 1);
-          } else {
-            item = _toMap(input, null, false, 1);
-          }
-          if (item != null) {
-            items.add(item);
-          }
-        }
-        value = items;
-      }
-
-      result.put(name, value);
-
-      if (prop.isTranslatable() && value instanceof String) {
-        Translator.translate(result, prop);
-      }
-
-      // include custom enum value
-      if (prop.isEnum() && value instanceof ValueEnum<?>) {
-        String enumName = ((Enum<?>) value).name();
-        Object enumValue = ((ValueEnum<?>) value).getValue();
-        if (!Objects.equal(enumName, enumValue)) {
-          result.put(name + "$value", ((ValueEnum<?>) value).getValue());
-        }
-      }
-
-      // special case for User/Group objects
-      if (result.get("homeAction") != null) {
-        MetaAction act =
-            JpaRepository.of(MetaAction.class)
-                .all()
-                .filter("self.name = ?", result.get("homeAction"))
-                .fetchOne();
-        if (act != null) {
-          result.put("__actionSelect", toMapCompact(act));
-        }
-      }
-    }
-
-    return result;
+    return ToMapPlan.of(bean.getClass(), fields).toMap(bean, compact, level);
   }
 
   @SuppressWarnings("all")
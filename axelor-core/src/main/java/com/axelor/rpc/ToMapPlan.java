@@ -0,0 +1,611 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.rpc;
+
+import com.axelor.db.EntityHelper;
+import com.axelor.db.JpaRepository;
+import com.axelor.db.Model;
+import com.axelor.db.ValueEnum;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.axelor.db.mapper.PropertyType;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.meta.db.MetaAction;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled plan to convert the beans of a model class to maps for the given field tree.
+ *
+ * <p>The plan resolves the properties to include, the name and code fields, the translatable
+ * properties and the decimal scales once, so converting the records of a result set only does the
+ * value handling. Plans of the nested records are resolved lazily per runtime class.
+ *
+ * <p>The same plan is used to write the beans as json objects directly, without creating the
+ * intermediate maps.
+ */
+final class ToMapPlan {
+
+  private static final Cache<Key, ToMapPlan> PLANS =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  // compact maps of the home actions per tenant, the actions are rarely updated
+  private static final Cache<String, Optional<Map<String, Object>>> HOME_ACTIONS =
+      CacheBuilder.newBuilder().maximumSize(1000).expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+  private static final String HOME_ACTION = "homeAction";
+
+  private final Mapper mapper;
+
+  private final Map<String, Object> fields;
+
+  private final boolean versionRequested;
+
+  private final Property nameField;
+  private final Property codeField;
+
+  // name and code fields of compact json objects
+  private final List<Property> keyFields = new ArrayList<>();
+
+  // requested fields of compact maps
+  private final List<Node> compactNodes = new ArrayList<>();
+
+  // requested fields of compact json objects, other than id, name and code
+  private final List<Node> extraNodes = new ArrayList<>();
+
+  // fields of unsaved records (all the fields)
+  private final List<Node> allNodes = new ArrayList<>();
+
+  // fields of saved records (requested fields only)
+  private final List<Node> savedNodes = new ArrayList<>();
+
+  private final boolean homeAction;
+
+  private ToMapPlan(Class<?> beanClass, Map<String, Object> fields) {
+    this.mapper = Mapper.of(beanClass);
+    this.fields = fields;
+    this.versionRequested = fields.containsKey("$version");
+    this.nameField = mapper.getNameField();
+    this.codeField = mapper.getProperty("code");
+    this.homeAction = mapper.getProperty(HOME_ACTION) != null;
+
+    if (nameField != null) {
+      keyFields.add(nameField);
+    }
+    if (codeField != null && !isKeyField(codeField.getName(), keyFields)) {
+      keyFields.add(codeField);
+    }
+
+    for (String name : fields.keySet()) {
+      final Property property = mapper.getProperty(name);
+      if (property != null) {
+        final Node node = new Node(property, childFields(name));
+        compactNodes.add(node);
+        if (!"id".equals(name) && !isKeyField(name, keyFields)) {
+          extraNodes.add(node);
+        }
+      }
+    }
+
+    for (Property property : mapper.getProperties()) {
+      final String name = property.getName();
+      if (property.getType() == PropertyType.BINARY || property.isPassword()) {
+        continue;
+      }
+      final Node node = new Node(property, childFields(name));
+      allNodes.add(node);
+      if (fields.isEmpty()
+          || fields.containsKey(name)
+          || "id".equals(name)
+          || "version".equals(name)
+          || "archived".equals(name)) {
+        savedNodes.add(node);
+      }
+    }
+  }
+
+  private static boolean isKeyField(String name, List<Property> keyFields) {
+    return keyFields.stream().anyMatch(property -> property.getName().equals(name));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> childFields(String name) {
+    final Object child = fields.get(name);
+    return child instanceof Map ? (Map<String, Object>) child : Collections.emptyMap();
+  }
+
+  /**
+   * Get the plan for the given bean class and field tree.
+   *
+   * @param beanClass the bean class
+   * @param fields the field tree, as created by {@link Resource}
+   * @return the plan
+   */
+  static ToMapPlan of(Class<?> beanClass, Map<String, Object> fields) {
+    final Map<String, Object> tree = fields == null ? Collections.emptyMap() : fields;
+    final ToMapPlan cached = PLANS.getIfPresent(new Key(beanClass, tree));
+    if (cached != null) {
+      return cached;
+    }
+    // the cached plan and its key keep a copy, the given tree may be changed by the caller
+    final Map<String, Object> copy = copyOf(tree);
+    final ToMapPlan plan = new ToMapPlan(beanClass, copy);
+    PLANS.put(new Key(beanClass, copy), plan);
+    return plan;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> copyOf(Map<String, Object> fields) {
+    final Map<String, Object> copy = new HashMap<>();
+    fields.forEach(
+        (name, child) ->
+            copy.put(name, child instanceof Map ? copyOf((Map<String, Object>) child) : child));
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private static Map<String, Object> findHomeAction(Object name) {
+    final String tenant = TenantResolver.currentTenantIdentifier();
+    final String key = tenant == null ? name.toString() : tenant + ":" + name;
+    final Optional<Map<String, Object>> action;
+    try {
+      action =
+          HOME_ACTIONS.get(
+              key,
+              () ->
+                  Optional.ofNullable(
+                          JpaRepository.of(MetaAction.class)
+                              .all()
+                              .filter("self.name = ?", name)
+                              .fetchOne())
+                      .map(Resource::toMapCompact));
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+    return action.<Map<String, Object>>map(HashMap::new).orElse(null);
+  }
+
+  /**
+   * Write the given bean as json object.
+   *
+   * <p>The written object is the same as the serialized map created by {@link #toMap(Object,
+   * boolean, int)}, including the translations, the enum values and the decimal scales.
+   *
+   * @param bean the bean to write
+   * @param compact whether to write a compact object
+   * @param level the nesting level
+   * @param version whether to include the <code>$version</code> in top-level compact object
+   * @param output the json output
+   * @throws IOException if unable to write
+   */
+  static void writeJson(Object bean, boolean compact, int level, boolean version, Output output)
+      throws IOException {
+    final Object entity = EntityHelper.getEntity(bean);
+    ToMapPlan.of(entity.getClass(), null).write(entity, compact, level, version, output);
+  }
+
+  /** Invalidate all the compiled plans. */
+  static void invalidateAll() {
+    PLANS.invalidateAll();
+    HOME_ACTIONS.invalidateAll();
+  }
+
+  /**
+   * Convert the given bean to map.
+   *
+   * @param bean the bean, should not be a proxy
+   * @param compact whether to create a compact map
+   * @param level the nesting level
+   * @return the map
+   */
+  Map<String, Object> toMap(Object bean, boolean compact, int level) {
+    final boolean isSaved = ((Model) bean).getId() != null;
+    final boolean isCompact = compact || versionRequested;
+
+    if ((isCompact && isSaved) || (isSaved && level >= 1) || (level > 1)) {
+      return toCompactMap(bean, level);
+    }
+
+    final Map<String, Object> result = new HashMap<>();
+
+    for (Node node : isSaved ? savedNodes : allNodes) {
+      final Property prop = node.property;
+      final String name = prop.getName();
+
+      Object value = prop.get(bean);
+
+      if (node.archived && value == null) {
+        continue;
+      }
+
+      if (node.image && value instanceof byte[]) {
+        value = new String((byte[]) value);
+      }
+
+      // decimal values should be rounded accordingly otherwise the
+      // json mapper may use wrong scale.
+      if (value instanceof BigDecimal) {
+        BigDecimal decimal = (BigDecimal) value;
+        if (decimal.scale() == 0 && node.scale > 0 && node.scale != decimal.scale()) {
+          value = decimal.setScale(node.scale, RoundingMode.HALF_UP);
+        }
+      }
+
+      if (value instanceof Model) { // m2o
+        value = node.toMap(value, true, level + 1);
+      }
+
+      if (value instanceof Collection) { // o2m | m2m
+        final List<Object> items = new ArrayList<>();
+        for (Object input : (Collection<?>) value) {
+          final Map<String, Object> item;
+          if (((Model) input).getId() != null) {
+            item = node.toItemMap(input, true, level + 1);
+          } else {
+            item = node.toItemMap(input, false, 1);
+          }
+          if (item != null) {
+            items.add(item);
+          }
+        }
+        value = items;
+      }
+
+      result.put(name, value);
+
+      if (node.translatable && value instanceof String) {
+        Translator.translate(result, prop);
+      }
+
+      // include custom enum value
+      if (value instanceof ValueEnum<?>) {
+        String enumName = ((Enum<?>) value).name();
+        Object enumValue = ((ValueEnum<?>) value).getValue();
+        if (!Objects.equals(enumName, enumValue)) {
+          result.put(name + "$value", enumValue);
+        }
+      }
+    }
+
+    // special case for User/Group objects
+    if (homeAction && result.get(HOME_ACTION) != null) {
+      final Map<String, Object> act = findHomeAction(result.get(HOME_ACTION));
+      if (act != null) {
+        result.put("__actionSelect", act);
+      }
+    }
+
+    return result;
+  }
+
+  private Map<String, Object> toCompactMap(Object bean, int level) {
+    final Map<String, Object> result = new HashMap<>();
+
+    result.put("id", mapper.get(bean, "id"));
+    result.put("$version", mapper.get(bean, "version"));
+
+    if (nameField != null) {
+      result.put(nameField.getName(), nameField.get(bean));
+    }
+    if (codeField != null) {
+      result.put(codeField.getName(), codeField.get(bean));
+    }
+
+    if (nameField != null && nameField.isTranslatable()) {
+      Translator.translate(result, nameField);
+    }
+    if (codeField != null && codeField.isTranslatable()) {
+      Translator.translate(result, codeField);
+    }
+
+    for (Node node : compactNodes) {
+      Object child = node.property.get(bean);
+      if (child instanceof Model) {
+        child = node.toMap(child, true, level + 1);
+      }
+      if (child != null) {
+        result.put(node.property.getName(), child);
+      }
+      if (node.translatable) {
+        Translator.translate(result, node.property);
+      }
+    }
+
+    return result;
+  }
+
+  private void write(Object bean, boolean compact, int level, boolean version, Output output)
+      throws IOException {
+    final boolean isSaved = ((Model) bean).getId() != null;
+    final boolean isCompact = compact || versionRequested;
+
+    if ((isCompact && isSaved) || (isSaved && level >= 1) || (level > 1)) {
+      writeCompact(bean, level, version, output);
+      return;
+    }
+
+    final JsonGenerator generator = output.generator;
+    Object action = null;
+
+    generator.writeStartObject();
+
+    for (Node node : isSaved ? savedNodes : allNodes) {
+      final Property prop = node.property;
+      final String name = prop.getName();
+
+      Object value = prop.get(bean);
+
+      if (node.archived && value == null) {
+        continue;
+      }
+
+      if (node.image && value instanceof byte[]) {
+        value = new String((byte[]) value);
+      }
+
+      if (value instanceof BigDecimal) {
+        BigDecimal decimal = (BigDecimal) value;
+        if (decimal.scale() == 0 && node.scale > 0 && node.scale != decimal.scale()) {
+          value = decimal.setScale(node.scale, RoundingMode.HALF_UP);
+        }
+      }
+
+      if (value instanceof Model) { // m2o
+        generator.writeFieldName(name);
+        node.write(value, true, level + 1, output);
+        continue;
+      }
+
+      if (value instanceof Collection) { // o2m | m2m
+        if (output.empty && ((Collection<?>) value).isEmpty()) {
+          continue;
+        }
+        generator.writeArrayFieldStart(name);
+        for (Object input : (Collection<?>) value) {
+          if (((Model) input).getId() != null) {
+            node.writeItem(input, true, level + 1, output);
+          } else {
+            node.writeItem(input, false, 1, output);
+          }
+        }
+        generator.writeEndArray();
+        continue;
+      }
+
+      output.field(name, value);
+
+      if (node.translatable) {
+        output.translation(name, value);
+      }
+
+      // include custom enum value
+      if (value instanceof ValueEnum<?>) {
+        String enumName = ((Enum<?>) value).name();
+        Object enumValue = ((ValueEnum<?>) value).getValue();
+        if (!Objects.equals(enumName, enumValue)) {
+          output.field(name + "$value", enumValue);
+        }
+      }
+
+      if (homeAction && HOME_ACTION.equals(name)) {
+        action = value;
+      }
+    }
+
+    // special case for User/Group objects
+    if (action != null) {
+      final Map<String, Object> act = findHomeAction(action);
+      if (act != null) {
+        output.field("__actionSelect", act);
+      }
+    }
+
+    generator.writeEndObject();
+  }
+
+  private void writeCompact(Object bean, int level, boolean version, Output output)
+      throws IOException {
+    final JsonGenerator generator = output.generator;
+
+    generator.writeStartObject();
+
+    output.field("id", mapper.get(bean, "id"));
+    if (version) {
+      output.field("$version", mapper.get(bean, "version"));
+    }
+
+    for (Property property : keyFields) {
+      final Object value = property.get(bean);
+      output.field(property.getName(), value);
+      if (property.isTranslatable()) {
+        output.translation(property.getName(), value);
+      }
+    }
+
+    for (Node node : extraNodes) {
+      final String name = node.property.getName();
+      final Object child = node.property.get(bean);
+      if (child instanceof Model) {
+        generator.writeFieldName(name);
+        node.write(child, true, level + 1, output);
+        continue;
+      }
+      if (child != null) {
+        output.field(name, child);
+      }
+      if (node.translatable) {
+        output.translation(name, child);
+      }
+    }
+
+    generator.writeEndObject();
+  }
+
+  /**
+   * The json output of the plans.
+   *
+   * <p>The records are written like their maps, so the empty values are skipped if the inclusion
+   * of {@link Map} is <code>NON_EMPTY</code> in the serialization config.
+   */
+  static final class Output {
+
+    private final JsonGenerator generator;
+    private final SerializerProvider provider;
+    private final boolean nulls;
+    private final boolean empty;
+
+    /**
+     * Create a new json output.
+     *
+     * @param generator the json generator
+     * @param provider the serializer provider used to write the field values
+     * @param nulls whether to write the null values
+     */
+    Output(JsonGenerator generator, SerializerProvider provider, boolean nulls) {
+      final JsonInclude.Value inclusion =
+          provider.getConfig().getDefaultPropertyInclusion(Map.class);
+      this.generator = generator;
+      this.provider = provider;
+      this.empty =
+          inclusion.getValueInclusion() == JsonInclude.Include.NON_EMPTY
+              || inclusion.getContentInclusion() == JsonInclude.Include.NON_EMPTY;
+      this.nulls = nulls && !empty;
+    }
+
+    private void field(String name, Object value) throws IOException {
+      if (value == null) {
+        if (nulls) {
+          generator.writeNullField(name);
+        }
+        return;
+      }
+      if (empty && provider.findValueSerializer(value.getClass()).isEmpty(provider, value)) {
+        return;
+      }
+      provider.defaultSerializeField(name, value, generator);
+    }
+
+    private void translation(String name, Object value) throws IOException {
+      final String translation = Translator.findTranslation(value);
+      if (translation != null && !(empty && translation.isEmpty())) {
+        generator.writeStringField(Translator.toKey(name), translation);
+      }
+    }
+  }
+
+  /** Compiled field of a plan. */
+  private static final class Node {
+
+    private final Property property;
+    private final Map<String, Object> fields;
+
+    private final boolean archived;
+    private final boolean image;
+    private final boolean translatable;
+    private final int scale;
+
+    // plans of the related records per runtime class
+    private final Map<Class<?>, ToMapPlan> plans = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ToMapPlan> itemPlans = new ConcurrentHashMap<>();
+
+    Node(Property property, Map<String, Object> fields) {
+      this.property = property;
+      this.fields = fields;
+      this.archived = "archived".equals(property.getName());
+      this.image = property.isImage();
+      this.translatable = property.isTranslatable();
+      this.scale = property.getScale();
+    }
+
+    private Map<String, Object> toMap(Object value, boolean compact, int level) {
+      final Object bean = EntityHelper.getEntity(value);
+      return plans
+          .computeIfAbsent(bean.getClass(), klass -> ToMapPlan.of(klass, fields))
+          .toMap(bean, compact, level);
+    }
+
+    private void write(Object value, boolean compact, int level, Output output)
+        throws IOException {
+      final Object bean = EntityHelper.getEntity(value);
+      plans
+          .computeIfAbsent(bean.getClass(), klass -> ToMapPlan.of(klass, fields))
+          .write(bean, compact, level, true, output);
+    }
+
+    private void writeItem(Object value, boolean compact, int level, Output output)
+        throws IOException {
+      final Object bean = EntityHelper.getEntity(value);
+      itemPlans
+          .computeIfAbsent(bean.getClass(), klass -> ToMapPlan.of(klass, null))
+          .write(bean, compact, level, true, output);
+    }
+
+    private Map<String, Object> toItemMap(Object value, boolean compact, int level) {
+      if (value == null) {
+        return null;
+      }
+      final Object bean = EntityHelper.getEntity(value);
+      return itemPlans
+          .computeIfAbsent(bean.getClass(), klass -> ToMapPlan.of(klass, null))
+          .toMap(bean, compact, level);
+    }
+  }
+
+  /** The key of the cached plans. */
+  private static final class Key {
+
+    private final Class<?> beanClass;
+    private final Map<String, Object> fields;
+    private final int hash;
+
+    Key(Class<?> beanClass, Map<String, Object> fields) {
+      this.beanClass = beanClass;
+      this.fields = fields;
+      this.hash = Objects.hash(beanClass, fields);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key other = (Key) obj;
+      return beanClass == other.beanClass && fields.equals(other.fields);
+    }
+  }
+}
@@ -44,11 +44,28 @@ final class Translator {
     return value;
   }
 
+  /**
+   * Get the translation of the given value.
+   *
+   * @param value the value to translate
+   * @return the translated value or null if there is no translation
+   */
+  @Nullable
+  static String findTranslation(Object value) {
+    if (value instanceof String) {
+      String val = getTranslation((String) value);
+      if (!Objects.equals(val, value)) {
+        return val;
+      }
+    }
+    return null;
+  }
+
   private static String toValueKey(String name) {
     return "value:" + name;
   }
 
-  private static String toKey(String name) {
+  static String toKey(String name) {
     return "$t:" + name;
   }
 
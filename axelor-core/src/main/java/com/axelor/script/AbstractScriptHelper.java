@@ -19,7 +19,6 @@ package com.axelor.script;
 
 import com.axelor.common.StringUtils;
 import com.google.common.base.Preconditions;
-import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.script.Bindings;
@@ -28,6 +27,11 @@ import org.slf4j.LoggerFactory;
 
 public abstract class AbstractScriptHelper implements ScriptHelper {
 
+  /** The variable holding the receiver of {@link #call(Object, String)}. */
+  protected static final String CALL_RECEIVER = "__obj__";
+
+  private static final Pattern CALL_PATTERN = Pattern.compile("(\\w+)\\((.*?)\\)");
+
   protected final Logger log = LoggerFactory.getLogger(getClass());
 
   private Bindings bindings;
@@ -57,8 +61,7 @@ public abstract class AbstractScriptHelper implements ScriptHelper {
     Preconditions.checkNotNull(obj);
     Preconditions.checkNotNull(methodCall);
 
-    Pattern p = Pattern.compile("(\\w+)\\((.*?)\\)");
-    Matcher m = p.matcher(methodCall);
+    Matcher m = CALL_PATTERN.matcher(methodCall);
 
     if (!m.matches()) {
       return null;
@@ -67,14 +70,28 @@ public abstract class AbstractScriptHelper implements ScriptHelper {
     return doCall(obj, methodCall);
   }
 
+  /**
+   * Call the given method on the given object.
+   *
+   * <p>The object is bound to the fixed {@link #CALL_RECEIVER} variable, so the evaluated
+   * expression only depends on the <code>methodCall</code> and is compiled once.
+   *
+   * @param obj the object
+   * @param methodCall the method call
+   * @return the result of the call
+   */
   protected Object doCall(Object obj, String methodCall) {
-    final String key = "__obj__" + Math.abs(UUID.randomUUID().getMostSignificantBits());
     final Bindings bindings = getBindings();
+    final Object previous = bindings.put(CALL_RECEIVER, obj);
     try {
-      bindings.put(key, obj);
-      return eval(key + "." + methodCall);
+      return eval(CALL_RECEIVER + "." + methodCall);
     } finally {
-      bindings.remove(key);
+      // restore the receiver of the outer call, if any
+      if (previous == null) {
+        bindings.remove(CALL_RECEIVER);
+      } else {
+        bindings.put(CALL_RECEIVER, previous);
+      }
     }
   }
 
@@ -21,26 +21,178 @@ import com.axelor.db.JpaRepository;
 import com.axelor.db.JpaScanner;
 import com.axelor.db.Model;
 import com.axelor.db.ValueEnum;
+import com.axelor.internal.javax.el.ArrayELResolver;
 import com.axelor.internal.javax.el.BeanELResolver;
+import com.axelor.internal.javax.el.CompositeELResolver;
 import com.axelor.internal.javax.el.ELClass;
 import com.axelor.internal.javax.el.ELContext;
 import com.axelor.internal.javax.el.ELException;
-import com.axelor.internal.javax.el.ELProcessor;
+import com.axelor.internal.javax.el.ELManager;
+import com.axelor.internal.javax.el.ELResolver;
+import com.axelor.internal.javax.el.ExpressionFactory;
+import com.axelor.internal.javax.el.FunctionMapper;
 import com.axelor.internal.javax.el.ImportHandler;
+import com.axelor.internal.javax.el.ListELResolver;
 import com.axelor.internal.javax.el.MapELResolver;
 import com.axelor.internal.javax.el.MethodNotFoundException;
+import com.axelor.internal.javax.el.ResourceBundleELResolver;
+import com.axelor.internal.javax.el.StaticFieldELResolver;
+import com.axelor.internal.javax.el.ValueExpression;
+import com.axelor.internal.javax.el.VariableMapper;
 import com.axelor.rpc.Context;
 import com.axelor.rpc.ContextEntity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import javax.script.Bindings;
 
+/**
+ * The EL script helper.
+ *
+ * <p>The expressions are parsed once and shared by all the instances, every evaluation uses a
+ * lightweight {@link ELContext} bound to the current bindings. The resolvers, functions and
+ * imports are shared as well, so creating a helper is cheap.
+ */
 public class ELScriptHelper extends AbstractScriptHelper {
 
-  private ELProcessor processor;
+  private static final int EXPRESSION_CACHE_SIZE = 5000;
+
+  private static final ExpressionFactory FACTORY = ELManager.getExpressionFactory();
+
+  private static final ELResolver RESOLVER = createResolver();
+
+  private static final FunctionMapper FUNCTIONS = createFunctions();
+
+  private static final VariableMapper VARIABLES =
+      new VariableMapper() {
+
+        @Override
+        public ValueExpression resolveVariable(String variable) {
+          return null;
+        }
+
+        @Override
+        public ValueExpression setVariable(String variable, ValueExpression expression) {
+          return null;
+        }
+      };
+
+  private static final ThreadLocal<ImportHandler> IMPORTS =
+      ThreadLocal.withInitial(ELScriptHelper::createImports);
+
+  private static final Cache<String, ValueExpression> EXPRESSIONS =
+      CacheBuilder.newBuilder().maximumSize(EXPRESSION_CACHE_SIZE).recordStats().build();
+
+  /** The evaluation context bound to the given bindings. */
+  static final class EvalContext extends ELContext {
+
+    private final Bindings bindings;
+
+    EvalContext(Bindings bindings) {
+      this.bindings = bindings;
+    }
+
+    @Override
+    public ELResolver getELResolver() {
+      return RESOLVER;
+    }
+
+    @Override
+    public FunctionMapper getFunctionMapper() {
+      return FUNCTIONS;
+    }
+
+    @Override
+    public VariableMapper getVariableMapper() {
+      return VARIABLES;
+    }
+
+    @Override
+    public ImportHandler getImportHandler() {
+      return IMPORTS.get();
+    }
+  }
+
+  private static ELResolver createResolver() {
+    final CompositeELResolver resolver = new CompositeELResolver();
+    resolver.add(new ClassResolver());
+    resolver.add(new ContextResolver());
+    resolver.add(new BeanResolver());
+    final ELResolver streamResolver = FACTORY.getStreamELResolver();
+    if (streamResolver != null) {
+      resolver.add(streamResolver);
+    }
+    resolver.add(new StaticFieldELResolver());
+    resolver.add(new MapELResolver());
+    resolver.add(new ResourceBundleELResolver());
+    resolver.add(new ListELResolver());
+    resolver.add(new ArrayELResolver());
+    resolver.add(new BeanELResolver());
+    return resolver;
+  }
+
+  private static FunctionMapper createFunctions() {
+    final String[][] functions = {
+      {"", "as", "as"},
+      {"", "is", "is"},
+      {"", "int", "toInt"},
+      {"", "str", "text"},
+      {"", "imp", "importClass"},
+      {"", "T", "importClass"},
+      {"", "__repo__", "repo"},
+      {"fmt", "text", "formatText"},
+    };
+
+    final Map<String, Method> methods = new HashMap<>();
+    for (String[] function : functions) {
+      for (Method method : Helpers.class.getMethods()) {
+        if (method.getName().equals(function[2])) {
+          methods.put(function[0] + ":" + function[1], method);
+          break;
+        }
+      }
+    }
+
+    return new FunctionMapper() {
+
+      @Override
+      public Method resolveFunction(String prefix, String localName) {
+        return methods.get(prefix + ":" + localName);
+      }
+    };
+  }
+
+  private static ImportHandler createImports() {
+    final ImportHandler handler = new ImportHandler();
+    final String[] packages = {
+      "java.util",
+      "java.time",
+      "com.axelor.common",
+      "com.axelor.script.util",
+      "com.axelor.apps.tool"
+    };
+
+    for (String pkg : packages) {
+      try {
+        handler.importPackage(pkg);
+      } catch (Exception e) {
+      }
+    }
+
+    handler.importClass("com.axelor.db.Model");
+    handler.importClass("com.axelor.db.Query");
+    handler.importClass("com.axelor.db.Repository");
+
+    return handler;
+  }
 
-  class ClassResolver extends MapELResolver {
+  static class ClassResolver extends MapELResolver {
 
     private static final String FIELD_CLASS = "class";
 
@@ -80,11 +232,12 @@ public class ELScriptHelper extends AbstractScriptHelper {
     public void setValue(ELContext context, Object base, Object property, Object value) {}
   }
 
-  class ContextResolver extends MapELResolver {
+  static class ContextResolver extends MapELResolver {
 
     @Override
     public Object getValue(ELContext context, Object base, Object property) {
-      final Bindings bindings = getBindings();
+      final Bindings bindings =
+          context instanceof EvalContext ? ((EvalContext) context).bindings : null;
       if (bindings == null || base != null) {
         return null;
       }
@@ -105,7 +258,7 @@ public class ELScriptHelper extends AbstractScriptHelper {
     }
   }
 
-  class BeanResolver extends BeanELResolver {
+  static class BeanResolver extends BeanELResolver {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     @Override
@@ -217,60 +370,40 @@ public class ELScriptHelper extends AbstractScriptHelper {
   }
 
   public ELScriptHelper(Bindings bindings) {
+    this.setBindings(bindings);
+  }
 
-    this.processor = new ELProcessor();
-    this.processor.getELManager().addELResolver(new ClassResolver());
-    this.processor.getELManager().addELResolver(new ContextResolver());
-    this.processor.getELManager().addELResolver(new BeanResolver());
-
-    final String className = Helpers.class.getName();
+  public ELScriptHelper(Context context) {
+    this(new ScriptBindings(context));
+  }
 
+  private static ValueExpression parse(String expr) {
     try {
-      this.processor.defineFunction("", "as", className, "as");
-      this.processor.defineFunction("", "is", className, "is");
-      this.processor.defineFunction("", "int", className, "toInt");
-      this.processor.defineFunction("", "str", className, "text");
-      this.processor.defineFunction("", "imp", className, "importClass");
-      this.processor.defineFunction("", "T", className, "importClass");
-      this.processor.defineFunction("", "__repo__", className, "repo");
-      this.processor.defineFunction("fmt", "text", className, "formatText");
-    } catch (Exception e) {
-    }
-
-    final String[] packages = {
-      "java.util",
-      "java.time",
-      "com.axelor.common",
-      "com.axelor.script.util",
-      "com.axelor.apps.tool"
-    };
-
-    for (String pkg : packages) {
-      try {
-        this.processor.getELManager().importPackage(pkg);
-      } catch (Exception e) {
+      return EXPRESSIONS.get(
+          expr,
+          () ->
+              FACTORY.createValueExpression(
+                  new EvalContext(null), "${" + expr + "}", Object.class));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
+      throw new ELException(cause);
     }
-
-    this.processor.getELManager().importClass("com.axelor.db.Model");
-    this.processor.getELManager().importClass("com.axelor.db.Query");
-    this.processor.getELManager().importClass("com.axelor.db.Repository");
-
-    this.setBindings(bindings);
   }
 
-  public ELScriptHelper(Context context) {
-    this(new ScriptBindings(context));
+  /**
+   * Get the statistics of the parsed expression cache.
+   *
+   * @return cache statistics
+   */
+  public static CacheStats getCacheStats() {
+    return EXPRESSIONS.stats();
   }
 
   @Override
   public Object eval(String expr, Bindings bindings) {
-    final Bindings current = getBindings();
-    try {
-      setBindings(bindings);
-      return processor.eval(expr);
-    } finally {
-      setBindings(current);
-    }
+    return parse(expr).getValue(new EvalContext(bindings));
   }
 }
@@ -24,12 +24,16 @@ import com.axelor.db.JpaScanner;
 import com.axelor.rpc.Context;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.MissingPropertyException;
 import groovy.lang.Script;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import javax.persistence.EntityManager;
 import javax.script.Bindings;
@@ -49,6 +53,9 @@ public class GroovyScriptHelper extends AbstractScriptHelper {
   private static final GroovyClassLoader GCL;
   private static final LoadingCache<String, Class<?>> SCRIPT_CACHE;
 
+  private static final LongAdder CLASSES_GENERATED = new LongAdder();
+  private static final Deque<Long> CLASSES_GENERATED_TIMES = new ConcurrentLinkedDeque<>();
+
   public static class Helpers {
 
     @SuppressWarnings("unchecked")
@@ -99,6 +106,7 @@ public class GroovyScriptHelper extends AbstractScriptHelper {
         CacheBuilder.newBuilder()
             .maximumSize(cacheSize)
             .expireAfterAccess(cacheExpireTime, TimeUnit.MINUTES)
+            .recordStats()
             .build(
                 new CacheLoader<String, Class<?>>() {
 
@@ -108,11 +116,54 @@ public class GroovyScriptHelper extends AbstractScriptHelper {
                       return GCL.parseClass(code);
                     } finally {
                       GCL.clearCache();
+                      classGenerated();
                     }
                   }
                 });
   }
 
+  private static void classGenerated() {
+    final long now = System.currentTimeMillis();
+    CLASSES_GENERATED.increment();
+    CLASSES_GENERATED_TIMES.addLast(now);
+    purgeGeneratedTimes(now);
+  }
+
+  private static void purgeGeneratedTimes(long now) {
+    final long since = now - TimeUnit.MINUTES.toMillis(1);
+    for (Long time; (time = CLASSES_GENERATED_TIMES.peekFirst()) != null && time < since; ) {
+      CLASSES_GENERATED_TIMES.pollFirst();
+    }
+  }
+
+  /**
+   * Get the total number of script classes generated.
+   *
+   * @return number of generated classes
+   */
+  public static long getClassesGenerated() {
+    return CLASSES_GENERATED.sum();
+  }
+
+  /**
+   * Get the number of script classes generated during the last minute.
+   *
+   * @return number of generated classes per minute
+   */
+  public static int getClassesGeneratedPerMinute() {
+    purgeGeneratedTimes(System.currentTimeMillis());
+    return CLASSES_GENERATED_TIMES.size();
+  }
+
+  /**
+   * Get the script cache statistics.
+   *
+   * @return cache statistics
+   */
+  public static CacheStats getCacheStats() {
+    return SCRIPT_CACHE.stats();
+  }
+
   public GroovyScriptHelper(Bindings bindings) {
     this.setBindings(bindings);
   }
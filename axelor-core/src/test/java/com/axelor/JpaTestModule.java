@@ -36,6 +36,8 @@ public class JpaTestModule extends AbstractModule {
             .scan("com.axelor.auth.db")
             .scan("com.axelor.meta.db")
             .scan("com.axelor.dms.db")
+            .scan("com.axelor.mail.db")
+            .scan("com.axelor.team.db")
             .scan("com.axelor.test.db"));
     install(new AuthModule());
     install(new AppModule());
@@ -0,0 +1,244 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.auth;
+
+import com.axelor.JpaTest;
+import com.axelor.JpaTestModule;
+import com.axelor.auth.db.AuditLog;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.axelor.mail.db.MailMessage;
+import com.axelor.team.db.TeamTask;
+import com.axelor.test.GuiceModules;
+import com.axelor.test.db.Contact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.AbstractModule;
+import com.google.inject.util.Modules;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@GuiceModules(AuditTrackerTest.MyModule.class)
+public class AuditTrackerTest extends JpaTest {
+
+  public static class MyModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      install(
+          Modules.override(new JpaTestModule())
+              .with(
+                  new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                      bind(AuditProcessor.class).toInstance(new TestProcessor());
+                    }
+                  }));
+    }
+  }
+
+  static class TestProcessor extends AuditProcessor {
+
+    private final AtomicInteger triggered = new AtomicInteger();
+
+    TestProcessor() {
+      super(true, 100, 2, 3600);
+    }
+
+    @Override
+    synchronized void trigger() {
+      // records are processed by the tests
+      triggered.incrementAndGet();
+    }
+  }
+
+  @Inject private AuditProcessor processor;
+
+  @Inject private ObjectMapper mapper;
+
+  @Before
+  public void clean() {
+    while (processor.process() > 0) {
+      // process pending records of previous tests
+    }
+    triggered().set(0);
+  }
+
+  private AtomicInteger triggered() {
+    return ((TestProcessor) processor).triggered;
+  }
+
+  private long pending() {
+    return Query.of(AuditLog.class).count();
+  }
+
+  private List<MailMessage> messages(Long id) {
+    return Query.of(MailMessage.class)
+        .filter("self.relatedModel = ? AND self.relatedId = ?", TeamTask.class.getName(), id)
+        .order("id")
+        .fetch();
+  }
+
+  private Long create(String name) {
+    final TeamTask task = new TeamTask();
+    task.setName(name);
+    JPA.runInTransaction(() -> JPA.em().persist(task));
+    return task.getId();
+  }
+
+  @Test
+  public void testCreate() {
+    final Long id = create("Task 1");
+
+    Assert.assertEquals(1, pending());
+    Assert.assertEquals(1, triggered().get());
+    Assert.assertTrue(messages(id).isEmpty());
+
+    Assert.assertEquals(1, processor.process());
+    Assert.assertEquals(0, pending());
+
+    final List<MailMessage> messages = messages(id);
+    Assert.assertEquals(1, messages.size());
+    Assert.assertEquals("Task created", messages.get(0).getSubject());
+  }
+
+  @Test
+  public void testUpdate() {
+    final Long id = create("Task 2");
+    processor.process();
+
+    JPA.runInTransaction(() -> JPA.em().find(TeamTask.class, id).setStatus("closed"));
+
+    Assert.assertEquals(1, pending());
+    Assert.assertEquals(1, processor.process());
+
+    final List<MailMessage> messages = messages(id);
+    Assert.assertEquals(2, messages.size());
+    Assert.assertEquals("Record updated", messages.get(1).getSubject());
+    Assert.assertTrue(messages.get(1).getBody().contains("\"status\""));
+    Assert.assertTrue(messages.get(1).getBody().contains("\"closed\""));
+  }
+
+  @Test
+  public void testDelete() {
+    final Long id = create("Task 3");
+
+    JPA.runInTransaction(() -> JPA.em().remove(JPA.em().find(TeamTask.class, id)));
+
+    // the record is removed, the change is dropped
+    Assert.assertEquals(1, pending());
+    Assert.assertEquals(1, processor.process());
+    Assert.assertEquals(0, pending());
+    Assert.assertTrue(messages(id).isEmpty());
+  }
+
+  @Test
+  public void testRollback() {
+    final TeamTask task = new TeamTask();
+    task.setName("Task 4");
+    try {
+      JPA.runInTransaction(
+          () -> {
+            JPA.em().persist(task);
+            JPA.em().flush();
+            throw new IllegalStateException("rollback");
+          });
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // expected
+    } finally {
+      JPA.em().clear();
+    }
+
+    Assert.assertEquals(0, pending());
+    Assert.assertEquals(0, triggered().get());
+  }
+
+  @Test
+  public void testRollbackAfterTracking() {
+    final AuditTracker tracker = new AuditTracker();
+    final TeamTask task = new TeamTask();
+    task.setName("Task 6");
+    try {
+      JPA.runInTransaction(
+          () -> {
+            JPA.em().persist(task);
+            JPA.em().flush();
+            tracker.track(task, new String[] {"name"}, new Object[] {"Task 6"}, null);
+            tracker.onComplete(null, null);
+            throw new IllegalStateException("rollback");
+          });
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // expected
+    } finally {
+      JPA.em().clear();
+    }
+
+    tracker.clear(false);
+
+    Assert.assertEquals(0, pending());
+    Assert.assertEquals(0, triggered().get());
+  }
+
+  @Test
+  public void testClaim() {
+    final Long id = create("Task 5");
+
+    // claimed by another node
+    claim("other", LocalDateTime.now());
+    Assert.assertEquals(0, processor.process());
+    Assert.assertEquals(1, pending());
+
+    // expired claim
+    claim("other", LocalDateTime.now().minusHours(1));
+    Assert.assertEquals(1, processor.process());
+    Assert.assertEquals(0, pending());
+    Assert.assertEquals(1, messages(id).size());
+  }
+
+  private void claim(String owner, LocalDateTime claimedOn) {
+    JPA.runInTransaction(
+        () ->
+            JPA.em()
+                .createQuery("UPDATE AuditLog self SET self.owner = :owner, self.claimedOn = :on")
+                .setParameter("owner", owner)
+                .setParameter("on", claimedOn)
+                .executeUpdate());
+  }
+
+  @Test
+  public void testDecimal() throws Exception {
+    final Property credit = Mapper.of(Contact.class).getProperty("credit");
+    final String json =
+        mapper.writeValueAsString(
+            Collections.singletonMap("credit", AuditTracker.toCompact(new BigDecimal("1.10"))));
+    final Map<?, ?> values = mapper.readValue(json, Map.class);
+    Assert.assertEquals(
+        new BigDecimal("1.10"), AuditTracker.fromCompact(credit, values.get("credit")));
+  }
+}
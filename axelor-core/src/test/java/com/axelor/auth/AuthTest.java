@@ -222,6 +222,49 @@ public class AuthTest extends JpaTest {
         authSecurity.isPermitted(AccessType.WRITE, User.class, users.findByCode("demo").getId()));
   }
 
+  @Test
+  public void testPermissionCache() {
+    login("demo", "demo");
+    permissionCacheTest();
+    permissionUpdate();
+    permissionCacheUpdateTest();
+  }
+
+  @Transactional
+  public void permissionCacheTest() {
+    AuthPermissionCache.invalidateAll();
+
+    long misses = AuthPermissionCache.stats().missCount();
+    long hits = AuthPermissionCache.stats().hitCount();
+
+    Assert.assertFalse(authSecurity.isPermitted(AccessType.READ, Group.class));
+    Assert.assertFalse(authSecurity.isPermitted(AccessType.READ, Group.class));
+
+    Assert.assertEquals(misses + 1, AuthPermissionCache.stats().missCount());
+    Assert.assertEquals(hits + 1, AuthPermissionCache.stats().hitCount());
+  }
+
+  @Transactional
+  public void permissionUpdate() {
+    Permission grantGroups = new Permission("grant.read.groups");
+    grantGroups.setObject("com.axelor.auth.db.Group");
+    grantGroups.setCanRead(true);
+
+    Role role = new Role("group.reader");
+    role.addPermission(grantGroups);
+
+    getEntityManager().persist(grantGroups);
+    getEntityManager().persist(role);
+
+    User demo = users.findByCode("demo");
+    demo.addRole(role);
+  }
+
+  @Transactional
+  public void permissionCacheUpdateTest() {
+    Assert.assertTrue(authSecurity.isPermitted(AccessType.READ, Group.class));
+  }
+
   @Test
   public void testEncrypt() {
     login("demo", "demo");
@@ -0,0 +1,46 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DataScriptTest {
+
+  private final DataScriptHelper helper = new DataScriptHelper(100, 10, false);
+
+  @Test
+  public void testEval() {
+    final DataScript script = helper.compile("name == null ? 'none' : name.toUpperCase()");
+    final Map<String, Object> context = new HashMap<>();
+
+    Assert.assertEquals("none", script.eval(context));
+
+    context.put("name", "axelor");
+    Assert.assertEquals("AXELOR", script.eval(context));
+    Assert.assertEquals(helper.eval(script.getExpression(), context), script.eval(context));
+  }
+
+  @Test
+  public void testCompile() {
+    Assert.assertSame(helper.compile("1 + 1"), helper.compile("1 + 1"));
+    Assert.assertNull(helper.compile("1 +").eval(new HashMap<>()));
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data;
+
+import com.axelor.JpaTest;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.test.db.Title;
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LookupCacheTest extends JpaTest {
+
+  private static final String QUERY = "self.code = :code";
+
+  @Before
+  public void setUp() {
+    JPA.runInTransaction(
+        () -> {
+          for (String code : Arrays.asList("lc-1", "lc-2")) {
+            if (Query.of(Title.class).filter(QUERY).bind("code", code).count() == 0) {
+              final Title title = new Title();
+              title.setCode(code);
+              title.setName("Lookup " + code);
+              JPA.em().persist(title);
+            }
+          }
+        });
+  }
+
+  private static Title find(LookupCache cache, String code) {
+    final Map<String, Object> context = ImmutableMap.of("code", code);
+    return cache.find(
+        Title.class,
+        QUERY,
+        context,
+        () -> Query.of(Title.class).filter(QUERY).bind(context).fetchOne());
+  }
+
+  @Test
+  public void testFind() {
+    final LookupCache cache = new LookupCache();
+
+    final Title first = find(cache, "lc-1");
+    Assert.assertNotNull(first);
+    Assert.assertEquals(0, cache.getHits());
+
+    JPA.em().clear();
+
+    final Title second = find(cache, "lc-1");
+    Assert.assertEquals(first.getId(), second.getId());
+    Assert.assertEquals(1, cache.getHits());
+
+    Assert.assertNull(find(cache, "lc-unknown"));
+    Assert.assertNull(find(cache, "lc-unknown"));
+    Assert.assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void testPrefetch() {
+    final LookupCache cache = new LookupCache();
+
+    Assert.assertEquals("code", cache.getPrefetchParam(Title.class, QUERY));
+    Assert.assertNull(cache.getPrefetchParam(Title.class, "self.code = :code OR self.id = 1"));
+
+    cache.prefetch(Title.class, QUERY, Arrays.asList("lc-1", "lc-2", "lc-unknown"));
+    Assert.assertEquals(2, cache.getPrefetched());
+
+    Assert.assertEquals("lc-2", find(cache, "lc-2").getCode());
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(0, cache.getMisses());
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.data.csv;
+
+import com.axelor.JpaTest;
+import com.axelor.data.ImportStats;
+import com.axelor.data.Listener;
+import com.axelor.db.Model;
+import com.axelor.db.Query;
+import com.axelor.test.db.Contact;
+import com.axelor.test.db.Title;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CSVParallelImporterTest extends JpaTest {
+
+  private static final String CONFIG =
+      "<csv-inputs>"
+          + "<input file=\"pc-titles.csv\" type=\"com.axelor.test.db.Title\"/>"
+          + "<input file=\"pc-contacts.csv\" type=\"com.axelor.test.db.Contact\""
+          + " depends=\"pc-titles.csv\">"
+          + "<bind column=\"title\" to=\"title\" search=\"self.code = :title\"/>"
+          + "</input>"
+          + "</csv-inputs>";
+
+  private static class TestListener implements Listener {
+
+    private final List<Model> imported = Collections.synchronizedList(new ArrayList<>());
+    private final List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, ImportStats> stats = new LinkedHashMap<>();
+
+    @Override
+    public void imported(Model bean) {
+      imported.add(bean);
+    }
+
+    @Override
+    public void imported(Integer total, Integer success) {}
+
+    @Override
+    public void handle(Model bean, Exception e) {
+      errors.add(e);
+    }
+
+    @Override
+    public void imported(ImportStats stats) {
+      this.stats.put(stats.getFileName(), stats);
+    }
+  }
+
+  private static CSVConfig parseConfig() throws IOException {
+    final File file = File.createTempFile("pc-config", ".xml");
+    try {
+      Files.write(file.toPath(), CONFIG.getBytes());
+      return CSVConfig.parse(file);
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static Callable<Reader> reader(String content) {
+    return () -> new StringReader(content);
+  }
+
+  @Test
+  public void test() throws IOException {
+    final CSVConfig config = parseConfig();
+    final CSVImporter importer = new CSVImporter(config);
+    final TestListener listener = new TestListener();
+    final List<Listener> listeners = Collections.singletonList(listener);
+
+    final StringBuilder titles = new StringBuilder("code,name\n");
+    for (int i = 1; i <= 10; i++) {
+      titles.append("pc-").append(i).append(",Parallel ").append(i).append("\n");
+    }
+    // duplicate code, fails the chunk it belongs to
+    titles.append("pc-1,Parallel duplicate\n");
+
+    final StringBuilder contacts = new StringBuilder("firstName,lastName,title\n");
+    for (int i = 1; i <= 10; i++) {
+      contacts.append("Parallel,Contact ").append(i).append(",pc-").append(i).append("\n");
+    }
+
+    final Map<CSVInput, List<Callable<Reader>>> inputs = new LinkedHashMap<>();
+    inputs.put(config.getInputs().get(0), Collections.singletonList(reader(titles.toString())));
+    inputs.put(config.getInputs().get(1), Collections.singletonList(reader(contacts.toString())));
+
+    new CSVParallelImporter(importer, listeners, 2, 3)
+        .run(
+            inputs,
+            (input, e) -> {
+              throw new AssertionError(e);
+            });
+
+    // only the failing record is lost
+    Assert.assertEquals(10, Query.of(Title.class).filter("self.code LIKE 'pc-%'").count());
+    Assert.assertEquals(1, listener.errors.size());
+
+    final ImportStats titleStats = listener.stats.get("pc-titles.csv");
+    Assert.assertEquals(11, titleStats.getTotal());
+    Assert.assertEquals(10, titleStats.getSuccess());
+    Assert.assertTrue(titleStats.getRetries() > 0);
+
+    // contacts are imported once the titles are imported
+    final List<Contact> imported =
+        Query.of(Contact.class).filter("self.firstName = 'Parallel'").fetch();
+    Assert.assertEquals(10, imported.size());
+    for (Contact contact : imported) {
+      Assert.assertNotNull(contact.getTitle());
+      Assert.assertEquals(
+          contact.getLastName().replace("Contact ", "pc-"), contact.getTitle().getCode());
+    }
+
+    final ImportStats contactStats = listener.stats.get("pc-contacts.csv");
+    Assert.assertEquals(10, contactStats.getSuccess());
+    Assert.assertEquals(0, contactStats.getRetries());
+    Assert.assertEquals(20, listener.imported.size());
+  }
+}
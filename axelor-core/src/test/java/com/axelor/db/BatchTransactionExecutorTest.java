@@ -0,0 +1,89 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.db;
+
+import com.axelor.JpaTest;
+import com.axelor.test.db.Title;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchTransactionExecutorTest extends JpaTest {
+
+  private static final String PREFIX = "bte-";
+  private static final String STARTED_PREFIX = "bts-";
+
+  private static Runnable create(String code, String name) {
+    return () -> {
+      final Title title = new Title();
+      title.setCode(code);
+      title.setName(name);
+      JPA.em().persist(title);
+    };
+  }
+
+  private static long count() {
+    return count(PREFIX);
+  }
+
+  private static long count(String prefix) {
+    return Query.of(Title.class).filter("self.code LIKE :code").bind("code", prefix + "%").count();
+  }
+
+  @Test
+  public void test() {
+    final BatchTransactionExecutor executor = new BatchTransactionExecutor(2, 4);
+    final AtomicLong processed = new AtomicLong();
+    final AtomicLong counted = new AtomicLong();
+
+    for (int i = 0; i < 10; i++) {
+      executor.add(create(PREFIX + i, "Title " + PREFIX + i));
+    }
+    executor.add(create(PREFIX + "invalid", null), 0, "invalid");
+    executor.add(() -> counted.set(count()), 1);
+    executor.setListener(progress -> processed.set(progress.getTotal()));
+
+    final List<BatchTransactionExecutor.Failure> failures = executor.run();
+
+    Assert.assertEquals(1, failures.size());
+    Assert.assertEquals("invalid", failures.get(0).getDescription());
+    Assert.assertEquals(10, counted.get());
+    Assert.assertEquals(10, count());
+    Assert.assertEquals(12, processed.get());
+  }
+
+  @Test
+  public void testStarted() {
+    final BatchTransactionExecutor executor = new BatchTransactionExecutor(2, 2);
+    final AtomicLong counted = new AtomicLong();
+
+    executor.start(2);
+    for (int i = 0; i < 20; i++) {
+      executor.add(create(STARTED_PREFIX + i, "Title " + STARTED_PREFIX + i), 0);
+    }
+    executor.close(0);
+    executor.add(() -> counted.set(count(STARTED_PREFIX)), 1);
+
+    final List<BatchTransactionExecutor.Failure> failures = executor.run();
+
+    Assert.assertTrue(failures.isEmpty());
+    Assert.assertEquals(20, counted.get());
+    Assert.assertEquals(20, count(STARTED_PREFIX));
+  }
+}
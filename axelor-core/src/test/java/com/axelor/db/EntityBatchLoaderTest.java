@@ -0,0 +1,139 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.db;
+
+import com.axelor.JpaTest;
+import com.axelor.rpc.Context;
+import com.axelor.test.db.Circle;
+import com.axelor.test.db.Contact;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.persist.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Transactional
+public class EntityBatchLoaderTest extends JpaTest {
+
+  private static final Logger log = LoggerFactory.getLogger(EntityBatchLoaderTest.class);
+
+  private static final int[] SIZES = {10, 100, 1000};
+
+  private Long contactId;
+
+  private List<Long> circleIds;
+
+  @Before
+  public void setUp() {
+    Contact contact = all(Contact.class).filter("self.firstName = ?", "Batch").fetchOne();
+    if (contact == null) {
+      contact = new Contact();
+      contact.setFirstName("Batch");
+      contact.setLastName("Loader");
+      JPA.save(contact);
+      for (int i = 0; i < SIZES[SIZES.length - 1]; i++) {
+        final Circle circle = new Circle();
+        circle.setCode("batch-" + i);
+        circle.setName("Batch " + i);
+        JPA.em().persist(circle);
+      }
+      JPA.flush();
+    }
+
+    contactId = contact.getId();
+    circleIds =
+        all(Circle.class)
+            .filter("self.code like 'batch-%'")
+            .order("id")
+            .fetch()
+            .stream()
+            .map(Circle::getId)
+            .collect(Collectors.toList());
+  }
+
+  private long countQueries(Runnable task) {
+    final Statistics stats =
+        JPA.em().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    JPA.flush();
+    JPA.clear();
+    stats.clear();
+    stats.setStatisticsEnabled(true);
+    try {
+      task.run();
+      return stats.getPrepareStatementCount();
+    } finally {
+      stats.setStatisticsEnabled(false);
+    }
+  }
+
+  @Test
+  public void testEdit() {
+    final List<Long> counts = new ArrayList<>();
+    for (int size : SIZES) {
+      final Map<String, Object> values = new HashMap<>();
+      values.put("id", contactId);
+      values.put("version", JPA.find(Contact.class, contactId).getVersion());
+      values.put(
+          "circles",
+          circleIds
+              .subList(0, size)
+              .stream()
+              .map(id -> ImmutableMap.of("id", id))
+              .collect(Collectors.toList()));
+
+      final long count = countQueries(() -> JPA.edit(Contact.class, values));
+      final Contact contact = JPA.find(Contact.class, contactId);
+
+      Assert.assertEquals(size, contact.getCircles().size());
+      log.info("JPA.edit with {} lines: {} queries", size, count);
+      counts.add(count);
+    }
+
+    // one more query for every chunk of 500 records
+    Assert.assertTrue(counts.get(2) <= counts.get(0) + 2);
+  }
+
+  @Test
+  public void testContext() {
+    final List<Long> counts = new ArrayList<>();
+    for (int size : SIZES) {
+      final Map<String, Object> values = new HashMap<>();
+      values.put("id", contactId);
+      values.put("circles", new ArrayList<>(circleIds.subList(0, size)));
+
+      final Context context = new Context(values, Contact.class);
+      final long count =
+          countQueries(
+              () -> Assert.assertEquals(size, context.asType(Contact.class).getCircles().size()));
+
+      log.info("Context with {} lines: {} queries", size, count);
+      counts.add(count);
+    }
+
+    Assert.assertTrue(counts.get(2) <= counts.get(0) + 2);
+  }
+}
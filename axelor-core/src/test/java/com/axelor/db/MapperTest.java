@@ -144,4 +144,30 @@ public class MapperTest extends JpaTest {
     Assert.assertTrue(bean.getDateTime1().getYear() == 2011);
     Assert.assertTrue(bean.getLocalDate1().getYear() == 1111);
   }
+
+  @Test
+  public void testAccessors() {
+    Mapper typeMapper = Mapper.of(TypeCheck.class);
+    TypeCheck bean = new TypeCheck();
+
+    typeMapper.set(bean, "intValue2", 12);
+    typeMapper.set(bean, "boolValue2", true);
+    typeMapper.set(bean, "intValue", null);
+
+    Assert.assertEquals(12, bean.getIntValue2());
+    Assert.assertTrue(bean.isBoolValue2());
+    Assert.assertEquals(Integer.valueOf(0), bean.getIntValue());
+
+    Assert.assertEquals(12, typeMapper.get(bean, "intValue2"));
+    Assert.assertEquals(12, typeMapper.getProperty("intValue2").get(bean));
+    Assert.assertEquals(Boolean.TRUE, typeMapper.getProperty("boolValue2").get(bean));
+    Assert.assertNull(typeMapper.get(bean, "noSuchField"));
+
+    try {
+      typeMapper.set(bean, "noSuchField", 1);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
 }
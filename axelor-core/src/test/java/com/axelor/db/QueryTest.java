@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -132,6 +133,19 @@ public class QueryTest extends JpaTest {
     Assert.assertEquals(first.size(), second.size());
   }
 
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void testValuesStream() {
+    final Query<Contact>.Selector selector =
+        all(Contact.class).order("id").select("firstName", "email");
+    final List<List> first = selector.values(0, 0);
+    final List<List> second;
+    try (Stream<List> stream = selector.valuesStream(0, 0, 2)) {
+      second = stream.collect(Collectors.toList());
+    }
+    Assert.assertEquals(first, second);
+  }
+
   @Test
   @Transactional
   public void testBulkRemove() {
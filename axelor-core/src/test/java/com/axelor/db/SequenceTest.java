@@ -20,6 +20,7 @@ package com.axelor.db;
 import com.axelor.JpaTest;
 import com.axelor.meta.db.MetaSequence;
 import com.google.inject.persist.Transactional;
+import javax.persistence.PersistenceException;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,4 +45,69 @@ public class SequenceTest extends JpaTest {
 
     Assert.assertEquals("EMP_00100_ID", JpaSequence.nextValue("seq.emp.id"));
   }
+
+  @Test
+  public void testBlocks() {
+    Assert.assertEquals("BLK001", JpaSequence.allocate("seq.blk.id", 2));
+    Assert.assertEquals("BLK002", JpaSequence.allocate("seq.blk.id", 2));
+    Assert.assertEquals("BLK003", JpaSequence.allocate("seq.blk.id", 2));
+
+    final JpaSequence.Stats stats = JpaSequence.getStats("seq.blk.id");
+    Assert.assertEquals(3, stats.getAllocations());
+    Assert.assertEquals(2, stats.getRefills());
+
+    JPA.em().clear();
+    JPA.runInTransaction(() -> JpaSequence.nextValue("seq.blk.id", 100));
+
+    Assert.assertEquals("BLK100", JpaSequence.allocate("seq.blk.id", 2));
+  }
+
+  @Test
+  public void testBlocksWithReset() {
+    JPA.runInTransaction(
+        () -> {
+          Assert.assertEquals("MIX001", JpaSequence.next("seq.mix.id", 2));
+          JpaSequence.nextValue("seq.mix.id", 100);
+          Assert.assertEquals("MIX100", JpaSequence.next("seq.mix.id", 2));
+          Assert.assertEquals("MIX101", JpaSequence.next("seq.mix.id", 2));
+        });
+    JPA.em().clear();
+
+    Assert.assertEquals("MIX102", JpaSequence.next("seq.mix.id", 2));
+    Assert.assertEquals("MIX103", JpaSequence.next("seq.mix.id", 2));
+    Assert.assertEquals("MIX104", JpaSequence.next("seq.mix.id", 2));
+
+    final MetaSequence sequence =
+        Query.of(MetaSequence.class).filter("self.name = ?", "seq.mix.id").fetchOne();
+    Assert.assertEquals(106L, (long) sequence.getNext());
+  }
+
+  @Test
+  public void testBlocksWithStaleRecord() {
+    final MetaSequence loaded =
+        Query.of(MetaSequence.class).filter("self.name = ?", "seq.old.id").fetchOne();
+    final Integer version = loaded.getVersion();
+    final Long next = loaded.getNext();
+
+    Assert.assertEquals("OLD001", JpaSequence.allocate("seq.old.id", 2));
+
+    // the loaded record is refreshed after the reservation
+    Assert.assertEquals(next + 2, (long) loaded.getNext());
+    Assert.assertNotEquals(version, loaded.getVersion());
+
+    // a copy loaded before the reservation can't overwrite it
+    JPA.em().detach(loaded);
+    loaded.setNext(next);
+    loaded.setVersion(version);
+    try {
+      JPA.runInTransaction(() -> JPA.em().merge(loaded));
+      Assert.fail("stale sequence record saved");
+    } catch (PersistenceException e) {
+      // expected
+    }
+    JPA.em().clear();
+
+    Assert.assertEquals("OLD002", JpaSequence.allocate("seq.old.id", 2));
+    Assert.assertEquals("OLD003", JpaSequence.allocate("seq.old.id", 2));
+  }
 }
@@ -23,8 +23,13 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
@@ -151,4 +156,33 @@ public class MailSenderTest extends AbstractMailTest {
     Assert.assertEquals("text.txt", part2.getFileName());
     Assert.assertEquals("Hello...", part2.getContent());
   }
+
+  @Test
+  public void testBatch() throws Exception {
+    final MailSender sender = new MailSender(SMTP_ACCOUNT);
+    final List<MimeMessage> messages = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      messages.add(
+          sender.compose().to(SEND_TO).subject("Batch " + i).text("Message " + i).build());
+    }
+
+    final AtomicInteger sent = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    final BiConsumer<Message, MessagingException> callback =
+        (message, error) -> (error == null ? sent : failed).incrementAndGet();
+    final long start = System.nanoTime();
+
+    // all the messages are sent over a single pooled connection
+    sender.send(messages, callback);
+    sender.send(messages.subList(0, 5), callback);
+
+    final long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+    Assert.assertEquals(0, failed.get());
+    Assert.assertEquals(25, sent.get());
+    Assert.assertEquals(25, server.getReceivedMessages().length);
+    Assert.assertTrue("too slow: " + elapsed + "ms", elapsed < 30_000);
+
+    sender.close();
+  }
 }
@@ -0,0 +1,159 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.mail.service;
+
+import com.axelor.JpaTest;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.mail.ImapAccount;
+import com.axelor.mail.MailBuilder;
+import com.axelor.mail.MailReader;
+import com.axelor.mail.db.MailFetchState;
+import com.axelor.mail.db.MailMessage;
+import com.axelor.test.db.Contact;
+import com.icegreen.greenmail.junit.GreenMailRule;
+import com.icegreen.greenmail.user.GreenMailUser;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import java.util.Arrays;
+import java.util.Properties;
+import javax.inject.Inject;
+import javax.mail.Flags;
+import javax.mail.Folder;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class MailFetchTest extends JpaTest {
+
+  private static final String PARENT_ID = "<parent.fetch@localhost>";
+
+  @Rule public final GreenMailRule server = new GreenMailRule(ServerSetupTest.SMTP_IMAP);
+
+  @Inject private MailServiceImpl service;
+
+  private GreenMailUser user;
+
+  private MailReader reader;
+
+  @Before
+  public void startServer() {
+    user = server.setUser("test", "test");
+    reader =
+        new MailReader(
+            new ImapAccount("127.0.0.1", "" + ServerSetupTest.IMAP.getPort(), "test", "test"));
+
+    JPA.runInTransaction(
+        () -> {
+          JPA.em().createQuery("DELETE FROM MailFetchState").executeUpdate();
+          if (Query.of(MailMessage.class).filter("self.messageId = ?", PARENT_ID).count() == 0) {
+            final MailMessage parent = new MailMessage();
+            parent.setMessageId(PARENT_ID);
+            parent.setSubject("Hello...");
+            parent.setRelatedModel(Contact.class.getName());
+            parent.setRelatedId(1L);
+            JPA.save(parent);
+          }
+        });
+  }
+
+  private void deliver(String messageId, String header, String value) throws Exception {
+    final MailBuilder builder =
+        new MailBuilder(Session.getInstance(new Properties()))
+            .from("you@localhost")
+            .to("test@localhost")
+            .subject("Re: Hello...")
+            .text("This is a reply...");
+    if (header != null) {
+      builder.header(header, value);
+    }
+    final MimeMessage message = builder.build(messageId);
+    user.deliver(message);
+  }
+
+  private void markSeen() throws Exception {
+    final Folder inbox = reader.getStore().getFolder("INBOX");
+    inbox.open(Folder.READ_WRITE);
+    try {
+      inbox.setFlags(1, inbox.getMessageCount(), new Flags(Flags.Flag.SEEN), true);
+    } finally {
+      inbox.close(false);
+    }
+  }
+
+  private long count(String... messageIds) {
+    return Query.of(MailMessage.class)
+        .filter("self.messageId in (:ids)")
+        .bind("ids", Arrays.asList(messageIds))
+        .count();
+  }
+
+  private long lastUid() {
+    return Query.of(MailFetchState.class).fetchOne().getLastUid();
+  }
+
+  @Test
+  public void testFetch() throws Exception {
+    deliver("<reply.1@localhost>", "In-Reply-To", PARENT_ID);
+    deliver("<other.1@localhost>", null, null);
+    deliver("<reply.2@localhost>", "References", "<unknown@localhost> " + PARENT_ID);
+
+    service.fetch(reader);
+
+    Assert.assertEquals(2, count("<reply.1@localhost>", "<reply.2@localhost>"));
+    Assert.assertEquals(0, count("<other.1@localhost>"));
+    Assert.assertEquals(3, lastUid());
+
+    // only the new messages are fetched
+    deliver("<reply.3@localhost>", "In-Reply-To", "<reply.1@localhost>");
+
+    service.fetch(reader);
+    service.fetch(reader);
+
+    Assert.assertEquals(
+        3, count("<reply.1@localhost>", "<reply.2@localhost>", "<reply.3@localhost>"));
+    Assert.assertEquals(4, lastUid());
+
+    final MailMessage reply =
+        Query.of(MailMessage.class).filter("self.messageId = ?", "<reply.3@localhost>").fetchOne();
+    Assert.assertEquals(Contact.class.getName(), reply.getRelatedModel());
+  }
+
+  @Test
+  public void testResyncWithoutUnseen() throws Exception {
+    deliver("<seen.1@localhost>", "In-Reply-To", PARENT_ID);
+    deliver("<seen.2@localhost>", "In-Reply-To", PARENT_ID);
+    markSeen();
+
+    service.fetch(reader);
+
+    // the seen messages are skipped
+    Assert.assertEquals(0, count("<seen.1@localhost>", "<seen.2@localhost>"));
+    Assert.assertEquals(2, lastUid());
+
+    deliver("<seen.3@localhost>", "In-Reply-To", PARENT_ID);
+
+    service.fetch(reader);
+
+    Assert.assertEquals(0, count("<seen.1@localhost>", "<seen.2@localhost>"));
+    Assert.assertEquals(1, count("<seen.3@localhost>"));
+    Assert.assertEquals(3, lastUid());
+  }
+}
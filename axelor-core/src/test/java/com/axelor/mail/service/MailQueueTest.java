@@ -0,0 +1,306 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.mail.service;
+
+import com.axelor.JpaTest;
+import com.axelor.JpaTestModule;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.Query;
+import com.axelor.mail.MailSender;
+import com.axelor.mail.SmtpAccount;
+import com.axelor.mail.db.MailMessage;
+import com.axelor.mail.db.MailQueue;
+import com.axelor.test.GuiceModules;
+import com.axelor.test.db.Contact;
+import com.google.inject.AbstractModule;
+import com.google.inject.util.Modules;
+import com.icegreen.greenmail.junit.GreenMailRule;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.mail.internet.MimeMessage;
+import javax.persistence.EntityTransaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+@GuiceModules(MailQueueTest.MyModule.class)
+public class MailQueueTest extends JpaTest {
+
+  public static class MyModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      install(
+          Modules.override(new JpaTestModule())
+              .with(
+                  new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                      bind(MailService.class).to(TestMailService.class);
+                      bind(MailQueueProcessor.class).toInstance(new TestProcessor());
+                    }
+                  }));
+    }
+  }
+
+  static class TestProcessor extends MailQueueProcessor {
+
+    private final AtomicInteger triggered = new AtomicInteger();
+
+    TestProcessor() {
+      super(2, 10, 2, 3600);
+    }
+
+    @Override
+    synchronized void trigger() {
+      // messages are processed by the tests
+      triggered.incrementAndGet();
+    }
+  }
+
+  static class TestMailService extends MailServiceImpl {
+
+    private static volatile MailSender sender;
+
+    private static volatile MailMessage message;
+
+    @Override
+    protected MailSender getMailSender(MailMessage message, Model entity) {
+      TestMailService.message = message;
+      return sender;
+    }
+  }
+
+  private static final MailSender SMTP_SENDER =
+      new MailSender(
+          new SmtpAccount("127.0.0.1", "" + ServerSetupTest.SMTP.getPort(), "test", "test"));
+
+  private static final MailSender FAILING_SENDER =
+      new MailSender(new SmtpAccount("127.0.0.1", "1", "test", "test"));
+
+  @Rule public final GreenMailRule server = new GreenMailRule(ServerSetupTest.SMTP);
+
+  @Inject private MailService service;
+
+  @Inject private MailQueueProcessor processor;
+
+  @Before
+  public void setUp() {
+    server.setUser("test", "test");
+    JPA.runInTransaction(() -> JPA.em().createQuery("DELETE FROM MailQueue").executeUpdate());
+    TestMailService.sender = SMTP_SENDER;
+    TestMailService.message = null;
+    triggered().set(0);
+    processor.start();
+  }
+
+  @After
+  public void tearDown() {
+    processor.stop();
+  }
+
+  private AtomicInteger triggered() {
+    return ((TestProcessor) processor).triggered;
+  }
+
+  private MimeMessage email(String subject) throws Exception {
+    return SMTP_SENDER
+        .compose()
+        .from("me@localhost")
+        .to("test@localhost")
+        .subject(subject)
+        .text("Hello...")
+        .build();
+  }
+
+  private MailMessage message() {
+    final MailMessage message = new MailMessage();
+    message.setRelatedModel(Contact.class.getName());
+    message.setRelatedId(1L);
+    return message;
+  }
+
+  private Long enqueue(String subject) throws Exception {
+    ((MailServiceImpl) service).enqueue(message(), email(subject));
+    return Query.of(MailQueue.class).order("-id").fetchOne().getId();
+  }
+
+  private MailQueue find(Long id) {
+    JPA.em().clear();
+    return JPA.em().find(MailQueue.class, id);
+  }
+
+  @Test
+  public void testEnqueue() throws Exception {
+    final EntityTransaction txn = JPA.em().getTransaction();
+
+    txn.begin();
+    ((MailServiceImpl) service).enqueue(message(), email("Rolled back"));
+    txn.rollback();
+    JPA.em().clear();
+
+    Assert.assertEquals(0, Query.of(MailQueue.class).count());
+    Assert.assertEquals(0, triggered().get());
+
+    JPA.runInTransaction(
+        () -> {
+          try {
+            ((MailServiceImpl) service).enqueue(message(), email("Committed"));
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+          Assert.assertEquals(0, triggered().get());
+        });
+
+    Assert.assertEquals(1, triggered().get());
+
+    final MailQueue item = Query.of(MailQueue.class).fetchOne();
+    Assert.assertNotNull(item);
+    Assert.assertNull(item.getMailMessageId());
+    Assert.assertEquals(Contact.class.getName(), item.getRelatedModel());
+    Assert.assertEquals(Long.valueOf(1L), item.getRelatedId());
+    Assert.assertEquals(1, processor.getQueueSize());
+  }
+
+  @Test
+  public void testDeliver() throws Exception {
+    enqueue("Queued 1");
+    enqueue("Queued 2");
+
+    Assert.assertEquals(2, triggered().get());
+
+    final long sent = processor.getSentCount();
+
+    Assert.assertEquals(2, processor.process());
+    Assert.assertTrue(server.waitForIncomingEmail(5000, 2));
+    Assert.assertEquals(0, Query.of(MailQueue.class).count());
+    Assert.assertEquals(sent + 2, processor.getSentCount());
+
+    // the unsaved message is given to the sender lookup with its related record
+    Assert.assertNotNull(TestMailService.message);
+    Assert.assertEquals(Contact.class.getName(), TestMailService.message.getRelatedModel());
+    Assert.assertEquals(Long.valueOf(1L), TestMailService.message.getRelatedId());
+  }
+
+  @Test
+  public void testRetry() throws Exception {
+    TestMailService.sender = FAILING_SENDER;
+
+    final Long id = enqueue("Retried");
+    final long failed = processor.getFailedCount();
+
+    Assert.assertEquals(1, processor.process());
+    Assert.assertEquals(failed + 1, processor.getFailedCount());
+
+    MailQueue item = find(id);
+    Assert.assertEquals(Integer.valueOf(1), item.getRetries());
+    Assert.assertNotNull(item.getError());
+    Assert.assertNull(item.getOwner());
+    Assert.assertNull(item.getClaimedOn());
+    Assert.assertTrue(item.getNextAttempt().isAfter(LocalDateTime.now().plusSeconds(50)));
+
+    // not retried before the next attempt time
+    Assert.assertEquals(0, processor.process());
+
+    TestMailService.sender = SMTP_SENDER;
+    JPA.runInTransaction(
+        () -> JPA.em().find(MailQueue.class, id).setNextAttempt(LocalDateTime.now()));
+
+    Assert.assertEquals(1, processor.process());
+    Assert.assertTrue(server.waitForIncomingEmail(5000, 1));
+    Assert.assertNull(find(id));
+  }
+
+  @Test
+  public void testBackoff() {
+    Assert.assertEquals(60, delay(processor.getNextAttempt(1)), 1);
+    Assert.assertEquals(120, delay(processor.getNextAttempt(2)), 1);
+    Assert.assertEquals(240, delay(processor.getNextAttempt(3)), 1);
+    Assert.assertEquals(3600, delay(processor.getNextAttempt(10)), 1);
+    Assert.assertEquals(3600, delay(processor.getNextAttempt(100)), 1);
+  }
+
+  private static long delay(LocalDateTime time) {
+    return Duration.between(LocalDateTime.now(), time).getSeconds();
+  }
+
+  @Test
+  public void testMaxRetries() throws Exception {
+    TestMailService.sender = FAILING_SENDER;
+
+    final Long id = enqueue("Failed");
+    for (int i = 0; i < 2; i++) {
+      JPA.runInTransaction(
+          () -> JPA.em().find(MailQueue.class, id).setNextAttempt(LocalDateTime.now()));
+      Assert.assertEquals(1, processor.process());
+    }
+
+    // the message is kept with its failure status, but not retried anymore
+    final MailQueue item = find(id);
+    Assert.assertEquals(Integer.valueOf(2), item.getRetries());
+    Assert.assertNotNull(item.getError());
+
+    JPA.runInTransaction(
+        () -> JPA.em().find(MailQueue.class, id).setNextAttempt(LocalDateTime.now()));
+
+    Assert.assertEquals(0, processor.process());
+    Assert.assertEquals(0, processor.getQueueSize());
+  }
+
+  @Test
+  public void testClaim() throws Exception {
+    final Long id = enqueue("Claimed");
+
+    JPA.runInTransaction(
+        () -> {
+          final MailQueue item = JPA.em().find(MailQueue.class, id);
+          item.setOwner("other");
+          item.setClaimedOn(LocalDateTime.now());
+        });
+
+    // claimed by another node
+    Assert.assertEquals(0, processor.process());
+    Assert.assertNotNull(find(id));
+
+    JPA.runInTransaction(
+        () -> JPA.em().find(MailQueue.class, id).setClaimedOn(LocalDateTime.now().minusHours(1)));
+
+    // the claim has expired
+    Assert.assertEquals(1, processor.process());
+    Assert.assertTrue(server.waitForIncomingEmail(5000, 1));
+    Assert.assertNull(find(id));
+  }
+
+  @Test
+  public void testSent() throws Exception {
+    final Long id = enqueue("Sent");
+
+    // delivered, but its record could not be removed
+    JPA.runInTransaction(() -> JPA.em().find(MailQueue.class, id).setSent(true));
+
+    Assert.assertEquals(0, processor.process());
+    Assert.assertEquals(0, processor.getQueueSize());
+    Assert.assertNotNull(find(id));
+  }
+}
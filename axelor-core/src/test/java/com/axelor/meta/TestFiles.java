@@ -22,6 +22,8 @@ import com.axelor.meta.db.MetaFile;
 import com.axelor.test.db.Contact;
 import com.axelor.test.db.repo.ContactRepository;
 import com.google.inject.persist.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -75,6 +77,32 @@ public class TestFiles extends MetaTest {
     Files.deleteIfExists(MetaFiles.getPath(metaFile2));
   }
 
+  @Test
+  public void testChunkUpload() throws IOException {
+    final String fileId = "test-chunks";
+    final byte[] first = "Hello...".getBytes();
+    final byte[] second = "World...".getBytes();
+    final long size = first.length + second.length;
+
+    File tmp = files.upload(new ByteArrayInputStream(first), 0, size, fileId);
+    Assert.assertEquals(first.length, tmp.length());
+
+    tmp = files.upload(new ByteArrayInputStream(second), first.length, size, fileId);
+    Assert.assertEquals("Hello...World...", new String(Files.readAllBytes(tmp.toPath())));
+
+    files.clean(fileId);
+    files.upload(new ByteArrayInputStream(second), 0, second.length + 1, fileId);
+
+    try {
+      files.upload(new ByteArrayInputStream(first), second.length, second.length + 1, fileId);
+      Assert.fail("oversized upload should fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } finally {
+      files.clean(fileId);
+    }
+  }
+
   @Test
   @Transactional
   public void testAttach() throws IOException {
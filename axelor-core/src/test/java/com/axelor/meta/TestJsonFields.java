@@ -0,0 +1,108 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import com.axelor.JpaTest;
+import com.axelor.db.JPA;
+import com.axelor.meta.db.MetaJsonField;
+import com.axelor.meta.db.repo.MetaJsonFieldRepository;
+import com.axelor.test.db.Contact;
+import com.google.inject.persist.Transactional;
+import java.util.Map;
+import javax.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+
+public class TestJsonFields extends JpaTest {
+
+  private static final String FIELD = "cachedField";
+
+  @Inject private MetaJsonFieldRepository jsonFields;
+
+  @Transactional
+  public void create() {
+    final MetaJsonField field = new MetaJsonField();
+    field.setName(FIELD);
+    field.setType("string");
+    field.setTitle("Cached");
+    field.setModel(Contact.class.getName());
+    field.setModelField("attrs");
+    jsonFields.save(field);
+  }
+
+  @Transactional
+  public void update() {
+    jsonFields
+        .all()
+        .filter("self.name = ? AND self.model = ?", FIELD, Contact.class.getName())
+        .fetchOne()
+        .setTitle("Cached (updated)");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> find() {
+    final Map<String, Object> fields = MetaStore.findJsonFields(Contact.class.getName(), "attrs");
+    assertNotNull(fields);
+    return (Map<String, Object>) fields.get(FIELD);
+  }
+
+  private static long countQueries(Runnable task) {
+    final Statistics stats =
+        JPA.em().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    stats.clear();
+    stats.setStatisticsEnabled(true);
+    try {
+      task.run();
+      return stats.getPrepareStatementCount();
+    } finally {
+      stats.setStatisticsEnabled(false);
+    }
+  }
+
+  @Test
+  public void test() {
+    assertNull(find());
+
+    create();
+
+    final Map<String, Object> attrs = find();
+
+    assertNotNull(attrs);
+    assertEquals("Cached", attrs.get("title"));
+    assertEquals("attrs", attrs.get("jsonField"));
+
+    // should be cached
+    assertEquals(0, countQueries(TestJsonFields::find));
+
+    // each call gets its own copy
+    attrs.put("readonly", true);
+    assertNotSame(attrs, find());
+    assertNull(find().get("readonly"));
+
+    // should be invalidated
+    update();
+
+    assertEquals("Cached (updated)", find().get("title"));
+  }
+}
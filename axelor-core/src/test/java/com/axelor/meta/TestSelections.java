@@ -0,0 +1,87 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.axelor.JpaTest;
+import com.axelor.meta.db.MetaSelect;
+import com.axelor.meta.db.MetaSelectItem;
+import com.axelor.meta.db.repo.MetaSelectRepository;
+import com.axelor.meta.schema.views.Selection;
+import com.google.inject.persist.Transactional;
+import java.util.List;
+import javax.inject.Inject;
+import org.junit.Test;
+
+public class TestSelections extends JpaTest {
+
+  private static final String SELECTION = "test.selection.cached";
+
+  @Inject private MetaSelectRepository selects;
+
+  private MetaSelectItem item(String value, String title, int order) {
+    MetaSelectItem item = new MetaSelectItem();
+    item.setValue(value);
+    item.setTitle(title);
+    item.setOrder(order);
+    return item;
+  }
+
+  @Transactional
+  public void create() {
+    MetaSelect select = new MetaSelect(SELECTION);
+    select.addItem(item("b", "B", 2));
+    select.addItem(item("a", "A", 1));
+    selects.save(select);
+  }
+
+  @Transactional
+  public void update() {
+    MetaSelect select = selects.findByName(SELECTION);
+    select.getItems().stream()
+        .filter(item -> "a".equals(item.getValue()))
+        .forEach(item -> item.setTitle("A (updated)"));
+  }
+
+  @Test
+  public void test() {
+    assertNull(MetaStore.getSelectionList(SELECTION));
+
+    create();
+
+    List<Selection.Option> options = MetaStore.getSelectionList(SELECTION);
+
+    assertNotNull(options);
+    assertEquals(2, options.size());
+    assertEquals("a", options.get(0).getValue());
+    assertEquals("b", options.get(1).getValue());
+
+    // should be cached
+    assertSame(options, MetaStore.getSelectionList(SELECTION));
+    assertEquals("A", MetaStore.getSelectionItem(SELECTION, "a").getTitle());
+
+    update();
+
+    // should be invalidated
+    assertEquals("A (updated)", MetaStore.getSelectionItem(SELECTION, "a").getTitle());
+  }
+}
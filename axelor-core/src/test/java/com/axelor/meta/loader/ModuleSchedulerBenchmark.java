@@ -0,0 +1,84 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link ModuleScheduler} over a synthetic module set and prints the install time for
+ * several parallelism levels.
+ *
+ * <p>The modules mimic an application with a few chains of dependent modules on top of a common
+ * base. Every module simulates an install with a fixed amount of blocking work, as done by the
+ * database bound install stages.
+ *
+ * <p>Usage: <code>ModuleSchedulerBenchmark [modules] [chain length] [work in ms]</code>
+ */
+public class ModuleSchedulerBenchmark {
+
+  private static List<Module> createModules(int size, int chain) {
+    final Resolver resolver = new Resolver();
+    final List<String> names = new ArrayList<>();
+
+    resolver.add("axelor-core");
+    resolver.add("axelor-base", "axelor-core");
+
+    for (int i = 0; i < size; i++) {
+      final String name = "axelor-module-" + i;
+      if (i % chain == 0) {
+        resolver.add(name, "axelor-base");
+      } else {
+        resolver.add(name, "axelor-base", "axelor-module-" + (i - 1));
+      }
+      names.add(name);
+    }
+
+    resolver.add("axelor-app", names.toArray(new String[] {}));
+
+    return resolver.all();
+  }
+
+  private static void work(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public static void main(String[] args) {
+    final int size = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+    final int chain = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    final long millis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+    final List<Module> modules = createModules(size, chain);
+
+    System.out.printf(
+        "%d modules, chains of %d modules, %d ms per module%n", modules.size(), chain, millis);
+
+    for (int parallelism : new int[] {1, 2, 4, 8}) {
+      final ModuleScheduler scheduler = new ModuleScheduler(parallelism);
+      final long start = System.nanoTime();
+      scheduler.run(modules, module -> work(millis));
+      final long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      System.out.printf("parallelism %d: %d ms%n", parallelism, time);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestModuleScheduler {
+
+  private List<Module> createModules(int size) {
+    final Resolver resolver = new Resolver();
+    final List<String> names = new ArrayList<>();
+
+    resolver.add("axelor-core");
+    resolver.add("axelor-base", "axelor-core");
+
+    for (int i = 0; i < size; i++) {
+      final String name = "axelor-module-" + i;
+      // every other module depends on the previous one
+      if (i % 2 == 1) {
+        resolver.add(name, "axelor-base", "axelor-module-" + (i - 1));
+      } else {
+        resolver.add(name, "axelor-base");
+      }
+      names.add(name);
+    }
+
+    resolver.add("axelor-app", names.toArray(new String[] {}));
+
+    return resolver.all();
+  }
+
+  private void check(List<Module> modules, int parallelism) {
+    final Set<Module> done = Collections.synchronizedSet(new HashSet<>());
+    final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+
+    new ModuleScheduler(parallelism)
+        .run(
+            modules,
+            module -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              for (Module depend : module.getDepends()) {
+                if (!done.contains(depend)) {
+                  errors.add(module.getName() + " -> " + depend.getName());
+                }
+              }
+              try {
+                Thread.sleep(10);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              done.add(module);
+              running.decrementAndGet();
+            });
+
+    Assert.assertEquals(Collections.emptyList(), errors);
+    Assert.assertEquals(modules.size(), done.size());
+    Assert.assertTrue(maxRunning.get() <= parallelism);
+    if (parallelism == 1) {
+      Assert.assertEquals(1, maxRunning.get());
+    }
+  }
+
+  @Test
+  public void testSequential() {
+    check(createModules(10), 1);
+  }
+
+  @Test
+  public void testParallel() {
+    check(createModules(40), 4);
+  }
+
+  @Test
+  public void testFailure() {
+    final List<Module> modules = createModules(10);
+    final Set<String> done = Collections.synchronizedSet(new HashSet<>());
+
+    try {
+      new ModuleScheduler(4)
+          .run(
+              modules,
+              module -> {
+                if (module.getName().equals("axelor-module-2")) {
+                  throw new IllegalStateException("failed");
+                }
+                done.add(module.getName());
+              });
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("failed", e.getMessage());
+    }
+
+    // modules depending on the failed one are never processed
+    Assert.assertFalse(done.contains("axelor-module-3"));
+    Assert.assertFalse(done.contains("axelor-app"));
+  }
+}
@@ -19,10 +19,14 @@ package com.axelor.meta.loader;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.axelor.common.ResourceUtils;
+import com.axelor.db.JPA;
 import com.axelor.meta.MetaTest;
+import com.axelor.meta.db.MetaView;
 import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.views.AbstractView;
 import com.axelor.meta.schema.views.FormInclude;
@@ -129,4 +133,28 @@ public class TestViews extends MetaTest {
 
     assertEquals(form1.getName(), included.getName());
   }
+
+  @Test
+  @Transactional
+  public void testViewCache() throws Exception {
+
+    final URL url = ResourceUtils.getResource("com/axelor/meta/Include.xml");
+    loader.process(url, new Module("test"), false);
+
+    final AbstractView form1 = XMLViews.findView("contact-form1", null, null, "test");
+    final AbstractView form2 = XMLViews.findView("contact-form1", null, null, "test");
+
+    assertNotNull(form1);
+    assertSame(form1, form2);
+    assertNotNull(form1.getViewId());
+
+    final MetaView view = JPA.find(MetaView.class, form1.getViewId());
+    view.setXml(view.getXml().replace("title=\"Contact\"", "title=\"Updated title\""));
+    JPA.flush();
+
+    final AbstractView form3 = XMLViews.findView("contact-form1", null, null, "test");
+
+    assertNotSame(form1, form3);
+    assertEquals("Updated title", form3.getTitle());
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.rpc;
+
+import com.axelor.db.Model;
+import com.axelor.test.db.Address;
+import com.axelor.test.db.Circle;
+import com.axelor.test.db.Contact;
+import com.axelor.test.db.EnumStatusNumber;
+import com.axelor.test.db.Title;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ModelSerializerTest extends RpcTest {
+
+  private Contact newContact() {
+    Contact contact = new Contact("Some", "Name");
+    contact.setTitle(all(Title.class).fetchOne());
+    contact.setCredit(new BigDecimal("1250"));
+    contact.setDateOfBirth(LocalDate.of(1980, 2, 10));
+    contact.setContactStatus(EnumStatusNumber.TWO);
+    contact.setImage("data:image/png;base64,".getBytes());
+
+    Address address = new Address("Home", "My", "Paris");
+    address.setZip("75001");
+    contact.setAddresses(new ArrayList<>(Arrays.asList(address)));
+    contact.setCircles(new HashSet<>(all(Circle.class).fetch()));
+
+    return contact;
+  }
+
+  private JsonNode read(ObjectMapper mapper, Object value) throws Exception {
+    return mapper.readTree(mapper.writeValueAsString(value));
+  }
+
+  private void assertSame(Model bean) throws Exception {
+    Assert.assertEquals(read(mapper, Resource.toMap(bean)), read(mapper, bean));
+  }
+
+  @Test
+  public void testSaved() throws Exception {
+    List<Contact> contacts = all(Contact.class).fetch();
+    Assert.assertFalse(contacts.isEmpty());
+    for (Contact contact : contacts) {
+      assertSame(contact);
+    }
+  }
+
+  @Test
+  public void testUnsaved() throws Exception {
+    Contact contact = newContact();
+    JsonNode node = read(mapper, contact);
+
+    Assert.assertEquals(read(mapper, Resource.toMap(contact)), node);
+    Assert.assertEquals(2, node.get("contactStatus$value").asInt());
+    Assert.assertTrue(node.get("title").has("$version"));
+    Assert.assertEquals(contact.getCircles().size(), node.get("circles").size());
+    Assert.assertEquals("Home", node.get("addresses").get(0).get("street").asText());
+  }
+
+  private ObjectMapper compactMapper() {
+    ObjectMapper jsonMapper =
+        ObjectMapperProvider.createObjectMapper(new JsonContext.ModelSerializer());
+    jsonMapper
+        .configOverride(Map.class)
+        .setInclude(
+            JsonInclude.Value.construct(
+                JsonInclude.Include.NON_EMPTY, JsonInclude.Include.NON_NULL));
+    return jsonMapper;
+  }
+
+  private void assertCompact(ObjectMapper jsonMapper, Model bean) throws Exception {
+    Map<String, Object> map = Resource.toMapCompact(bean);
+    map.remove("$version");
+    Assert.assertEquals(read(jsonMapper, map), read(jsonMapper, bean));
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    ObjectMapper jsonMapper = compactMapper();
+    for (Model bean : new Model[] {all(Contact.class).fetchOne(), newContact()}) {
+      assertCompact(jsonMapper, bean);
+    }
+  }
+
+  @Test
+  public void testCompactEmpty() throws Exception {
+    ObjectMapper jsonMapper = compactMapper();
+
+    Contact contact = newContact();
+    contact.setEmail("");
+    contact.setCircles(new HashSet<>());
+    assertCompact(jsonMapper, contact);
+
+    JsonNode node = read(jsonMapper, contact);
+    Assert.assertFalse(node.has("email"));
+    Assert.assertFalse(node.has("circles"));
+
+    Title title = new Title();
+    title.setId(1000L);
+    title.setCode("");
+    title.setName("Empty");
+    assertCompact(jsonMapper, title);
+    Assert.assertFalse(read(jsonMapper, title).has("code"));
+  }
+}
@@ -17,7 +17,9 @@
  */
 package com.axelor.rpc;
 
+import com.axelor.auth.db.User;
 import com.axelor.db.JPA;
+import com.axelor.meta.db.MetaAction;
 import com.axelor.test.db.Address;
 import com.axelor.test.db.Circle;
 import com.axelor.test.db.Contact;
@@ -27,6 +29,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.inject.persist.Transactional;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import javax.inject.Inject;
@@ -130,4 +134,82 @@ public class ResourceTest extends RpcTest {
     Assert.assertSame(c, c.getAddresses().get(0).getContact());
     Assert.assertSame(n, n.getAddresses().get(0).getContact());
   }
+
+  private Contact createContact() {
+    final Title title = new Title();
+    title.setCode("tomap");
+    title.setName("To Map");
+
+    final Contact contact = new Contact("Map", "Plan");
+    contact.setTitle(title);
+    contact.setAddresses(new ArrayList<>());
+
+    for (String street : Arrays.asList("1, first street", "2, second street")) {
+      final Address address = new Address(street, null, "Paris");
+      address.setZip("75001");
+      address.setContact(contact);
+      contact.getAddresses().add(address);
+    }
+
+    return contacts.save(contact);
+  }
+
+  @Test
+  @Transactional
+  @SuppressWarnings("all")
+  public void testToMap() {
+
+    Contact c = createContact();
+
+    Map<String, Object> values = Resource.toMap(c, "firstName", "title.code", "addresses");
+
+    Assert.assertEquals(c.getId(), values.get("id"));
+    Assert.assertEquals(c.getVersion(), values.get("version"));
+    Assert.assertEquals("Map", values.get("firstName"));
+    Assert.assertFalse(values.containsKey("lastName"));
+    Assert.assertFalse(values.containsKey("image"));
+
+    Map<String, Object> title = (Map) values.get("title");
+    Assert.assertNotNull(title);
+    Assert.assertEquals(c.getTitle().getId(), title.get("id"));
+    Assert.assertEquals("tomap", title.get("code"));
+
+    List<Object> addresses = (List) values.get("addresses");
+    Assert.assertEquals(2, addresses.size());
+
+    // same plan is used for the next records
+    Assert.assertEquals(values, Resource.toMap(c, "firstName", "title.code", "addresses"));
+
+    Map<String, Object> compact = Resource.toMapCompact(c);
+    Assert.assertEquals(c.getId(), compact.get("id"));
+    Assert.assertEquals(c.getVersion(), compact.get("$version"));
+    Assert.assertFalse(compact.containsKey("firstName"));
+  }
+
+  @Test
+  @Transactional
+  @SuppressWarnings("all")
+  public void testToMapHomeAction() {
+
+    MetaAction action = new MetaAction();
+    action.setName("tomap.home");
+    action.setType("action-view");
+    action.setXml("<action-view name=\"tomap.home\"/>");
+    JPA.save(action);
+
+    User user = new User("tomap", "To Map");
+    user.setPassword("tomap");
+    user.setHomeAction("tomap.home");
+    JPA.save(user);
+
+    Map<String, Object> values = Resource.toMap(user, "code", "homeAction");
+    Map<String, Object> select = (Map) values.get("__actionSelect");
+
+    Assert.assertNotNull(select);
+    Assert.assertEquals(action.getId(), select.get("id"));
+    Assert.assertEquals(values, Resource.toMap(user, "code", "homeAction"));
+
+    user.setHomeAction("tomap.missing");
+    Assert.assertFalse(Resource.toMap(user, "code", "homeAction").containsKey("__actionSelect"));
+  }
 }
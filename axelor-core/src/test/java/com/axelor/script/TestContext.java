@@ -20,11 +20,19 @@ package com.axelor.script;
 import com.axelor.inject.Beans;
 import com.axelor.rpc.Context;
 import com.axelor.rpc.ContextEntity;
+import com.axelor.rpc.ContextHandlerFactory;
 import com.axelor.test.db.Contact;
+import com.axelor.test.db.Title;
 import com.axelor.test.db.TypeCheck;
 import com.axelor.test.db.repo.ContactRepository;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.FixMethodOrder;
@@ -89,6 +97,35 @@ public class TestContext extends ScriptTest {
     Assert.assertNotNull(((ContextEntity) proxy).getContextMap());
   }
 
+  @Test
+  public void testJsonFields() {
+    final Map<String, Object> data = new HashMap<>();
+    final Context context = new Context(data, Contact.class);
+    final List<String> changes = new ArrayList<>();
+
+    context.addChangeListener(evt -> changes.add(evt.getPropertyName()));
+    context.put("nickName", "Some");
+    context.put("numerology", 2);
+
+    // the json value is serialized only when accessed
+    Assert.assertTrue(changes.isEmpty());
+    Assert.assertFalse(data.containsKey("attrs"));
+
+    final String attrs = context.asType(Contact.class).getAttrs();
+
+    Assert.assertNotNull(attrs);
+    Assert.assertTrue(attrs.contains("\"nickName\":\"Some\""));
+    Assert.assertEquals(1, changes.size());
+    Assert.assertEquals(attrs, data.get("attrs"));
+    Assert.assertEquals("Some", context.get("nickName"));
+    Assert.assertEquals(2, context.get("numerology"));
+
+    // iterating the context applies the pending changes
+    context.put("nickName", "Other");
+    Assert.assertTrue(context.keySet().contains("attrs"));
+    Assert.assertTrue(((String) data.get("attrs")).contains("\"nickName\":\"Other\""));
+  }
+
   @Test
   public void testBooleanAndIntegerFields() {
     Map<String, Object> data = new HashMap<>();
@@ -97,6 +134,58 @@ public class TestContext extends ScriptTest {
     Assert.assertEquals(0, context.get("intValue"));
   }
 
+  // loads its own copy of the given class, so that it has no cached proxy class
+  private static class CopyClassLoader extends ClassLoader {
+
+    private final String className;
+
+    CopyClassLoader(Class<?> klass) {
+      super(klass.getClassLoader());
+      this.className = klass.getName();
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!className.equals(name)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        final Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) {
+          return loaded;
+        }
+        final String resource = name.replace('.', '/') + ".class";
+        try (InputStream stream = getParent().getResourceAsStream(resource)) {
+          final byte[] bytes = ByteStreams.toByteArray(stream);
+          return defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testProxyClasses() throws Exception {
+    // the proxy classes of the entities are generated at startup
+    Assert.assertEquals(
+        0,
+        ContextHandlerFactory.refresh(Arrays.asList(Contact.class, Title.class, TypeCheck.class)));
+
+    final Class<?> copy = new CopyClassLoader(Title.class).loadClass(Title.class.getName());
+    Assert.assertNotEquals(Title.class, copy);
+    Assert.assertEquals(1, ContextHandlerFactory.refresh(Arrays.asList(copy, Contact.class)));
+    Assert.assertEquals(0, ContextHandlerFactory.refresh(Arrays.asList(copy)));
+
+    final Class<?> contact = new Context(Contact.class).asType(Contact.class).getClass();
+    final Class<?> title = new Context(Title.class).asType(Title.class).getClass();
+
+    Assert.assertNotEquals(Contact.class, contact);
+    Assert.assertEquals(contact, new Context(Contact.class).asType(Contact.class).getClass());
+    Assert.assertEquals(contact.getClassLoader(), title.getClassLoader());
+    Assert.assertNotEquals(Contact.class.getClassLoader(), contact.getClassLoader());
+  }
+
   @Test
   public void testEL() {
     testConfig(new ELScriptHelper(new ScriptBindings(context())));
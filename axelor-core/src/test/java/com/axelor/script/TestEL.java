@@ -108,6 +108,17 @@ public class TestEL extends ScriptTest {
     doTestSpeed(EXPR_CONDITION);
   }
 
+  @Test
+  public void test15_cache() {
+    final String expr = "firstName += ' ' += lastName";
+    final Object expected = new ELScriptHelper(context()).eval(expr);
+    final long hits = ELScriptHelper.getCacheStats().hitCount();
+    for (int i = 0; i < COUNT; i++) {
+      Assert.assertEquals(expected, new ELScriptHelper(context()).eval(expr));
+    }
+    Assert.assertEquals(hits + COUNT, ELScriptHelper.getCacheStats().hitCount());
+  }
+
   @Test
   public void test14_java_concat() {
     Context context = context();
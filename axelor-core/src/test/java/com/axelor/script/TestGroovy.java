@@ -70,6 +70,16 @@ public class TestGroovy extends ScriptTest {
     actual = helper.eval("(__ref__ as Contact).fullName + ' (" + counter + ")'");
   }
 
+  @Test
+  public void testCall() {
+    final ScriptHelper helper = new GroovyScriptHelper(context());
+    Assert.assertEquals("AXELOR", helper.call("axelor", "toUpperCase()"));
+
+    final long generated = GroovyScriptHelper.getClassesGenerated();
+    Assert.assertEquals("OPEN", helper.call("open", "toUpperCase()"));
+    Assert.assertEquals(generated, GroovyScriptHelper.getClassesGenerated());
+  }
+
   @Test
   public void doJpaTest() {
     final ScriptHelper helper = new GroovyScriptHelper(context());
@@ -0,0 +1,244 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.web.service;
+
+import com.axelor.auth.AuthUtils;
+import com.axelor.auth.db.User;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.db.internal.DBHelper;
+import com.axelor.dms.db.DMSFile;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hibernate.query.NativeQuery;
+
+/**
+ * Resolves all the files of a {@link DMSFile} directory tree readable by the current user.
+ *
+ * <p>On PostgreSQL, the whole tree is loaded with a single recursive query with the permission
+ * predicate applied in SQL. On other databases, the tree is loaded level by level, with one query
+ * per level (and per chunk of directories) instead of one query per directory.
+ *
+ * <p>The files are given to the {@link Visitor} as soon as they are resolved, in chunks of {@link
+ * DBHelper#getJdbcFetchSize()} records, parent directories first. The persistence context is
+ * cleared after each chunk, so the visited records must not be used once the chunk is visited.
+ */
+final class DmsFileTree {
+
+  private static final int MAX_PARAMS = 500;
+
+  private static volatile Boolean recursiveQuerySupported;
+
+  /** Visitor of the resolved files. */
+  @FunctionalInterface
+  interface Visitor {
+
+    /**
+     * Visit the given file.
+     *
+     * @param base the path of the parent directory, relative to the tree root
+     * @param file the file or directory
+     * @throws IOException if an I/O error occurs
+     */
+    void visit(String base, DMSFile file) throws IOException;
+  }
+
+  private final Long userId;
+
+  private final Long groupId;
+
+  private final boolean admin;
+
+  private final int chunkSize;
+
+  DmsFileTree(User user, int chunkSize) {
+    this.userId = user.getId();
+    this.groupId = user.getGroup() == null ? null : user.getGroup().getId();
+    this.admin = AuthUtils.isAdmin(user);
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Create a tree resolver for the current user.
+   *
+   * @return the resolver, or null if there is no logged in user
+   */
+  static DmsFileTree forCurrentUser() {
+    final User user = AuthUtils.getUser();
+    return user == null ? null : new DmsFileTree(user, DBHelper.getJdbcFetchSize());
+  }
+
+  /**
+   * Walk the tree of the given file.
+   *
+   * @param root the root file or directory
+   * @param visitor the visitor
+   * @throws IOException if the visitor fails
+   */
+  void walk(DMSFile root, Visitor visitor) throws IOException {
+    // the root may have been detached by a previous walk
+    if (!JPA.em().contains(root)) {
+      root = JPA.em().find(DMSFile.class, root.getId());
+    }
+    visitor.visit("", root);
+    if (root.getIsDirectory() != Boolean.TRUE) {
+      return;
+    }
+    if (isRecursiveQuerySupported()) {
+      walkRecursive(root, visitor);
+    } else {
+      walkLevels(root, visitor);
+    }
+  }
+
+  private static boolean isRecursiveQuerySupported() {
+    if (recursiveQuerySupported == null) {
+      final boolean[] supported = {false};
+      JPA.jdbcWork(
+          connection ->
+              supported[0] =
+                  connection.getMetaData().getDatabaseProductName().contains("PostgreSQL"));
+      recursiveQuerySupported = supported[0];
+    }
+    return recursiveQuerySupported;
+  }
+
+  private String getPermissionFilter(String alias) {
+    if (admin) {
+      return "";
+    }
+    return " AND EXISTS (SELECT 1 FROM dms_permission p WHERE p.file_id = "
+        + alias
+        + ".id AND (p.user_id = :user"
+        + (groupId == null ? "" : " OR p.group_id = :group")
+        + "))";
+  }
+
+  @SuppressWarnings("unchecked")
+  private void walkRecursive(DMSFile root, Visitor visitor) throws IOException {
+    final String sql =
+        "WITH RECURSIVE tree (id, name, base) AS ("
+            + "SELECT f.id, f.file_name, CAST('' AS TEXT) FROM dms_file f WHERE f.parent = :root"
+            + getPermissionFilter("f")
+            + " UNION ALL "
+            + "SELECT c.id, c.file_name, t.base || '/' || t.name FROM dms_file c "
+            + "JOIN tree t ON c.parent = t.id"
+            + getPermissionFilter("c")
+            + ") SELECT id, base FROM tree ORDER BY base, id";
+
+    final NativeQuery<Object[]> query = JPA.em().createNativeQuery(sql).unwrap(NativeQuery.class);
+
+    query.setParameter("root", root.getId());
+    if (!admin) {
+      query.setParameter("user", userId);
+      if (groupId != null) {
+        query.setParameter("group", groupId);
+      }
+    }
+
+    query.setFetchSize(chunkSize);
+
+    final String prefix = "/" + root.getFileName();
+    final Map<Long, String> chunk = new LinkedHashMap<>();
+
+    try (Stream<Object[]> rows = query.stream()) {
+      for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+        chunk.put(((Number) row[0]).longValue(), prefix + row[1]);
+        if (chunk.size() >= chunkSize) {
+          visit(chunk, visitor);
+          chunk.clear();
+        }
+      }
+    }
+
+    visit(chunk, visitor);
+  }
+
+  private void visit(Map<Long, String> chunk, Visitor visitor) throws IOException {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    final List<DMSFile> records =
+        Query.of(DMSFile.class).filter("self.id IN :ids").bind("ids", chunk.keySet()).fetch();
+    final Map<Long, DMSFile> files =
+        records.stream().collect(Collectors.toMap(DMSFile::getId, Function.identity()));
+    for (Map.Entry<Long, String> entry : chunk.entrySet()) {
+      final DMSFile file = files.get(entry.getKey());
+      if (file != null) {
+        visitor.visit(entry.getValue(), file);
+      }
+    }
+    JPA.em().clear();
+  }
+
+  private void walkLevels(DMSFile root, Visitor visitor) throws IOException {
+    final String filter =
+        admin
+            ? "self.parent.id IN :parents"
+            : "self.parent.id IN :parents AND (self.permissions.user.id = :user"
+                + (groupId == null ? "" : " OR self.permissions.group.id = :group")
+                + ")";
+
+    final Set<Long> seen = new HashSet<>();
+    Map<Long, String> level = new LinkedHashMap<>();
+    level.put(root.getId(), "/" + root.getFileName());
+
+    while (!level.isEmpty()) {
+      final Map<Long, String> next = new LinkedHashMap<>();
+      final List<Long> parents = new ArrayList<>(level.keySet());
+      for (int i = 0; i < parents.size(); i += MAX_PARAMS) {
+        final Collection<Long> ids = parents.subList(i, Math.min(i + MAX_PARAMS, parents.size()));
+        final Query<DMSFile> query =
+            Query.of(DMSFile.class).filter(filter).bind("parents", ids).order("id");
+        if (!admin) {
+          query.bind("user", userId);
+          if (groupId != null) {
+            query.bind("group", groupId);
+          }
+        }
+        for (int offset = 0; ; offset += chunkSize) {
+          final List<DMSFile> files = query.fetch(chunkSize, offset);
+          for (DMSFile file : files) {
+            if (!seen.add(file.getId())) {
+              continue;
+            }
+            final String base = level.get(file.getParent().getId());
+            visitor.visit(base, file);
+            if (file.getIsDirectory() == Boolean.TRUE) {
+              next.put(file.getId(), base + "/" + file.getFileName());
+            }
+          }
+          JPA.em().clear();
+          if (files.size() < chunkSize) {
+            break;
+          }
+        }
+      }
+      level = next;
+    }
+  }
+}
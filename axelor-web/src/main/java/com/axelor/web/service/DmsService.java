@@ -18,7 +18,6 @@
 package com.axelor.web.service;
 
 import com.axelor.auth.AuthUtils;
-import com.axelor.auth.db.User;
 import com.axelor.common.ObjectUtils;
 import com.axelor.common.StringUtils;
 import com.axelor.db.JPA;
@@ -37,28 +36,31 @@ import com.axelor.rpc.Response;
 import com.axelor.script.GroovyScriptHelper;
 import com.axelor.script.ScriptHelper;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Longs;
 import com.google.inject.servlet.RequestScoped;
 import com.opencsv.CSVWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import javax.inject.Inject;
@@ -74,6 +76,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
@@ -88,11 +91,20 @@ public class DmsService {
 
   @Context private HttpServletRequest httpRequest;
 
+  @Context private HttpHeaders httpHeaders;
+
   @Inject private DMSFileRepository repository;
 
   private static final Map<String, String> EXTS =
       ImmutableMap.of("html", ".html", "spreadsheet", ".csv");
 
+  private static final Set<String> COMPRESSED_EXTS =
+      ImmutableSet.of(
+          "7z", "bz2", "docx", "gif", "gz", "jpeg", "jpg", "mp3", "mp4", "odp", "ods", "odt",
+          "png", "pptx", "rar", "webm", "webp", "xlsx", "xz", "zip");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   @GET
   @Path("files")
   public Response listFiles(
@@ -286,17 +298,9 @@ public class DmsService {
       return javax.ws.rs.core.Response.status(Status.NOT_FOUND).build();
     }
 
-    final StreamingOutput so =
-        new StreamingOutput() {
-          @Override
-          public void write(OutputStream output) throws IOException, WebApplicationException {
-            try (InputStream input = new FileInputStream(path)) {
-              writeTo(output, input);
-            }
-          }
-        };
-
-    return stream(so, file.getFileName(), false);
+    return FileResponse.of(path.toPath(), file.getMetaFile())
+        .name(file.getFileName())
+        .build(httpHeaders);
   }
 
   @POST
@@ -404,7 +408,17 @@ public class DmsService {
       final DMSFile record = records.get(0);
       File file = getFile(record);
       if (file != null) {
-        return stream(file, getFileName(record), inline);
+        final String fileName = getFileName(record);
+        final MediaType type = getMediaType(fileName, inline);
+        final FileResponse response =
+            record.getMetaFile() == null
+                ? FileResponse.of(file.toPath()).temporary()
+                : FileResponse.of(file.toPath(), record.getMetaFile());
+        return response
+            .name(fileName)
+            .type(type)
+            .inline(inline && type != MediaType.APPLICATION_OCTET_STREAM_TYPE)
+            .build(httpHeaders);
       }
     }
 
@@ -487,76 +501,71 @@ public class DmsService {
     return record.getFileName() + EXTS.getOrDefault(record.getContentType(), "");
   }
 
-  private Map<String, File> findFiles(DMSFile file, String base) {
-    final User user = AuthUtils.getUser();
-
-    if (user == null) {
-      return Collections.emptyMap();
-    }
-
-    String childrenQlString = "self.parent = :parent";
-
-    if (!AuthUtils.isAdmin(user)) {
-      childrenQlString += " AND (self.permissions.user = :user OR self.permissions.group = :group)";
-    }
-
-    return findFiles(file, base, childrenQlString, user);
+  private void writeToZip(ZipOutputStream zos, DMSFile dmsFile) throws IOException {
+    final DmsFileTree tree = DmsFileTree.forCurrentUser();
+    if (tree == null) {
+      return;
+    }
+    tree.walk(
+        dmsFile,
+        (base, file) -> {
+          final String path = base + "/" + file.getFileName();
+          if (file.getIsDirectory() == Boolean.TRUE) {
+            zos.putNextEntry(new ZipEntry(path.substring(1) + "/"));
+            zos.closeEntry();
+            return;
+          }
+          final File relatedFile = getFile(file);
+          if (relatedFile == null || !relatedFile.exists()) {
+            return;
+          }
+          try {
+            writeToZip(zos, base + "/" + getFileName(file), relatedFile.toPath());
+          } finally {
+            // delete generated files
+            if (file.getMetaFile() == null) {
+              Files.deleteIfExists(relatedFile.toPath());
+            }
+          }
+        });
   }
 
-  private Map<String, File> findFiles(
-      DMSFile file, String base, String childrenQlString, User user) {
-    final Map<String, File> files = new LinkedHashMap<>();
-    if (file.getIsDirectory() == Boolean.TRUE) {
-      final List<DMSFile> children =
-          repository
-              .all()
-              .filter(childrenQlString, file, user, user.getGroup())
-              .bind("parent", file)
-              .bind("user", user)
-              .bind("group", user.getGroup())
-              .fetch();
-      final String path = base + "/" + file.getFileName();
-      files.put(path + "/", null);
-      for (DMSFile child : children) {
-        files.putAll(findFiles(child, path, childrenQlString, user));
+  private void writeToZip(ZipOutputStream zos, String path, java.nio.file.Path file)
+      throws IOException {
+    final ZipEntry entry = new ZipEntry(path.substring(1));
+
+    // store already compressed files as is
+    if (isCompressed(path)) {
+      final CRC32 crc = new CRC32();
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        while (channel.read(buffer) != -1) {
+          buffer.flip();
+          crc.update(buffer);
+          buffer.clear();
+        }
       }
-      return files;
-    }
-    final File relatedFile = getFile(file);
-    if (relatedFile != null && relatedFile.exists()) {
-      files.put(base + "/" + getFileName(file), relatedFile);
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(Files.size(file));
+      entry.setCompressedSize(entry.getSize());
+      entry.setCrc(crc.getValue());
     }
-    return files;
-  }
 
-  private void writeToZip(ZipOutputStream zos, DMSFile dmsFile) throws IOException {
-    final Map<String, File> files = findFiles(dmsFile, "");
-    for (final String entry : files.keySet()) {
-      File file = files.get(entry);
-      zos.putNextEntry(new ZipEntry(entry.charAt(0) == '/' ? entry.substring(1) : entry));
-      if (file == null) {
-        zos.closeEntry();
-        continue;
-      }
-      final FileInputStream fis = new FileInputStream(file);
-      try {
-        writeTo(zos, fis);
-      } finally {
-        fis.close();
-        zos.closeEntry();
-      }
+    zos.putNextEntry(entry);
+    try {
+      Files.copy(file, zos);
+    } finally {
+      zos.closeEntry();
     }
   }
 
-  private void writeTo(OutputStream os, InputStream is) throws IOException {
-    int read = 0;
-    byte[] bytes = new byte[2048];
-    while ((read = is.read(bytes)) != -1) {
-      os.write(bytes, 0, read);
-    }
+  private static boolean isCompressed(String fileName) {
+    final int index = fileName.lastIndexOf('.');
+    return index > -1
+        && COMPRESSED_EXTS.contains(fileName.substring(index + 1).toLowerCase(Locale.ROOT));
   }
 
-  private javax.ws.rs.core.Response stream(Object content, String fileName, boolean inline) {
+  private MediaType getMediaType(String fileName, boolean inline) {
     MediaType type = MediaType.APPLICATION_OCTET_STREAM_TYPE;
 
     if (inline) {
@@ -570,6 +579,11 @@ public class DmsService {
       if (fileName.endsWith(".webp")) type = new MediaType("image", "webp");
     }
 
+    return type;
+  }
+
+  private javax.ws.rs.core.Response stream(Object content, String fileName, boolean inline) {
+    final MediaType type = getMediaType(fileName, inline);
     final ResponseBuilder builder = javax.ws.rs.core.Response.ok(content, type);
 
     if (inline && type != MediaType.APPLICATION_OCTET_STREAM_TYPE) {
@@ -0,0 +1,324 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.web.service;
+
+import com.axelor.meta.db.MetaFile;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.function.Function;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Serves a file with support of conditional and range requests.
+ *
+ * <p>The response provides <code>ETag</code>, <code>Last-Modified</code>, <code>Accept-Ranges
+ * </code> and <code>Content-Length</code> headers. Requests with matching <code>If-None-Match
+ * </code> or <code>If-Modified-Since</code> headers get a <code>304 Not Modified</code> response,
+ * and a single byte range given with <code>Range</code> (and optionally validated with <code>
+ * If-Range</code>) is served as <code>206 Partial Content</code>.
+ *
+ * <p>Temporary files are served without caching and range support, and are deleted once
+ * written.
+ */
+final class FileResponse {
+
+  private static final long TRANSFER_SIZE = 1024 * 1024;
+
+  private static final String BYTES_UNIT = "bytes";
+
+  private final Path file;
+
+  private String fileName;
+
+  private MediaType type = MediaType.APPLICATION_OCTET_STREAM_TYPE;
+
+  private boolean inline;
+
+  private String tag;
+
+  private boolean temporary;
+
+  private FileResponse(Path file) {
+    this.file = file;
+    this.fileName = file.getFileName().toString();
+  }
+
+  /**
+   * Create a response for the given file.
+   *
+   * @param file the file to serve
+   * @return a new {@link FileResponse}
+   */
+  public static FileResponse of(Path file) {
+    return new FileResponse(file);
+  }
+
+  /**
+   * Create a response for the given file, the entity tag is derived from the {@link MetaFile} id.
+   *
+   * @param file the file to serve
+   * @param metaFile the {@link MetaFile} of the file
+   * @return a new {@link FileResponse}
+   */
+  public static FileResponse of(Path file, MetaFile metaFile) {
+    final FileResponse response = new FileResponse(file);
+    if (metaFile.getId() != null) {
+      response.tag = Long.toHexString(metaFile.getId());
+    }
+    return response;
+  }
+
+  public FileResponse name(String fileName) {
+    this.fileName = fileName;
+    return this;
+  }
+
+  public FileResponse type(MediaType type) {
+    this.type = type;
+    return this;
+  }
+
+  public FileResponse inline(boolean inline) {
+    this.inline = inline;
+    return this;
+  }
+
+  public FileResponse temporary() {
+    this.temporary = true;
+    return this;
+  }
+
+  /**
+   * Build the response for the given request headers.
+   *
+   * @param headers the request headers
+   * @return the response
+   */
+  public Response build(HttpHeaders headers) {
+    return build(headers == null ? name -> null : headers::getHeaderString);
+  }
+
+  Response build(Function<String, String> headers) {
+    if (!Files.isRegularFile(file)) {
+      return Response.status(Status.NOT_FOUND).build();
+    }
+
+    final long size;
+    final long lastModified;
+    try {
+      size = Files.size(file);
+      lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    if (temporary) {
+      return headers(Response.ok(output(0, size)), size).build();
+    }
+
+    final String etag = etag(size, lastModified);
+
+    if (notModified(headers, etag, lastModified)) {
+      return Response.notModified()
+          .header(HttpHeaders.ETAG, etag)
+          .lastModified(new Date(lastModified))
+          .build();
+    }
+
+    long[] range = null;
+    final String rangeHeader = headers.apply("Range");
+    if (rangeHeader != null && matches(headers.apply("If-Range"), etag, lastModified)) {
+      range = range(rangeHeader, size);
+      if (range != null && range.length == 0) {
+        return Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+            .header("Content-Range", BYTES_UNIT + " */" + size)
+            .header("Accept-Ranges", BYTES_UNIT)
+            .build();
+      }
+    }
+
+    final ResponseBuilder builder;
+    if (range == null) {
+      builder = headers(Response.ok(output(0, size)), size);
+    } else {
+      final long length = range[1] - range[0] + 1;
+      builder =
+          headers(Response.status(Status.PARTIAL_CONTENT).entity(output(range[0], length)), length)
+              .header("Content-Range", BYTES_UNIT + " " + range[0] + "-" + range[1] + "/" + size);
+    }
+
+    return builder
+        .header(HttpHeaders.ETAG, etag)
+        .lastModified(new Date(lastModified))
+        .header(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+        .header("Accept-Ranges", BYTES_UNIT)
+        .build();
+  }
+
+  private ResponseBuilder headers(ResponseBuilder builder, long length) {
+    final String disposition = inline ? "inline" : "attachment";
+    builder
+        .type(type)
+        .header(HttpHeaders.CONTENT_LENGTH, length)
+        .header("Content-Disposition", disposition + "; filename=\"" + fileName + "\"");
+    if (!inline) {
+      builder.header("Content-Transfer-Encoding", "binary");
+    }
+    return builder;
+  }
+
+  private String etag(long size, long lastModified) {
+    final StringBuilder builder = new StringBuilder("\"");
+    if (tag != null) {
+      builder.append(tag).append('-');
+    }
+    return builder
+        .append(Long.toHexString(size))
+        .append('-')
+        .append(Long.toHexString(lastModified))
+        .append('"')
+        .toString();
+  }
+
+  private static boolean notModified(
+      Function<String, String> headers, String etag, long lastModified) {
+    final String ifNoneMatch = headers.apply("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String value : ifNoneMatch.split(",")) {
+        final String item = value.trim();
+        if ("*".equals(item) || etag.equals(item) || ("W/" + etag).equals(item)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    final long since = parseDate(headers.apply("If-Modified-Since"));
+    return since > -1 && lastModified <= since;
+  }
+
+  private static boolean matches(String ifRange, String etag, long lastModified) {
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      return etag.equals(ifRange);
+    }
+    return parseDate(ifRange) == lastModified;
+  }
+
+  private static long parseDate(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant()
+          .toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Parse the given range header.
+   *
+   * <p>Only a single byte range is supported, other ranges are ignored and the whole file is
+   * served.
+   *
+   * @param value the range header value
+   * @param size the file size
+   * @return the first and last byte positions, an empty array if the range is not satisfiable, or
+   *     null if the range is not supported
+   */
+  static long[] range(String value, long size) {
+    if (!value.startsWith(BYTES_UNIT + "=") || value.indexOf(',') > -1) {
+      return null;
+    }
+
+    final String spec = value.substring(BYTES_UNIT.length() + 1).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+
+    long start;
+    long end;
+    try {
+      if (dash == 0) {
+        final long suffix = Long.parseLong(spec.substring(1));
+        if (suffix <= 0) {
+          return new long[0];
+        }
+        start = Math.max(0, size - suffix);
+        end = size - 1;
+      } else {
+        start = Long.parseLong(spec.substring(0, dash));
+        end = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+
+    if (end < start) {
+      return null;
+    }
+    if (start >= size) {
+      return new long[0];
+    }
+
+    return new long[] {start, Math.min(end, size - 1)};
+  }
+
+  private StreamingOutput output(long position, long length) {
+    return output -> {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        final WritableByteChannel target = Channels.newChannel(output);
+        long offset = position;
+        long remaining = length;
+        while (remaining > 0) {
+          final long count = channel.transferTo(offset, Math.min(remaining, TRANSFER_SIZE), target);
+          if (count <= 0) {
+            break;
+          }
+          offset += count;
+          remaining -= count;
+        }
+        output.flush();
+      } finally {
+        if (temporary) {
+          Files.deleteIfExists(file);
+        }
+      }
+    };
+  }
+}
@@ -62,12 +62,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Longs;
 import com.google.inject.servlet.RequestScoped;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
@@ -92,11 +89,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
-import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
-import javax.ws.rs.core.StreamingOutput;
 import javax.xml.bind.DatatypeConverter;
 import org.jboss.resteasy.plugins.providers.multipart.InputPart;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
@@ -109,6 +106,8 @@ public class RestService extends ResourceService {
 
   @Inject private MetaService service;
 
+  @Context private HttpHeaders httpHeaders;
+
   @Inject private MailMessageRepository messages;
 
   @Inject private MailFollowerRepository followers;
@@ -308,17 +307,6 @@ public class RestService extends ResourceService {
     return getResource().getRecordName(request);
   }
 
-  private void uploadSave(InputStream in, OutputStream out) throws IOException {
-    int read = 0;
-    byte[] bytes = new byte[1024];
-    while ((read = in.read(bytes)) != -1) {
-      out.write(bytes, 0, read);
-    }
-    out.flush();
-    out.close();
-    in.close();
-  }
-
   private String getFileName(MultivaluedMap<String, String> headers) {
     final String[] parts = headers.getFirst("Content-Disposition").split(";");
     for (String filename : parts) {
@@ -361,14 +349,20 @@ public class RestService extends ResourceService {
 
     final Map<String, Object> data = request.getData();
 
+    final MetaFiles files = Beans.get(MetaFiles.class);
+
     if (!isAttachment) {
-      ByteArrayOutputStream out = new ByteArrayOutputStream();
-      uploadSave(fileStream, out);
-      data.put(field, out.toByteArray());
+      // stream to disk first, so the binary value is read in an exactly sized array
+      final java.nio.file.Path tmp = MetaFiles.createTempFile("upload", null);
+      try {
+        files.upload(fileStream, 0, -1, tmp.getFileName().toString());
+        data.put(field, Files.readAllBytes(tmp));
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
       return getResource().save(request);
     }
 
-    final MetaFiles files = Beans.get(MetaFiles.class);
     final MetaFileRepository repo = Beans.get(MetaFileRepository.class);
     final MetaFile metaFile = Mapper.toBean(MetaFile.class, data);
 
@@ -393,25 +387,13 @@ public class RestService extends ResourceService {
   private static final String BLANK_IMAGE =
       "data:image/gif;base64,R0lGODlhAQABAIAAAAAAAP///yH5BAEAAAAALAAAAAABAAEAAAIBRAA7";
 
-  @SuppressWarnings("all")
   private javax.ws.rs.core.Response download(MetaFile metaFile) {
     final Mapper mapper = Mapper.of(MetaFile.class);
     final String fileName = (String) mapper.get(metaFile, "fileName");
     final String filePath = (String) mapper.get(metaFile, "filePath");
-    final File inputFile = Beans.get(MetaFiles.class).getPath(filePath).toFile();
-    if (!inputFile.exists()) {
-      return javax.ws.rs.core.Response.status(Status.NOT_FOUND).build();
-    }
-    return javax.ws.rs.core.Response.ok(
-            new StreamingOutput() {
-
-              @Override
-              public void write(OutputStream output) throws IOException, WebApplicationException {
-                uploadSave(new FileInputStream(inputFile), output);
-              }
-            })
-        .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-        .build();
+    return FileResponse.of(MetaFiles.getPath(filePath), metaFile)
+        .name(fileName)
+        .build(httpHeaders);
   }
 
   @GET
@@ -662,24 +644,14 @@ public class RestService extends ResourceService {
   @GET
   @Path("export/{name}")
   @Produces("text/csv")
-  public StreamingOutput export(@PathParam("name") final String name) {
+  public javax.ws.rs.core.Response export(@PathParam("name") final String name) {
 
     final java.nio.file.Path temp = MetaFiles.findTempFile(name);
     if (Files.notExists(temp)) {
       throw new IllegalArgumentException(name);
     }
 
-    return new StreamingOutput() {
-
-      @Override
-      public void write(OutputStream output) throws IOException, WebApplicationException {
-        try (final InputStream is = new FileInputStream(temp.toFile())) {
-          uploadSave(is, output);
-        } finally {
-          Files.deleteIfExists(temp);
-        }
-      }
-    };
+    return FileResponse.of(temp).type(new MediaType("text", "csv")).temporary().build(httpHeaders);
   }
 
   @POST
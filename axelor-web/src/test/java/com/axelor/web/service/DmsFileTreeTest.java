@@ -0,0 +1,148 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.web.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.axelor.auth.db.Group;
+import com.axelor.auth.db.User;
+import com.axelor.db.JPA;
+import com.axelor.db.Query;
+import com.axelor.dms.db.DMSFile;
+import com.axelor.dms.db.DMSPermission;
+import com.axelor.test.GuiceModules;
+import com.axelor.test.GuiceRunner;
+import com.axelor.web.TestModule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(GuiceRunner.class)
+@GuiceModules({TestModule.class})
+public class DmsFileTreeTest {
+
+  @Before
+  public void setUp() {
+    if (Query.of(DMSFile.class).filter("self.fileName = 'tree'").count() > 0) {
+      return;
+    }
+    JPA.runInTransaction(
+        () -> {
+          final Group group = new Group("tree-readers", "Tree readers");
+          final User user = new User("tree-user", "Tree user");
+          user.setPassword("secret");
+          user.setGroup(JPA.save(group));
+          JPA.save(user);
+          if (Query.of(User.class).filter("self.code = 'admin'").count() == 0) {
+            final User admin = new User("admin", "Administrator");
+            admin.setPassword("secret");
+            JPA.save(admin);
+          }
+
+          final DMSFile root = create(null, "tree", true, null, null);
+          final DMSFile a = create(root, "a", true, user, null);
+          final DMSFile b = create(root, "b", true, null, group);
+          final DMSFile c = create(root, "c", true, null, null);
+          create(a, "a1.txt", false, user, null);
+          create(a, "a2.txt", false, user, null);
+          create(a, "a3.txt", false, null, null);
+          final DMSFile ab = create(a, "ab", true, null, group);
+          create(ab, "ab1.txt", false, user, null);
+          create(b, "b1.txt", false, null, group);
+          create(c, "c1.txt", false, user, null);
+        });
+  }
+
+  private static DMSFile create(
+      DMSFile parent, String name, boolean directory, User user, Group group) {
+    DMSFile file = new DMSFile();
+    file.setFileName(name);
+    file.setIsDirectory(directory);
+    file.setParent(parent);
+    file = JPA.save(file);
+    if (user != null || group != null) {
+      final DMSPermission permission = new DMSPermission();
+      permission.setValue("READ");
+      permission.setFile(file);
+      permission.setUser(user);
+      permission.setGroup(group);
+      JPA.save(permission);
+    }
+    return file;
+  }
+
+  private static List<String> walk(String userCode, int chunkSize) throws IOException {
+    final User user = Query.of(User.class).filter("self.code = ?", userCode).fetchOne();
+    final DMSFile root = Query.of(DMSFile.class).filter("self.fileName = 'tree'").fetchOne();
+    final List<String> paths = new ArrayList<>();
+    final List<DMSFile> visited = new ArrayList<>();
+    new DmsFileTree(user, chunkSize)
+        .walk(
+            root,
+            (base, file) -> {
+              paths.add(base + "/" + file.getFileName());
+              visited.add(file);
+            });
+
+    // visited records are not kept in the persistence context
+    for (DMSFile file : visited.subList(1, visited.size())) {
+      assertFalse(JPA.em().contains(file));
+    }
+    return paths;
+  }
+
+  @Test
+  public void testPermissions() throws IOException {
+    final List<String> expected =
+        Arrays.asList(
+            "/tree",
+            "/tree/a",
+            "/tree/b",
+            "/tree/a/a1.txt",
+            "/tree/a/a2.txt",
+            "/tree/a/ab",
+            "/tree/b/b1.txt",
+            "/tree/a/ab/ab1.txt");
+    assertEquals(expected, walk("tree-user", 2));
+    assertEquals(expected, walk("tree-user", 100));
+  }
+
+  @Test
+  public void testAdmin() throws IOException {
+    final List<String> expected =
+        Arrays.asList(
+            "/tree",
+            "/tree/a",
+            "/tree/b",
+            "/tree/c",
+            "/tree/a/a1.txt",
+            "/tree/a/a2.txt",
+            "/tree/a/a3.txt",
+            "/tree/a/ab",
+            "/tree/b/b1.txt",
+            "/tree/c/c1.txt",
+            "/tree/a/ab/ab1.txt");
+    assertEquals(expected, walk("admin", 2));
+    assertEquals(expected, walk("admin", 3));
+  }
+}
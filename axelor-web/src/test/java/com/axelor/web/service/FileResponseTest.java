@@ -0,0 +1,134 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.web.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileResponseTest {
+
+  private static final String CONTENT = "0123456789";
+
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = Files.createTempFile("test", ".txt");
+    Files.write(file, CONTENT.getBytes());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private static String content(Response response) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    return out.toString();
+  }
+
+  @Test
+  public void testRange() {
+    assertArrayEquals(new long[] {0, 4}, FileResponse.range("bytes=0-4", 10));
+    assertArrayEquals(new long[] {5, 9}, FileResponse.range("bytes=5-", 10));
+    assertArrayEquals(new long[] {7, 9}, FileResponse.range("bytes=-3", 10));
+    assertArrayEquals(new long[] {8, 9}, FileResponse.range("bytes=8-20", 10));
+    assertArrayEquals(new long[0], FileResponse.range("bytes=10-", 10));
+    assertNull(FileResponse.range("bytes=0-1,4-5", 10));
+    assertNull(FileResponse.range("items=0-1", 10));
+    assertNull(FileResponse.range("bytes=5-2", 10));
+  }
+
+  @Test
+  public void testRepeatedViews() throws IOException {
+    final Map<String, String> headers = new HashMap<>();
+
+    // first view transfers the whole file
+    Response response = FileResponse.of(file).build(headers::get);
+    assertEquals(200, response.getStatus());
+    assertEquals(CONTENT, content(response));
+
+    final String etag = response.getHeaderString(HttpHeaders.ETAG);
+    final String lastModified = response.getHeaderString(HttpHeaders.LAST_MODIFIED);
+
+    // next views are not transferred again
+    headers.put("If-None-Match", etag);
+    response = FileResponse.of(file).build(headers::get);
+    assertEquals(304, response.getStatus());
+    assertFalse(response.hasEntity());
+
+    headers.clear();
+    headers.put("If-Modified-Since", lastModified);
+    response = FileResponse.of(file).build(headers::get);
+    assertEquals(304, response.getStatus());
+  }
+
+  @Test
+  public void testPartialContent() throws IOException {
+    final Map<String, String> headers = new HashMap<>();
+    final String etag = FileResponse.of(file).build(headers::get).getHeaderString(HttpHeaders.ETAG);
+
+    headers.put("Range", "bytes=2-5");
+    Response response = FileResponse.of(file).build(headers::get);
+    assertEquals(206, response.getStatus());
+    assertEquals("bytes 2-5/10", response.getHeaderString("Content-Range"));
+    assertEquals("2345", content(response));
+
+    // resume with a valid validator
+    headers.put("If-Range", etag);
+    response = FileResponse.of(file).build(headers::get);
+    assertEquals(206, response.getStatus());
+
+    // changed file, the whole file is sent
+    headers.put("If-Range", "\"other\"");
+    response = FileResponse.of(file).build(headers::get);
+    assertEquals(200, response.getStatus());
+    assertEquals(CONTENT, content(response));
+
+    headers.remove("If-Range");
+    headers.put("Range", "bytes=20-");
+    response = FileResponse.of(file).build(headers::get);
+    assertEquals(416, response.getStatus());
+  }
+
+  @Test
+  public void testTemporary() throws IOException {
+    final Map<String, String> headers = new HashMap<>();
+    headers.put("Range", "bytes=2-5");
+    final Response response = FileResponse.of(file).temporary().build(headers::get);
+    assertEquals(200, response.getStatus());
+    assertEquals(CONTENT, content(response));
+    assertFalse(Files.exists(file));
+  }
+}